@@ -0,0 +1,95 @@
+package pl.pwr.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pl.pwr.parser.BulkTranslator;
+import pl.pwr.parser.QueryTranslator;
+
+/**
+ * Throughput of {@link BulkTranslator} by number of worker threads, in queries per second, next to a plain loop
+ * over {@link QueryTranslator#translate(String)} on one thread. With enough cores the bulk score should grow
+ * close to linearly with {@code threads}; beyond the number of cores of the machine it can only stay flat.
+ * <p>
+ * The inputs mix SELECTs and INSERTs of every size of {@link QueryInput}, so the pieces of a batch take
+ * different times to translate, like in a real offline job.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkTranslationBenchmark {
+    private static final int QUERIES = 4096;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private final QueryTranslator translator = new QueryTranslator();
+    private List<String> inputs;
+    private ForkJoinPool pool;
+    private BulkTranslator bulkTranslator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> shapes = new ArrayList<>();
+        for (String queryType : List.of("SELECT", "INSERT")) {
+            for (int size : new int[]{1, 16, 64}) {
+                QueryInput input = new QueryInput();
+                input.queryType = queryType;
+                input.size = size;
+                input.columns = 8;
+                input.payloadSize = 16;
+                input.setUp();
+                shapes.add(input.json);
+            }
+        }
+        inputs = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            inputs.add(shapes.get(i % shapes.size()));
+        }
+        pool = new ForkJoinPool(threads);
+        bulkTranslator = new BulkTranslator(translator, pool, QUERIES);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public List<BulkTranslator.Result<String>> translateBulk() {
+        return bulkTranslator.translate(inputs);
+    }
+
+    /**
+     * Ignores {@code threads}, the baseline every bulk score is compared with.
+     */
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void translateSequential(Blackhole blackhole) {
+        for (String input : inputs) {
+            blackhole.consume(translator.translate(input));
+        }
+    }
+}
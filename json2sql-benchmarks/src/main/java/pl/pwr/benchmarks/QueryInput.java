@@ -0,0 +1,80 @@
+package pl.pwr.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Generated JSON query shared by the benchmarks of one parameter combination.
+ * <p>
+ * {@code size} is the number of conditions of a SELECT or the number of rows of an INSERT, {@code columns} the
+ * number of selected or inserted columns and {@code payloadSize} the length of every string literal.
+ */
+@State(Scope.Benchmark)
+public class QueryInput {
+    @Param({"SELECT", "INSERT"})
+    public String queryType;
+
+    @Param({"1", "16", "256"})
+    public int size;
+
+    @Param({"4", "16"})
+    public int columns;
+
+    @Param({"8", "256"})
+    public int payloadSize;
+
+    public String json;
+    public byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        json = "SELECT".equals(queryType) ? select() : insert();
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String select() {
+        StringJoiner conditions = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < size; i++) {
+            conditions.add("{\"column\": \"column_" + (i % columns) + "\", \"operator\": \"=\", \"value\": "
+                    + string(i) + "}");
+        }
+        return "{\"queryType\": \"SELECT\", \"table\": \"benchmark\", \"columns\": " + columnNames()
+                + ", \"conditions\": " + conditions
+                + ", \"orderBy\": [{\"column\": \"column_0\", \"direction\": \"ASC\"}], \"limit\": 100}";
+    }
+
+    private String insert() {
+        StringJoiner rows = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < size; i++) {
+            StringJoiner row = new StringJoiner(", ", "{", "}");
+            for (int column = 0; column < columns; column++) {
+                // Alternate strings and numbers, the two literal kinds of the lexer
+                row.add("\"column_" + column + "\": " + (column % 2 == 0 ? string(i) : String.valueOf(i * column)));
+            }
+            rows.add(row.toString());
+        }
+        return "{\"queryType\": \"INSERT\", \"table\": \"benchmark\", \"columns\": " + columnNames()
+                + ", \"values\": " + rows + "}";
+    }
+
+    private String columnNames() {
+        StringJoiner names = new StringJoiner(", ", "[", "]");
+        for (int column = 0; column < columns; column++) {
+            names.add("\"column_" + column + "\"");
+        }
+        return names.toString();
+    }
+
+    private String string(int seed) {
+        StringBuilder value = new StringBuilder(payloadSize + 2).append('"');
+        for (int i = 0; i < payloadSize; i++) {
+            value.append((char) ('a' + (seed + i) % 26));
+        }
+        return value.append('"').toString();
+    }
+}
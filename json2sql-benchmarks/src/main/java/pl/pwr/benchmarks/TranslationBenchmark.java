@@ -0,0 +1,51 @@
+package pl.pwr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pl.pwr.parser.QueryTranslator;
+import pl.pwr.parser.StatementCache;
+import pl.pwr.query.SqlStatement;
+
+/**
+ * End-to-end translation of one JSON query through every public entry point of {@link QueryTranslator}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TranslationBenchmark {
+    private final QueryTranslator translator = new QueryTranslator();
+    private final QueryTranslator cachingTranslator = new QueryTranslator(new StatementCache(1024));
+
+    @Benchmark
+    public String translateString(QueryInput input) {
+        return translator.translate(input.json);
+    }
+
+    @Benchmark
+    public String translateBytes(QueryInput input) {
+        return translator.translate(input.bytes);
+    }
+
+    @Benchmark
+    public SqlStatement prepareBytes(QueryInput input) {
+        return translator.prepare(input.bytes);
+    }
+
+    @Benchmark
+    public SqlStatement prepareBytesCached(QueryInput input) {
+        return cachingTranslator.prepare(input.bytes);
+    }
+}
@@ -0,0 +1,107 @@
+package pl.pwr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pl.pwr.antlr.JSONLexer;
+import pl.pwr.antlr.JSONParser;
+import pl.pwr.parser.Json2SqlVisitor;
+import pl.pwr.parser.JsonQueryReader;
+import pl.pwr.parser.QueryShape;
+import pl.pwr.parser.SqlGenerator;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
+
+/**
+ * The stages of a translation measured one at a time, each starting from the output of the previous stage:
+ * lexing, SLL parsing, reading the parse tree into a {@link Query} and generating SQL from it. The single-pass
+ * {@link JsonQueryReader} and the shape fingerprint used by the statement cache are measured alongside.
+ * <p>
+ * The lexer and parser are reused the way {@code QueryTranslator} reuses them, so their construction is not
+ * part of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VisitorStagesBenchmark {
+    private final JSONLexer lexer = new JSONLexer(null);
+    private final CommonTokenStream tokens = new CommonTokenStream(lexer);
+    private final JSONParser parser = new JSONParser(tokens);
+    private final Json2SqlVisitor visitor = new Json2SqlVisitor();
+    private final SqlGenerator sqlGenerator = new SqlGenerator();
+
+    private CommonTokenStream lexedTokens;
+    private JSONParser.ObjContext tree;
+    private Query query;
+
+    @Setup
+    public void setUp(QueryInput input) {
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+
+        JSONLexer setUpLexer = new JSONLexer(CharStreams.fromString(input.json));
+        lexedTokens = new CommonTokenStream(setUpLexer);
+        lexedTokens.fill();
+        parser.setTokenStream(lexedTokens);
+        tree = parser.json().value().obj();
+        query = visitor.readQuery(tree);
+    }
+
+    @Benchmark
+    public int lex(QueryInput input) {
+        lexer.setInputStream(CharStreams.fromString(input.json));
+        tokens.setTokenSource(lexer);
+        tokens.fill();
+        return tokens.size();
+    }
+
+    @Benchmark
+    public JSONParser.JsonContext parse() {
+        // reset() rewinds the already lexed tokens
+        parser.reset();
+        return parser.json();
+    }
+
+    @Benchmark
+    public Query readQuery() {
+        return visitor.readQuery(tree);
+    }
+
+    @Benchmark
+    public String generate() {
+        return sqlGenerator.generate(query);
+    }
+
+    @Benchmark
+    public SqlStatement prepare() {
+        return sqlGenerator.prepare(query);
+    }
+
+    @Benchmark
+    public QueryShape shape() {
+        return QueryShape.of(query);
+    }
+
+    @Benchmark
+    public Query readBytes(QueryInput input) {
+        return JsonQueryReader.read(input.bytes);
+    }
+}
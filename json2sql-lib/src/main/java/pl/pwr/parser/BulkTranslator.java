@@ -0,0 +1,189 @@
+package pl.pwr.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import pl.pwr.query.SqlStatement;
+
+/**
+ * Translates many JSON queries in parallel on a {@link ForkJoinPool}, for offline jobs converting large sets of
+ * queries at once.
+ * <p>
+ * A list is split in halves until the pieces are small enough to translate in one go, so every worker of the
+ * pool takes part and idle workers steal the remaining halves of busy ones. The results are returned in input
+ * order. A query that can't be translated yields a failed {@link Result} instead of aborting the batch. A stream
+ * is read in batches of {@code batchSize} queries, each translated in parallel before the next one is read, so
+ * only one batch is held in memory.
+ * <p>
+ * All threads share one {@link QueryTranslator}, which is thread-safe. Instances are thread-safe as well.
+ */
+public class BulkTranslator {
+    private static final int MIN_SPLIT = 16;
+
+    private final QueryTranslator translator;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+
+    /**
+     * @param result the SQL or statement, {@code null} if the query failed
+     * @param error  why the query failed, either the exception it raised or the message of a query the
+     *               translator rejected as invalid, {@code null} if it succeeded
+     */
+    public record Result<T>(long index, T result, String error) {
+
+        public boolean successful() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Translates on the common pool, streams in batches of 4096 queries.
+     */
+    public BulkTranslator(QueryTranslator translator) {
+        this(translator, ForkJoinPool.commonPool(), 4096);
+    }
+
+    /**
+     * @param pool      runs the translations, its parallelism bounds the cores used
+     * @param batchSize queries of a stream translated together
+     */
+    public BulkTranslator(QueryTranslator translator, ForkJoinPool pool, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.translator = translator;
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Translates every query to SQL with the literals inlined, like {@link QueryTranslator#translate(String)}.
+     */
+    public List<Result<String>> translate(List<String> inputs) {
+        return translate(inputs, 0, translator::translate, sql -> sql);
+    }
+
+    /**
+     * Translates every query to a parameterized statement, like {@link QueryTranslator#prepare(String)}.
+     */
+    public List<Result<SqlStatement>> prepare(List<String> inputs) {
+        return translate(inputs, 0, translator::prepare, SqlStatement::sql);
+    }
+
+    /**
+     * Lazily translates the stream to SQL, see {@link #translate(List)}. Closing the returned stream closes the
+     * input.
+     */
+    public Stream<Result<String>> translate(Stream<String> inputs) {
+        return translate(inputs, translator::translate, sql -> sql);
+    }
+
+    /**
+     * Lazily translates the stream to parameterized statements, see {@link #prepare(List)}. Closing the
+     * returned stream closes the input.
+     */
+    public Stream<Result<SqlStatement>> prepare(Stream<String> inputs) {
+        return translate(inputs, translator::prepare, SqlStatement::sql);
+    }
+
+    private <T> Stream<Result<T>> translate(Stream<String> inputs, Function<String, T> translation,
+                                            Function<T, String> sql) {
+        Iterator<String> source = inputs.iterator();
+        Iterator<List<Result<T>>> batches = new Iterator<>() {
+            private long offset;
+
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public List<Result<T>> next() {
+                if (!source.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<String> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && source.hasNext()) {
+                    batch.add(source.next());
+                }
+                List<Result<T>> results = BulkTranslator.this.translate(batch, offset, translation, sql);
+                offset += batch.size();
+                return results;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false)
+                .flatMap(List::stream)
+                .onClose(inputs::close);
+    }
+
+    private <T> List<Result<T>> translate(List<String> inputs, long offset, Function<String, T> translation,
+                                          Function<T, String> sql) {
+        @SuppressWarnings("unchecked")
+        Result<T>[] results = new Result[inputs.size()];
+        // Several pieces per worker, so a worker that finishes early has something left to steal
+        int threshold = Math.max(MIN_SPLIT, inputs.size() / (pool.getParallelism() * 8));
+        pool.invoke(new Translation<>(inputs, results, offset, 0, inputs.size(), threshold, translation, sql));
+        return Arrays.asList(results);
+    }
+
+    private static final class Translation<T> extends RecursiveAction {
+        private final List<String> inputs;
+        private final Result<T>[] results;
+        private final long offset;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final Function<String, T> translation;
+        private final Function<T, String> sql;
+
+        private Translation(List<String> inputs, Result<T>[] results, long offset, int from, int to, int threshold,
+                            Function<String, T> translation, Function<T, String> sql) {
+            this.inputs = inputs;
+            this.results = results;
+            this.offset = offset;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.translation = translation;
+            this.sql = sql;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    results[i] = translate(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Translation<>(inputs, results, offset, from, middle, threshold, translation, sql),
+                    new Translation<>(inputs, results, offset, middle, to, threshold, translation, sql));
+        }
+
+        private Result<T> translate(int i) {
+            long index = offset + i;
+            String input = inputs.get(i);
+            if (input == null) {
+                return new Result<>(index, null, "Missing query");
+            }
+            try {
+                T result = translation.apply(input);
+                String text = sql.apply(result);
+                return text.startsWith("Invalid") ? new Result<>(index, null, text) : new Result<>(index, result, null);
+            } catch (RuntimeException e) {
+                return new Result<>(index, null, e.getMessage() != null ? e.getMessage() : e.toString());
+            }
+        }
+    }
+}
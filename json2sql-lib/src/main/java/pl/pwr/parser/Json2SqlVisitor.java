@@ -3,12 +3,28 @@ package pl.pwr.parser;
 
 import pl.pwr.antlr.JSONBaseVisitor;
 import pl.pwr.antlr.JSONParser;
+import pl.pwr.query.Condition;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
+import static pl.pwr.parser.JsonLiterals.limit;
+import static pl.pwr.parser.JsonLiterals.number;
+import static pl.pwr.parser.JsonLiterals.unquote;
+
+/**
+ * Reads a parsed JSON query into a {@link Query} and renders it with the {@link SqlGenerator}.
+ * <p>
+ * Instances are thread-safe: a visit keeps its state on the stack and nothing is held between calls, so one
+ * visitor may be shared by any number of threads, each visiting its own parse tree.
+ */
 public class Json2SqlVisitor extends JSONBaseVisitor<String> {
+    private final SqlGenerator sqlGenerator = new SqlGenerator();
 
     public Json2SqlVisitor() {
         super();
@@ -21,87 +37,50 @@ public class Json2SqlVisitor extends JSONBaseVisitor<String> {
 
     @Override
     public String visitObj(JSONParser.ObjContext ctx) {
+        return sqlGenerator.generate(readQuery(ctx));
+    }
+
+    /**
+     * Reads the parsed request object into the typed query model.
+     *
+     * @param ctx the top level JSON object
+     * @return the query described by the object
+     * @throws IllegalArgumentException if the limit is not a non-negative integer
+     */
+    public Query readQuery(JSONParser.ObjContext ctx) {
         String queryType = null;
         String table = null;
         List<String> columns = null;
-        List<String> values = null;
-        List<String> conditions = null;
-        List<String> orderBy = null;
+        List<Map<String, Object>> values = null;
+        List<Condition> conditions = null;
+        List<OrderBy> orderBy = null;
         List<String> groupBy = null;
-        String limit = null;
+        Integer limit = null;
+        List<Object> after = null;
 
         for (JSONParser.PairContext pair : ctx.pair()) {
-            String key = pair.STRING().getText().replace("\"", "");
-            String value = visitValue(pair.value());
+            String key = unquote(pair.STRING().getText());
 
             switch (key) {
-                case "queryType" -> queryType = value != null ? value.toUpperCase() : null;
-                case "table" -> table = value;
-                case "columns" -> columns = value != null ? extractArray(pair.value()) : null;
-                case "values" -> {
-                    if (value != null) {
-                        // Use different extraction methods based on query type
-                        if ("INSERT".equalsIgnoreCase(queryType)) {
-                            values = extractValuesForInsert(pair.value(), columns);
-                        } else {
-                            values = extractKeyValuePairs(pair.value());
-                        }
-                    }
+                case "queryType" -> {
+                    Object value = literal(pair.value());
+                    queryType = value != null ? value.toString().toUpperCase() : null;
                 }
-                case "conditions" -> conditions = value != null ? extractConditions(pair.value()) : null;
-                case "orderBy" -> orderBy = value != null ? extractOrderBy(pair.value()) : null;
-                case "groupBy" -> groupBy = value != null ? extractArray(pair.value()) : null;
-                case "limit" -> limit = value;
-            }
-        }
-
-        return generateSQL(queryType, table, columns, values, conditions, orderBy, groupBy, limit);
-    }
-
-    private String generateSQL(String queryType, String table, List<String> columns, List<String> values,
-                               List<String> conditions, List<String> orderBy, List<String> groupBy, String limit) {
-        StringBuilder sql = new StringBuilder();
-
-        if (queryType == null || table == null) {
-            return "Invalid query: missing required fields.";
-        }
-
-        switch (queryType) {
-            case "SELECT" -> {
-                sql.append("SELECT ")
-                        .append(columns != null && !columns.isEmpty() ? String.join(", ", columns) : "*")
-                        .append(" FROM ").append(table);
-                if (conditions != null && !conditions.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", conditions));
-                if (groupBy != null && !groupBy.isEmpty()) sql.append(" GROUP BY ").append(String.join(", ", groupBy));
-                if (orderBy != null && !orderBy.isEmpty()) sql.append(" ORDER BY ").append(String.join(", ", orderBy));
-                if (limit != null && !limit.isEmpty() && !"null".equals(limit)) sql.append(" LIMIT ").append(limit);
-            }
-            case "INSERT" -> {
-                if (columns != null && !columns.isEmpty() && values != null && !values.isEmpty()) {
-                    sql.append("INSERT INTO ").append(table)
-                            .append(" (").append(String.join(", ", columns)).append(")")
-                            .append(" VALUES (").append(String.join(", ", values)).append(")");
-                } else {
-                    sql.append("Invalid INSERT: columns or values are missing.");
+                case "table" -> {
+                    Object value = literal(pair.value());
+                    table = value != null ? value.toString() : null;
                 }
+                case "columns" -> columns = extractArray(pair.value());
+                case "values" -> values = extractValues(pair.value());
+                case "conditions" -> conditions = extractConditions(pair.value());
+                case "orderBy" -> orderBy = extractOrderBy(pair.value());
+                case "groupBy" -> groupBy = extractArray(pair.value());
+                case "limit" -> limit = limit(literal(pair.value()));
+                case "after" -> after = extractLiterals(pair.value());
             }
-            case "UPDATE" -> {
-                if (values != null && !values.isEmpty()) {
-                    sql.append("UPDATE ").append(table).append(" SET ")
-                            .append(String.join(", ", values));
-                    if (conditions != null && !conditions.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", conditions));
-                } else {
-                    sql.append("Invalid UPDATE: values are missing.");
-                }
-            }
-            case "DELETE" -> {
-                sql.append("DELETE FROM ").append(table);
-                if (conditions != null && !conditions.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", conditions));
-            }
-            default -> sql.append("Invalid query type: ").append(queryType);
         }
 
-        return sql.toString();
+        return new Query(queryType, table, columns, values, conditions, orderBy, groupBy, limit, after);
     }
 
     private List<String> extractArray(JSONParser.ValueContext ctx) {
@@ -114,78 +93,60 @@ public class Json2SqlVisitor extends JSONBaseVisitor<String> {
         return null;
     }
 
-    private List<String> extractValuesForInsert(JSONParser.ValueContext ctx, List<String> columns) {
-        if (ctx.arr() != null && ctx.arr().value() != null && !ctx.arr().value().isEmpty()) {
-            JSONParser.ValueContext firstValue = ctx.arr().value(0);
-            JSONParser.ObjContext obj = firstValue.obj();
-            
-            if (obj != null && columns != null && !columns.isEmpty()) {
-                return columns.stream()
-                    .map(column -> {
-                        // Find the matching column value in the object
-                        for (JSONParser.PairContext pair : obj.pair()) {
-                            String key = pair.STRING().getText().replace("\"", "");
-                            if (column.equals(key)) {
-                                String value = pair.value().getText();
-                                // Add quotes for string values
-                                if (value.startsWith("\"") && value.endsWith("\"")) {
-                                    return "'" + value.substring(1, value.length() - 1) + "'";
-                                }
-                                return value;
-                            }
-                        }
-                        return "null"; // If column not found in values
-                    })
+    private List<Object> extractLiterals(JSONParser.ValueContext ctx) {
+        if (ctx.arr() != null && ctx.arr().value() != null) {
+            // Nulls are kept, every entry lines up with an orderBy key
+            return ctx.arr().value().stream()
+                    .map(this::literal)
                     .collect(Collectors.toList());
-            }
         }
         return null;
     }
 
-    private List<String> extractKeyValuePairs(JSONParser.ValueContext ctx) {
+    private List<Map<String, Object>> extractValues(JSONParser.ValueContext ctx) {
         if (ctx.arr() != null && ctx.arr().value() != null) {
             return ctx.arr().value().stream()
-                    .map(v -> {
-                        JSONParser.ObjContext obj = v.obj();
-                        if (obj != null && obj.pair(0) != null) {
-                            String key = obj.pair(0).STRING().getText().replace("\"", "");
-                            String value = obj.pair(0).value().getText().replace("\"", "'");
-                            return key + " = " + value;
+                    .map(JSONParser.ValueContext::obj)
+                    .filter(Objects::nonNull)
+                    .map(obj -> {
+                        // Keep the pairs in document order, UPDATE relies on it
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        for (JSONParser.PairContext pair : obj.pair()) {
+                            row.put(unquote(pair.STRING().getText()), literal(pair.value()));
                         }
-                        return null;
+                        return row;
                     })
-                    .filter(Objects::nonNull)  // Ignore null pairs
                     .collect(Collectors.toList());
         }
         return null;
     }
 
-    private List<String> extractConditions(JSONParser.ValueContext ctx) {
+    private List<Condition> extractConditions(JSONParser.ValueContext ctx) {
         if (ctx.arr() != null && ctx.arr().value() != null) {
             return ctx.arr().value().stream()
                     .map(v -> {
                         JSONParser.ObjContext obj = v.obj();
                         if (obj != null) {
-                            // Find the "column", "operator", and "value" keys 
+                            // Find the "column", "operator", and "value" keys
                             String columnName = null;
                             String operator = null;
-                            String value = null;
-                            
+                            Object value = null;
+                            boolean hasValue = false;
+
                             for (int i = 0; i < obj.pair().size(); i++) {
-                                String key = obj.pair(i).STRING().getText().replace("\"", "");
+                                String key = unquote(obj.pair(i).STRING().getText());
                                 switch (key) {
                                     case "column" -> columnName = visitValue(obj.pair(i).value());
                                     case "operator" -> operator = visitValue(obj.pair(i).value());
                                     case "value" -> {
-                                        value = visitValue(obj.pair(i).value());
-                                        // Values need quotes for strings
-                                        if (!value.startsWith("'")) value = "'" + value + "'";
+                                        value = literal(obj.pair(i).value());
+                                        hasValue = true;
                                     }
                                 }
                             }
-                            
-                            if (columnName != null && operator != null && value != null) {
-                                return columnName + " " + operator + " " + value;
+
+                            if (columnName != null && operator != null && hasValue) {
+                                return new Condition(columnName, operator, value);
                             }
                         }
                         return null;
@@ -196,7 +157,7 @@ public class Json2SqlVisitor extends JSONBaseVisitor<String> {
         return null;
     }
 
-    private List<String> extractOrderBy(JSONParser.ValueContext ctx) {
+    private List<OrderBy> extractOrderBy(JSONParser.ValueContext ctx) {
         if (ctx.arr() != null && ctx.arr().value() != null) {
             return ctx.arr().value().stream()
                     .map(v -> {
@@ -205,18 +166,18 @@ public class Json2SqlVisitor extends JSONBaseVisitor<String> {
                             // Find the "column" and "direction" keys
                             String columnName = null;
                             String direction = null;
-                            
+
                             for (int i = 0; i < obj.pair().size(); i++) {
-                                String key = obj.pair(i).STRING().getText().replace("\"", "");
+                                String key = unquote(obj.pair(i).STRING().getText());
                                 if ("column".equals(key)) {
                                     columnName = visitValue(obj.pair(i).value());
                                 } else if ("direction".equals(key)) {
                                     direction = visitValue(obj.pair(i).value()).toUpperCase();
                                 }
                             }
-                            
+
                             if (columnName != null && direction != null) {
-                                return columnName + " " + direction;
+                                return new OrderBy(columnName, direction);
                             }
                         }
                         return null;
@@ -227,10 +188,30 @@ public class Json2SqlVisitor extends JSONBaseVisitor<String> {
         return null;
     }
 
+    /**
+     * Converts a scalar JSON value into its Java counterpart. Objects and arrays keep their source text.
+     */
+    private Object literal(JSONParser.ValueContext ctx) {
+        if (ctx.STRING() != null) {
+            return unquote(ctx.STRING().getText());
+        }
+        if (ctx.NUMBER() != null) {
+            return number(ctx.NUMBER().getText());
+        }
+        if (ctx.obj() != null || ctx.arr() != null) {
+            return ctx.getText();
+        }
+        return switch (ctx.getText()) {
+            case "true" -> Boolean.TRUE;
+            case "false" -> Boolean.FALSE;
+            default -> null;
+        };
+    }
+
     @Override
     public String visitValue(JSONParser.ValueContext ctx) {
         if (ctx.STRING() != null) {
-            return ctx.STRING().getText().replace("\"", ""); // Remove surrounding quotes
+            return unquote(ctx.STRING().getText()); // Remove surrounding quotes
         }
         if (ctx.NUMBER() != null) {
             return ctx.NUMBER().getText();
@@ -0,0 +1,81 @@
+package pl.pwr.parser;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversions of JSON literal text shared by the query readers.
+ */
+final class JsonLiterals {
+
+    private JsonLiterals() {
+    }
+
+    static Object number(String text) {
+        if (text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                // Too large for a long, fall through
+            }
+        }
+        return new BigDecimal(text);
+    }
+
+    /**
+     * Reads the value of {@code limit}, a non-negative integer that may also be given as a numeric string.
+     *
+     * @return the limit, or {@code null} for a {@code null} value
+     * @throws IllegalArgumentException if the value is no such integer or does not fit an {@code int}
+     */
+    static Integer limit(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number || value instanceof String) {
+            try {
+                BigDecimal limit = new BigDecimal(value.toString());
+                if (limit.signum() >= 0) {
+                    return limit.intValueExact();
+                }
+            } catch (NumberFormatException | ArithmeticException e) {
+                // Not an integer or too large, rejected below
+            }
+        }
+        throw new IllegalArgumentException("Invalid limit: " + value);
+    }
+
+    static String unquote(String token) {
+        return unescape(token.substring(1, token.length() - 1));
+    }
+
+    /**
+     * Resolves the escape sequences of a JSON string body.
+     */
+    static String unescape(String content) {
+        if (content.indexOf('\\') < 0) {
+            return content;
+        }
+        StringBuilder result = new StringBuilder(content.length());
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c != '\\') {
+                result.append(c);
+                continue;
+            }
+            char escaped = content.charAt(++i);
+            switch (escaped) {
+                case 'b' -> result.append('\b');
+                case 'f' -> result.append('\f');
+                case 'n' -> result.append('\n');
+                case 'r' -> result.append('\r');
+                case 't' -> result.append('\t');
+                case 'u' -> {
+                    result.append((char) Integer.parseInt(content.substring(i + 1, i + 5), 16));
+                    i += 4;
+                }
+                default -> result.append(escaped);  // \" \\ \/
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,537 @@
+package pl.pwr.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import pl.pwr.query.Condition;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
+
+/**
+ * Single-pass reader of JSON queries straight from UTF-8 bytes.
+ * <p>
+ * Accepts the language of {@code JSON.g4} and fills the query model the same way {@link Json2SqlVisitor#readQuery}
+ * does, but without a character stream, token objects or a parse tree: only the strings and numbers that end up
+ * in the {@link Query} are materialized. Malformed input is rejected with an {@link IllegalArgumentException}.
+ */
+public final class JsonQueryReader {
+    private static final Query EMPTY = new Query(null, null, null, null, null, null, null, null);
+
+    private final SqlGenerator sqlGenerator = new SqlGenerator();
+    private final byte[] input;
+    private final int end;
+    private int position;
+
+    private JsonQueryReader(byte[] input, int offset, int length) {
+        this.input = input;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    public static Query read(byte[] input) {
+        return read(input, 0, input.length);
+    }
+
+    public static Query read(byte[] input, int offset, int length) {
+        return new JsonQueryReader(input, offset, length).readDocument();
+    }
+
+    /**
+     * Reads the remaining bytes of the buffer without changing its position. Heap buffers are read in place.
+     */
+    public static Query read(ByteBuffer input) {
+        if (input.hasArray()) {
+            return read(input.array(), input.arrayOffset() + input.position(), input.remaining());
+        }
+        byte[] bytes = new byte[input.remaining()];
+        input.duplicate().get(bytes);
+        return read(bytes);
+    }
+
+    private Query readDocument() {
+        skipWhitespace();
+        Query query;
+        if (peek() == '{') {
+            query = readQuery();
+        } else {
+            skipValue();
+            query = EMPTY;  // Only objects describe queries
+        }
+        skipWhitespace();
+        if (position != end) {
+            throw error("end of input");
+        }
+        return query;
+    }
+
+    private Query readQuery() {
+        String queryType = null;
+        String table = null;
+        List<String> columns = null;
+        List<Map<String, Object>> values = null;
+        List<Condition> conditions = null;
+        List<OrderBy> orderBy = null;
+        List<String> groupBy = null;
+        Integer limit = null;
+        List<Object> after = null;
+
+        if (enter('{', '}')) {
+            do {
+                switch (readKey()) {
+                    case "queryType" -> {
+                        Object value = readLiteral();
+                        queryType = value != null ? value.toString().toUpperCase() : null;
+                    }
+                    case "table" -> {
+                        Object value = readLiteral();
+                        table = value != null ? value.toString() : null;
+                    }
+                    case "columns" -> columns = readTextArray();
+                    case "values" -> values = readValues();
+                    case "conditions" -> conditions = readConditions();
+                    case "orderBy" -> orderBy = readOrderBy();
+                    case "groupBy" -> groupBy = readTextArray();
+                    case "limit" -> limit = JsonLiterals.limit(readLiteral());
+                    case "after" -> after = readLiteralArray();
+                    default -> skipValue();
+                }
+            } while (next('}'));
+        }
+
+        return new Query(queryType, table, columns, values, conditions, orderBy, groupBy, limit, after);
+    }
+
+    private List<String> readTextArray() {
+        if (peek() != '[') {
+            skipValue();
+            return null;
+        }
+        List<String> result = new ArrayList<>();
+        if (enter('[', ']')) {
+            do {
+                result.add(readText());
+            } while (next(']'));
+        }
+        return result;
+    }
+
+    private List<Object> readLiteralArray() {
+        if (peek() != '[') {
+            skipValue();
+            return null;
+        }
+        List<Object> result = new ArrayList<>();
+        if (enter('[', ']')) {
+            do {
+                result.add(readLiteral());
+            } while (next(']'));
+        }
+        return result;
+    }
+
+    private List<Map<String, Object>> readValues() {
+        if (peek() != '[') {
+            skipValue();
+            return null;
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (enter('[', ']')) {
+            do {
+                if (peek() != '{') {
+                    skipValue();
+                    continue;
+                }
+                // Keep the pairs in document order, UPDATE relies on it
+                Map<String, Object> row = new LinkedHashMap<>();
+                if (enter('{', '}')) {
+                    do {
+                        String key = readKey();
+                        row.put(key, readLiteral());
+                    } while (next('}'));
+                }
+                result.add(row);
+            } while (next(']'));
+        }
+        return result;
+    }
+
+    private List<Condition> readConditions() {
+        if (peek() != '[') {
+            skipValue();
+            return null;
+        }
+        List<Condition> result = new ArrayList<>();
+        if (enter('[', ']')) {
+            do {
+                if (peek() != '{') {
+                    skipValue();
+                    continue;
+                }
+                String columnName = null;
+                String operator = null;
+                Object value = null;
+                boolean hasValue = false;
+                if (enter('{', '}')) {
+                    do {
+                        switch (readKey()) {
+                            case "column" -> columnName = readText();
+                            case "operator" -> operator = readText();
+                            case "value" -> {
+                                value = readLiteral();
+                                hasValue = true;
+                            }
+                            default -> skipValue();
+                        }
+                    } while (next('}'));
+                }
+                if (columnName != null && operator != null && hasValue) {
+                    result.add(new Condition(columnName, operator, value));
+                }
+            } while (next(']'));
+        }
+        return result;
+    }
+
+    private List<OrderBy> readOrderBy() {
+        if (peek() != '[') {
+            skipValue();
+            return null;
+        }
+        List<OrderBy> result = new ArrayList<>();
+        if (enter('[', ']')) {
+            do {
+                if (peek() != '{') {
+                    skipValue();
+                    continue;
+                }
+                String columnName = null;
+                String direction = null;
+                if (enter('{', '}')) {
+                    do {
+                        switch (readKey()) {
+                            case "column" -> columnName = readText();
+                            case "direction" -> direction = readText().toUpperCase();
+                            default -> skipValue();
+                        }
+                    } while (next('}'));
+                }
+                if (columnName != null && direction != null) {
+                    result.add(new OrderBy(columnName, direction));
+                }
+            } while (next(']'));
+        }
+        return result;
+    }
+
+    /**
+     * Reads a value the way {@link Json2SqlVisitor#visitValue} renders it.
+     */
+    private String readText() {
+        return switch (peek()) {
+            case '"' -> readString();
+            case '{' -> sqlGenerator.generate(readQuery());
+            case '[' -> {
+                StringBuilder text = new StringBuilder();
+                if (enter('[', ']')) {
+                    do {
+                        if (!text.isEmpty()) text.append(", ");
+                        text.append(readText());
+                    } while (next(']'));
+                }
+                yield text.toString();
+            }
+            case 't', 'f', 'n' -> String.valueOf(readKeyword());
+            default -> numberText();
+        };
+    }
+
+    /**
+     * Reads a scalar as its Java value. Objects and arrays are returned as their source text without whitespace.
+     */
+    private Object readLiteral() {
+        return switch (peek()) {
+            case '"' -> readString();
+            case '{', '[' -> {
+                StringBuilder text = new StringBuilder();
+                compact(text);
+                yield text.toString();
+            }
+            case 't', 'f', 'n' -> readKeyword();
+            default -> readNumber();
+        };
+    }
+
+    private void skipValue() {
+        switch (peek()) {
+            case '"' -> skipString();
+            case '{' -> {
+                if (enter('{', '}')) {
+                    do {
+                        readKey();
+                        skipValue();
+                    } while (next('}'));
+                }
+            }
+            case '[' -> {
+                if (enter('[', ']')) {
+                    do {
+                        skipValue();
+                    } while (next(']'));
+                }
+            }
+            case 't', 'f', 'n' -> readKeyword();
+            default -> skipNumber();
+        }
+    }
+
+    private void compact(StringBuilder text) {
+        switch (peek()) {
+            case '"' -> {
+                int start = position;
+                skipString();
+                text.append(new String(input, start, position - start, StandardCharsets.UTF_8));
+            }
+            case '{' -> {
+                text.append('{');
+                if (enter('{', '}')) {
+                    do {
+                        if (text.charAt(text.length() - 1) != '{') text.append(',');
+                        int start = position;
+                        skipString();
+                        text.append(new String(input, start, position - start, StandardCharsets.UTF_8)).append(':');
+                        skipWhitespace();
+                        expect(':');
+                        skipWhitespace();
+                        compact(text);
+                    } while (next('}'));
+                }
+                text.append('}');
+            }
+            case '[' -> {
+                text.append('[');
+                if (enter('[', ']')) {
+                    do {
+                        if (text.charAt(text.length() - 1) != '[') text.append(',');
+                        compact(text);
+                    } while (next(']'));
+                }
+                text.append(']');
+            }
+            case 't', 'f', 'n' -> text.append(readKeyword());
+            default -> text.append(numberText());
+        }
+    }
+
+    // Structure
+
+    /**
+     * Consumes the opening bracket and any whitespace after it.
+     *
+     * @return {@code false} if the object or array is empty and has already been closed
+     */
+    private boolean enter(char open, char close) {
+        expect(open);
+        skipWhitespace();
+        if (position < end && input[position] == close) {
+            position++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Moves past the separator to the next member, or past the closing bracket.
+     *
+     * @return {@code true} if another member follows
+     */
+    private boolean next(char close) {
+        skipWhitespace();
+        if (position < end && input[position] == ',') {
+            position++;
+            skipWhitespace();
+            return true;
+        }
+        expect(close);
+        return false;
+    }
+
+    private String readKey() {
+        String key = readString();
+        skipWhitespace();
+        expect(':');
+        skipWhitespace();
+        return key;
+    }
+
+    // Scalars
+
+    private String readString() {
+        expect('"');
+        int start = position;
+        boolean escaped = scanString();
+        String content = new String(input, start, position - start - 1, StandardCharsets.UTF_8);
+        return escaped ? JsonLiterals.unescape(content) : content;
+    }
+
+    private void skipString() {
+        expect('"');
+        scanString();
+    }
+
+    /**
+     * Moves past the closing quote of a string whose opening quote has been consumed.
+     *
+     * @return whether the string contains escape sequences
+     */
+    private boolean scanString() {
+        boolean escaped = false;
+        while (position < end) {
+            int b = input[position++] & 0xFF;
+            if (b == '"') {
+                return escaped;
+            }
+            if (b == '\\') {
+                escaped = true;
+                if (position >= end) break;
+                switch (input[position++]) {
+                    case '"', '\\', '/', 'b', 'f', 'n', 'r', 't' -> {
+                    }
+                    case 'u' -> {
+                        for (int i = 0; i < 4; i++) {
+                            if (position >= end || Character.digit(input[position++], 16) < 0) {
+                                position--;
+                                throw error("hexadecimal digit");
+                            }
+                        }
+                    }
+                    default -> {
+                        position--;
+                        throw error("escape sequence");
+                    }
+                }
+            } else if (b < 0x20) {
+                position--;
+                throw error("printable character");
+            }
+        }
+        throw error("closing quote");
+    }
+
+    private Object readKeyword() {
+        if (match("true")) return Boolean.TRUE;
+        if (match("false")) return Boolean.FALSE;
+        if (match("null")) return null;
+        throw error("value");
+    }
+
+    private boolean match(String keyword) {
+        int length = keyword.length();
+        if (end - position < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input[position + i] != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        position += length;
+        return true;
+    }
+
+    private Object readNumber() {
+        int start = position;
+        boolean integral = skipNumber();
+        int length = position - start;
+        // Up to 18 digits always fit in a long, so common ids and limits are decoded without a String
+        if (integral && length <= 18) {
+            boolean negative = input[start] == '-';
+            long value = 0;
+            for (int i = negative ? start + 1 : start; i < position; i++) {
+                value = value * 10 + (input[i] - '0');
+            }
+            return negative ? -value : value;
+        }
+        return JsonLiterals.number(new String(input, start, length, StandardCharsets.ISO_8859_1));
+    }
+
+    private String numberText() {
+        int start = position;
+        skipNumber();
+        return new String(input, start, position - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Consumes {@code '-'? INT ('.' [0-9]+)? EXP?}.
+     *
+     * @return whether the number has neither a fraction nor an exponent
+     */
+    private boolean skipNumber() {
+        if (position < end && input[position] == '-') {
+            position++;
+        }
+        skipInt();
+        boolean integral = true;
+        if (position < end && input[position] == '.') {
+            position++;
+            if (!isDigit()) throw error("digit");
+            while (isDigit()) position++;
+            integral = false;
+        }
+        if (position < end && (input[position] == 'e' || input[position] == 'E')) {
+            position++;
+            if (position < end && (input[position] == '+' || input[position] == '-')) {
+                position++;
+            }
+            skipInt();
+            integral = false;
+        }
+        return integral;
+    }
+
+    private void skipInt() {
+        if (!isDigit()) {
+            throw error("value");
+        }
+        if (input[position++] != '0') {
+            while (isDigit()) position++;
+        }
+    }
+
+    private boolean isDigit() {
+        return position < end && input[position] >= '0' && input[position] <= '9';
+    }
+
+    // Input
+
+    private int peek() {
+        if (position >= end) {
+            throw error("value");
+        }
+        return input[position];
+    }
+
+    private void expect(char expected) {
+        if (position >= end || input[position] != expected) {
+            throw error("'" + expected + "'");
+        }
+        position++;
+    }
+
+    private void skipWhitespace() {
+        while (position < end) {
+            byte b = input[position];
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String expected) {
+        return new IllegalArgumentException("Invalid JSON query at byte " + position + ": expected " + expected);
+    }
+}
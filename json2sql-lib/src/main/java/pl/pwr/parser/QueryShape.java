@@ -0,0 +1,146 @@
+package pl.pwr.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import pl.pwr.query.Condition;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
+
+/**
+ * Fingerprint of a query with its literal values removed, together with those values in placeholder order.
+ * <p>
+ * Two queries with equal {@link #key()} always compile to the same SQL template in {@link SqlGenerator#prepare},
+ * so the key can be used to look up a previously generated template and {@link #parameters()} bound to it.
+ * The walk below mirrors the rendering rules of {@link SqlGenerator}.
+ */
+public final class QueryShape {
+    private enum Marker { NULL, LITERAL, WHERE, AFTER, ORDER_BY }
+
+    private final List<Object> key = new ArrayList<>();
+    private final List<Object> parameters = new ArrayList<>();
+
+    private QueryShape() {
+    }
+
+    public static QueryShape of(Query query) {
+        QueryShape shape = new QueryShape();
+        shape.read(query);
+        return shape;
+    }
+
+    public List<Object> key() {
+        return key;
+    }
+
+    public List<Object> parameters() {
+        return parameters;
+    }
+
+    private void read(Query query) {
+        String queryType = query.queryType() != null ? query.queryType().toUpperCase() : null;
+        key.add(queryType);
+        key.add(query.table());
+        if (queryType == null || query.table() == null) {
+            return;
+        }
+
+        key.add(query.columns());
+        switch (queryType) {
+            case "SELECT" -> {
+                conditions(query.conditions());
+                after(SqlGenerator.sortKeys(query.orderBy()), query.after());
+                key.add(query.groupBy());
+                orderBy(query.orderBy());
+                if (query.limit() != null) literal(query.limit());
+            }
+            case "INSERT" -> {
+                List<String> columns = query.columns();
+                if (query.values() != null && columns != null && !columns.isEmpty()) {
+                    for (Map<String, Object> row : query.values()) {
+                        if (row != null) {
+                            columns.forEach(column -> literal(row.get(column)));
+                        }
+                    }
+                }
+            }
+            case "UPDATE" -> {
+                boolean assigned = false;
+                if (query.values() != null) {
+                    for (Map<String, Object> row : query.values()) {
+                        if (row != null && !row.isEmpty()) {
+                            Map.Entry<String, Object> pair = row.entrySet().iterator().next();
+                            key.add(pair.getKey());
+                            literal(pair.getValue());
+                            assigned = true;
+                        }
+                    }
+                }
+                if (assigned) conditions(query.conditions());
+            }
+            case "DELETE" -> conditions(query.conditions());
+            default -> {
+                // Rendered as an error message without parameters
+            }
+        }
+    }
+
+    private void conditions(List<Condition> conditions) {
+        key.add(Marker.WHERE);
+        if (conditions == null) {
+            return;
+        }
+        for (Condition condition : conditions) {
+            if (condition != null && condition.column() != null && condition.operator() != null) {
+                key.add(condition.column());
+                key.add(condition.operator());
+                literal(String.valueOf(condition.value()));
+            }
+        }
+    }
+
+    private void after(List<OrderBy> sortKeys, List<Object> after) {
+        key.add(Marker.AFTER);
+        key.add(after != null ? after.size() : null);
+        if (after == null || after.isEmpty() || after.size() != sortKeys.size()) {
+            return;
+        }
+        if (SqlGenerator.uniformDirection(sortKeys) && sortKeys.stream().allMatch(order -> order.nulls() == null)) {
+            after.forEach(this::literal);
+        } else {
+            // Expanded predicates repeat the leading keys in every alternative, a null key is compared with IS NULL
+            for (int i = 0; i < after.size(); i++) {
+                if (SqlGenerator.afterNone(sortKeys.get(i), after.get(i))) {
+                    key.add(Marker.NULL);
+                    continue;
+                }
+                after.subList(0, i + 1).forEach(this::literal);
+            }
+        }
+    }
+
+    private void orderBy(List<OrderBy> orderBy) {
+        key.add(Marker.ORDER_BY);
+        if (orderBy == null) {
+            return;
+        }
+        for (OrderBy order : orderBy) {
+            if (order != null && order.column() != null && order.direction() != null) {
+                key.add(order.column());
+                key.add(order.direction().toUpperCase());
+                key.add(order.nulls() != null ? order.nulls().toUpperCase() : null);
+            }
+        }
+    }
+
+    private void literal(Object value) {
+        // Null literals are rendered inline, so they are part of the shape
+        if (value == null) {
+            key.add(Marker.NULL);
+        } else {
+            key.add(Marker.LITERAL);
+            parameters.add(value);
+        }
+    }
+}
@@ -1,24 +1,383 @@
 package pl.pwr.parser;
 
-import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
 import pl.pwr.antlr.JSONLexer;
 import pl.pwr.antlr.JSONParser;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
 
+/**
+ * Translates JSON queries into SQL.
+ * <p>
+ * Instances are thread-safe and meant to be shared. ANTLR lexers and parsers are reused through a pool bounded by
+ * the number of processors rather than kept per thread, so virtual threads, which are created per task, reuse
+ * them too. They first parse in SLL prediction mode and fall back to full LL only when SLL reports a syntax error.
+ * <p>
+ * An optional {@link TranslationListener} is told how long every stage took. Without one no time is measured.
+ */
 public class QueryTranslator {
+    private final SqlGenerator sqlGenerator = new SqlGenerator();
+    private final StatementCache statementCache;
+    private final TranslationListener listener;
+    private final BlockingQueue<AntlrParser> parsers =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    public QueryTranslator() {
+        this(null);
+    }
+
+    /**
+     * @param statementCache cache of SQL templates by query shape used by {@code prepare}, or {@code null} to
+     *                       compile every query
+     */
+    public QueryTranslator(StatementCache statementCache) {
+        this(statementCache, null);
+    }
+
+    /**
+     * @param statementCache cache of SQL templates by query shape used by {@code prepare}, or {@code null} to
+     *                       compile every query
+     * @param listener       receives the duration of every translation stage, or {@code null}
+     */
+    public QueryTranslator(StatementCache statementCache, TranslationListener listener) {
+        this.statementCache = statementCache;
+        this.listener = listener;
+    }
+
     public String translate(String input) {
-        CharStream charStream = CharStreams.fromString(input);
-        JSONLexer lexer = new JSONLexer(charStream);
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        JSONParser parser = new JSONParser(tokens);
+        if (listener == null) {
+            ParseTree tree = parse(input);
+            Json2SqlVisitor visitor = new Json2SqlVisitor();
+            return visitor.visit(tree);
+        }
+        Stages stages = new Stages();
+        JSONParser.ValueContext value = stages.parse(input).value();
+        if (value.obj() == null) {
+            stages.report(null);
+            return new Json2SqlVisitor().visit(value);
+        }
+        Query query = stages.read(value.obj());
+        long start = System.nanoTime();
+        String sql = sqlGenerator.generate(query);
+        stages.generated(start);
+        stages.report(query);
+        return sql;
+    }
+
+    /**
+     * Compiles an already structured query, skipping the JSON lexing and parsing entirely.
+     *
+     * @param query the query to translate
+     * @return the translated SQL
+     */
+    public String translate(Query query) {
+        if (listener == null) {
+            return sqlGenerator.generate(query);
+        }
+        long start = System.nanoTime();
+        String sql = sqlGenerator.generate(query);
+        listener.onStage(TranslationListener.Stage.GENERATE, query, System.nanoTime() - start);
+        return sql;
+    }
+
+    /**
+     * Translates a UTF-8 encoded JSON query with the single-pass {@link JsonQueryReader}, skipping ANTLR.
+     *
+     * @param input the JSON query bytes
+     * @return the translated SQL
+     */
+    public String translate(byte[] input) {
+        return translate(read(input));
+    }
+
+    public String translate(ByteBuffer input) {
+        return translate(read(input));
+    }
+
+    /**
+     * Translates a JSON query into a parameterized statement.
+     *
+     * @param input the JSON query
+     * @return the SQL template and its bind parameters
+     */
+    public SqlStatement prepare(String input) {
+        if (listener == null) {
+            JSONParser.ValueContext value = parse(input).value();
+            if (value.obj() == null) {
+                return prepare(new Query(null, null, null, null, null, null, null, null));
+            }
+            return prepare(new Json2SqlVisitor().readQuery(value.obj()));
+        }
+        Stages stages = new Stages();
+        JSONParser.ValueContext value = stages.parse(input).value();
+        Query query = value.obj() != null
+                ? stages.read(value.obj())
+                : new Query(null, null, null, null, null, null, null, null);
+        stages.report(query);
+        return prepare(query);
+    }
+
+    /**
+     * Compiles an already structured query into a parameterized statement.
+     *
+     * @param query the query to translate
+     * @return the SQL template and its bind parameters
+     */
+    public SqlStatement prepare(Query query) {
+        if (listener == null) {
+            return compile(query);
+        }
+        long start = System.nanoTime();
+        SqlStatement statement = compile(query);
+        listener.onStage(TranslationListener.Stage.GENERATE, query, System.nanoTime() - start);
+        return statement;
+    }
+
+    private SqlStatement compile(Query query) {
+        if (statementCache == null) {
+            return sqlGenerator.prepare(query);
+        }
+        QueryShape shape = QueryShape.of(query);
+        String sql = statementCache.get(shape.key(), () -> sqlGenerator.prepare(query).sql());
+        return new SqlStatement(sql, shape.parameters());
+    }
+
+    /**
+     * Compiles a query into one or more parameterized statements. INSERTs with many rows are split into
+     * multi-row statements of at most {@code maxRows} rows and {@code maxParameters} bind parameters each,
+     * every other query yields a single statement.
+     *
+     * @param query         the query to translate
+     * @param maxRows       the maximum number of rows in one INSERT statement
+     * @param maxParameters the maximum number of bind parameters in one INSERT statement
+     * @return the statements to execute, in order
+     */
+    public List<SqlStatement> prepareBatch(Query query, int maxRows, int maxParameters) {
+        if (maxRows <= 0 || maxParameters <= 0) {
+            throw new IllegalArgumentException("Batch limits must be positive: " + maxRows + " rows, " + maxParameters + " parameters");
+        }
+        if (listener == null) {
+            return split(query, maxRows, maxParameters);
+        }
+        long start = System.nanoTime();
+        List<SqlStatement> statements = split(query, maxRows, maxParameters);
+        listener.onStage(TranslationListener.Stage.GENERATE, query, System.nanoTime() - start);
+        return statements;
+    }
+
+    private List<SqlStatement> split(Query query, int maxRows, int maxParameters) {
+        List<String> columns = query.columns();
+        if (!"INSERT".equalsIgnoreCase(query.queryType()) || query.values() == null || columns == null) {
+            return List.of(compile(query));
+        }
+
+        List<Map<String, Object>> rows = query.values().stream().filter(Objects::nonNull).toList();
+        List<SqlStatement> statements = new ArrayList<>();
+        int from = 0;
+        int parameters = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> row = rows.get(i);
+            // Null values are inlined, so they don't count against the parameter limit
+            int rowParameters = (int) columns.stream().filter(column -> row.get(column) != null).count();
+            if (i > from && (i - from == maxRows || parameters + rowParameters > maxParameters)) {
+                statements.add(compile(withRows(query, rows.subList(from, i))));
+                from = i;
+                parameters = 0;
+            }
+            parameters += rowParameters;
+        }
+        statements.add(compile(withRows(query, rows.subList(from, rows.size()))));
+        return statements;
+    }
 
-        ParseTree tree = parser.json();
+    private static Query withRows(Query query, List<Map<String, Object>> rows) {
+        return new Query(query.queryType(), query.table(), query.columns(), rows,
+                query.conditions(), query.orderBy(), query.groupBy(), query.limit(), query.after());
+    }
+
+    /**
+     * Translates a UTF-8 encoded JSON query into a parameterized statement with the single-pass
+     * {@link JsonQueryReader}, skipping ANTLR.
+     *
+     * @param input the JSON query bytes
+     * @return the SQL template and its bind parameters
+     */
+    public SqlStatement prepare(byte[] input) {
+        return prepare(read(input));
+    }
+
+    public SqlStatement prepare(ByteBuffer input) {
+        return prepare(read(input));
+    }
+
+    private Query read(byte[] input) {
+        if (listener == null) {
+            return JsonQueryReader.read(input);
+        }
+        long start = System.nanoTime();
+        Query query = JsonQueryReader.read(input);
+        listener.onStage(TranslationListener.Stage.READ, query, System.nanoTime() - start);
+        return query;
+    }
+
+    private Query read(ByteBuffer input) {
+        if (listener == null) {
+            return JsonQueryReader.read(input);
+        }
+        long start = System.nanoTime();
+        Query query = JsonQueryReader.read(input);
+        listener.onStage(TranslationListener.Stage.READ, query, System.nanoTime() - start);
+        return query;
+    }
+
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * Replays queries through every front end and the SQL generator, so the shared ANTLR DFA is populated and
+     * the hot paths are compiled before real traffic arrives, then fills the parser pool. The statement cache is
+     * left untouched.
+     *
+     * @param queries    representative JSON queries
+     * @param iterations how many times to replay them
+     */
+    public void warmUp(List<String> queries, int iterations) {
         Json2SqlVisitor visitor = new Json2SqlVisitor();
-        return visitor.visit(tree);
+        for (int i = 0; i < iterations; i++) {
+            for (String input : queries) {
+                JSONParser.ValueContext value = parse(input).value();
+                if (value.obj() != null) {
+                    sqlGenerator.generate(visitor.readQuery(value.obj()));
+                }
+                Query query = JsonQueryReader.read(input.getBytes(StandardCharsets.UTF_8));
+                sqlGenerator.prepare(query);
+                QueryShape.of(query);
+            }
+        }
+        // Replaying sequentially pools a single parser, the first concurrent requests shouldn't build the rest
+        for (int i = parsers.remainingCapacity(); i > 0; i--) {
+            parsers.offer(new AntlrParser());
+        }
+    }
+
+    private JSONParser.JsonContext parse(String input) {
+        AntlrParser parser = borrow();
+        try {
+            return parser.parse(input);
+        } finally {
+            parsers.offer(parser);
+        }
+    }
+
+    /**
+     * @return a pooled parser, or a new one when all of them are in use. It goes back to the pool once the input
+     * is parsed, the tree it returned doesn't depend on it anymore.
+     */
+    private AntlrParser borrow() {
+        AntlrParser parser = parsers.poll();
+        return parser != null ? parser : new AntlrParser();
     }
 
+    /**
+     * Durations of the ANTLR stages of one translation, reported once the query has been read.
+     */
+    private final class Stages {
+        private long lex;
+        private long parse;
+        private long read = -1;
+        private long generate = -1;
+
+        private JSONParser.JsonContext parse(String input) {
+            AntlrParser parser = borrow();
+            try {
+                long start = System.nanoTime();
+                parser.lex(input);
+                long lexed = System.nanoTime();
+                JSONParser.JsonContext tree = parser.parse();
+                lex = lexed - start;
+                parse = System.nanoTime() - lexed;
+                return tree;
+            } finally {
+                parsers.offer(parser);
+            }
+        }
 
+        private Query read(JSONParser.ObjContext obj) {
+            long start = System.nanoTime();
+            Query query = new Json2SqlVisitor().readQuery(obj);
+            read = System.nanoTime() - start;
+            return query;
+        }
+
+        private void generated(long start) {
+            generate = System.nanoTime() - start;
+        }
+
+        private void report(Query query) {
+            listener.onStage(TranslationListener.Stage.LEX, query, lex);
+            listener.onStage(TranslationListener.Stage.PARSE, query, parse);
+            if (read >= 0) listener.onStage(TranslationListener.Stage.READ, query, read);
+            if (generate >= 0) listener.onStage(TranslationListener.Stage.GENERATE, query, generate);
+        }
+    }
+
+    /**
+     * Lexer and parser pair reused through {@code setInputStream}, by one translation at a time.
+     */
+    private static final class AntlrParser {
+        private final JSONLexer lexer = new JSONLexer(null);
+        private final CommonTokenStream tokens = new CommonTokenStream(lexer);
+        private final JSONParser parser = new JSONParser(tokens);
+        private final BailErrorStrategy bailErrorStrategy = new BailErrorStrategy();
+        private final DefaultErrorStrategy defaultErrorStrategy = new DefaultErrorStrategy();
+
+        private JSONParser.JsonContext parse(String input) {
+            lex(input);
+            return parse();
+        }
+
+        private void lex(String input) {
+            lexer.setInputStream(CharStreams.fromString(input));
+            tokens.setTokenSource(lexer);
+            tokens.fill();
+        }
+
+        private JSONParser.JsonContext parse() {
+            parser.setTokenStream(tokens);
+
+            // SLL is enough for valid input, it can only fail on syntax errors
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.removeErrorListeners();
+            parser.setErrorHandler(bailErrorStrategy);
+            try {
+                return parser.json();
+            } catch (ParseCancellationException e) {
+                // Reparse with full LL and the default recovery, which also reports the errors
+                tokens.seek(0);
+                parser.reset();
+                parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+                parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+                parser.setErrorHandler(defaultErrorStrategy);
+                return parser.json();
+            }
+        }
+    }
 }
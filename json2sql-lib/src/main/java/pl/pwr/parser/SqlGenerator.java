@@ -0,0 +1,244 @@
+package pl.pwr.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import pl.pwr.query.Condition;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
+
+/**
+ * Compiles a {@link Query} into SQL text. Shared by every front end, so a query produces the same
+ * statement no matter whether it was read from JSON text or built directly.
+ * <p>
+ * Stateless and thread-safe.
+ */
+public class SqlGenerator {
+
+    /**
+     * Generates SQL with every literal inlined.
+     */
+    public String generate(Query query) {
+        return render(query, null);
+    }
+
+    /**
+     * Generates a SQL template with {@code ?} placeholders and collects the literals as bind parameters,
+     * so queries of the same shape always produce the same statement text.
+     */
+    public SqlStatement prepare(Query query) {
+        List<Object> parameters = new ArrayList<>();
+        String sql = render(query, parameters);
+        return new SqlStatement(sql, parameters);
+    }
+
+    /**
+     * @param parameters receives the bind values, or {@code null} to inline them
+     */
+    private String render(Query query, List<Object> parameters) {
+        StringBuilder sql = new StringBuilder();
+        String queryType = query.queryType() != null ? query.queryType().toUpperCase() : null;
+        String table = query.table();
+
+        if (queryType == null || table == null) {
+            return "Invalid query: missing required fields.";
+        }
+
+        List<String> columns = query.columns();
+
+        switch (queryType) {
+            case "SELECT" -> {
+                List<OrderBy> sortKeys = sortKeys(query.orderBy());
+                List<Object> after = query.after();
+                if (after != null && after.size() != sortKeys.size()) {
+                    sql.append("Invalid SELECT: after values do not match orderBy.");
+                } else {
+                    List<String> conditions = new ArrayList<>(conditions(query.conditions(), parameters));
+                    if (after != null && !after.isEmpty()) conditions.add(seek(sortKeys, after, parameters));
+                    List<String> orderBy = orderBy(sortKeys);
+                    sql.append("SELECT ")
+                            .append(columns != null && !columns.isEmpty() ? String.join(", ", columns) : "*")
+                            .append(" FROM ").append(table);
+                    if (!conditions.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", conditions));
+                    if (query.groupBy() != null && !query.groupBy().isEmpty()) sql.append(" GROUP BY ").append(String.join(", ", query.groupBy()));
+                    if (!orderBy.isEmpty()) sql.append(" ORDER BY ").append(String.join(", ", orderBy));
+                    if (query.limit() != null) sql.append(" LIMIT ").append(literal(query.limit(), parameters));
+                }
+            }
+            case "INSERT" -> {
+                List<String> rows = insertRows(query.values(), columns, parameters);
+                if (columns != null && !columns.isEmpty() && !rows.isEmpty()) {
+                    sql.append("INSERT INTO ").append(table)
+                            .append(" (").append(String.join(", ", columns)).append(")")
+                            .append(" VALUES ").append(String.join(", ", rows));
+                } else {
+                    sql.append("Invalid INSERT: columns or values are missing.");
+                }
+            }
+            case "UPDATE" -> {
+                List<String> values = assignments(query.values(), parameters);
+                if (!values.isEmpty()) {
+                    List<String> conditions = conditions(query.conditions(), parameters);
+                    sql.append("UPDATE ").append(table).append(" SET ")
+                            .append(String.join(", ", values));
+                    if (!conditions.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", conditions));
+                } else {
+                    sql.append("Invalid UPDATE: values are missing.");
+                }
+            }
+            case "DELETE" -> {
+                List<String> conditions = conditions(query.conditions(), parameters);
+                sql.append("DELETE FROM ").append(table);
+                if (!conditions.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", conditions));
+            }
+            default -> sql.append("Invalid query type: ").append(queryType);
+        }
+
+        return sql.toString();
+    }
+
+    private List<String> insertRows(List<Map<String, Object>> rows, List<String> columns, List<Object> parameters) {
+        if (rows == null || columns == null) {
+            return List.of();
+        }
+        return rows.stream()
+                .filter(Objects::nonNull)
+                .map(row -> columns.stream()
+                        .map(column -> literal(row.get(column), parameters))  // Missing columns become null
+                        .collect(Collectors.joining(", ", "(", ")")))
+                .collect(Collectors.toList());
+    }
+
+    private List<String> assignments(List<Map<String, Object>> rows, List<Object> parameters) {
+        if (rows == null) {
+            return List.of();
+        }
+        return rows.stream()
+                .filter(row -> row != null && !row.isEmpty())
+                .map(row -> {
+                    // Every assignment object contributes its first pair only
+                    Map.Entry<String, Object> pair = row.entrySet().iterator().next();
+                    return pair.getKey() + " = " + literal(pair.getValue(), parameters);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private List<String> conditions(List<Condition> conditions, List<Object> parameters) {
+        if (conditions == null) {
+            return List.of();
+        }
+        return conditions.stream()
+                .filter(Objects::nonNull)
+                .filter(condition -> condition.column() != null && condition.operator() != null)
+                // Condition values are always compared as quoted literals, so they are bound as strings too
+                .map(condition -> condition.column() + " " + condition.operator() + " "
+                        + literal(String.valueOf(condition.value()), parameters))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Seek predicate selecting the rows sorted after the given key values. A single sort direction compares
+     * row values, which an index on the sort keys can answer directly; mixed directions and keys with a nulls
+     * placement are expanded, so a null key value is compared with {@code IS NULL} instead of being lost.
+     */
+    private String seek(List<OrderBy> sortKeys, List<Object> after, List<Object> parameters) {
+        if (uniformDirection(sortKeys) && sortKeys.stream().allMatch(order -> order.nulls() == null)) {
+            String operator = descending(sortKeys.get(0)) ? " < " : " > ";
+            if (sortKeys.size() == 1) {
+                return sortKeys.get(0).column() + operator + literal(after.get(0), parameters);
+            }
+            return sortKeys.stream().map(OrderBy::column).collect(Collectors.joining(", ", "(", ")"))
+                    + operator
+                    + after.stream().map(value -> literal(value, parameters)).collect(Collectors.joining(", ", "(", ")"));
+        }
+
+        List<String> alternatives = new ArrayList<>();
+        for (int i = 0; i < sortKeys.size(); i++) {
+            if (afterNone(sortKeys.get(i), after.get(i))) {
+                continue;
+            }
+            List<String> terms = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                terms.add(sortKeys.get(j).column()
+                        + (after.get(j) == null && sortKeys.get(j).nulls() != null ? " IS NULL"
+                        : " = " + literal(after.get(j), parameters)));
+            }
+            terms.add(after(sortKeys.get(i), after.get(i), parameters));
+            alternatives.add(String.join(" AND ", terms));
+        }
+        if (alternatives.isEmpty()) {
+            return "FALSE";
+        }
+        return alternatives.stream().collect(Collectors.joining(" OR ", "(", ")"));
+    }
+
+    /**
+     * Predicate of the values of one sort key that come after the given one.
+     */
+    private String after(OrderBy order, Object value, List<Object> parameters) {
+        String operator = descending(order) ? " < " : " > ";
+        if (order.nulls() == null) {
+            return order.column() + operator + literal(value, parameters);
+        }
+        if (value == null) {
+            // Only reached with nulls first: every value follows the nulls
+            return order.column() + " IS NOT NULL";
+        }
+        String greater = order.column() + operator + literal(value, parameters);
+        return nullsLast(order) ? "(" + greater + " OR " + order.column() + " IS NULL)" : greater;
+    }
+
+    /**
+     * Whether no value of the sort key comes after the given one, a null sorted last.
+     */
+    static boolean afterNone(OrderBy order, Object value) {
+        return value == null && order.nulls() != null && nullsLast(order);
+    }
+
+    static boolean nullsLast(OrderBy order) {
+        return "LAST".equalsIgnoreCase(order.nulls());
+    }
+
+    /**
+     * The entries of {@code orderBy} that are rendered, in order.
+     */
+    static List<OrderBy> sortKeys(List<OrderBy> orderBy) {
+        if (orderBy == null) {
+            return List.of();
+        }
+        return orderBy.stream()
+                .filter(Objects::nonNull)
+                .filter(order -> order.column() != null && order.direction() != null)
+                .collect(Collectors.toList());
+    }
+
+    static boolean uniformDirection(List<OrderBy> sortKeys) {
+        return sortKeys.stream().map(SqlGenerator::descending).distinct().count() <= 1;
+    }
+
+    static boolean descending(OrderBy order) {
+        return "DESC".equalsIgnoreCase(order.direction());
+    }
+
+    private List<String> orderBy(List<OrderBy> sortKeys) {
+        return sortKeys.stream()
+                .map(order -> order.column() + " " + order.direction().toUpperCase()
+                        + (order.nulls() != null ? " NULLS " + order.nulls().toUpperCase() : ""))
+                .collect(Collectors.toList());
+    }
+
+    private String literal(Object value, List<Object> parameters) {
+        if (parameters != null && value != null) {
+            parameters.add(value);
+            return "?";
+        }
+        if (value instanceof String string) {
+            return "'" + string + "'";
+        }
+        return String.valueOf(value);
+    }
+}
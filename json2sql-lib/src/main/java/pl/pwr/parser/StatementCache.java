@@ -0,0 +1,113 @@
+package pl.pwr.parser;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, thread-safe map from {@link QueryShape#key() query shapes} to compiled SQL templates.
+ * <p>
+ * Eviction uses the CLOCK algorithm: every hit marks its entry as referenced, and when the cache grows over
+ * {@code maximumSize} entries are examined in insertion order, giving referenced ones a second chance.
+ * A hit therefore costs a hash lookup and a volatile write.
+ */
+public class StatementCache {
+    private final int maximumSize;
+    private final Map<List<Object>, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<List<Object>> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StatementCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns the template cached for the shape, compiling and caching it first if needed.
+     *
+     * @param key      the shape fingerprint
+     * @param compiler produces the SQL template on a miss
+     * @return the SQL template
+     */
+    public String get(List<Object> key, Supplier<String> compiler) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.referenced = true;
+            hits.increment();
+            return entry.sql;
+        }
+
+        misses.increment();
+        String sql = compiler.get();
+        if (entries.putIfAbsent(key, new Entry(sql)) == null) {
+            clock.offer(key);
+            if (size.incrementAndGet() > maximumSize) {
+                evict();
+            }
+        }
+        return sql;
+    }
+
+    private void evict() {
+        while (size.get() > maximumSize) {
+            List<Object> candidate = clock.poll();
+            if (candidate == null) {
+                return;
+            }
+            Entry entry = entries.get(candidate);
+            if (entry != null && entry.referenced) {
+                entry.referenced = false;
+                clock.offer(candidate);
+            } else if (entries.remove(candidate) != null) {
+                size.decrementAndGet();
+                evictions.increment();
+            }
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        clock.clear();
+        size.set(0);
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size.get());
+    }
+
+    public record Stats(
+            long hitCount,
+            long missCount,
+            long evictionCount,
+            int size
+    ) {
+        public double hitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1.0 : (double) hitCount / requests;
+        }
+    }
+
+    private static final class Entry {
+        private final String sql;
+        private volatile boolean referenced;
+
+        private Entry(String sql) {
+            this.sql = sql;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package pl.pwr.parser;
+
+import pl.pwr.query.Query;
+
+/**
+ * Receives the time spent in every stage of a translation by a {@link QueryTranslator}.
+ * <p>
+ * Called on the translating thread once the query is known, so implementations must be thread-safe and cheap.
+ */
+@FunctionalInterface
+public interface TranslationListener {
+
+    enum Stage {
+        /** Tokenizing JSON text with the ANTLR lexer */
+        LEX,
+        /** Building the ANTLR parse tree */
+        PARSE,
+        /** Reading the parse tree or the raw bytes into a {@link Query} */
+        READ,
+        /** Generating SQL from the query, including statement cache lookups */
+        GENERATE
+    }
+
+    /**
+     * @param stage the finished stage
+     * @param query the translated query, or {@code null} if the input was not a JSON object
+     * @param nanos the time spent in the stage
+     */
+    void onStage(Stage stage, Query query, long nanos);
+}
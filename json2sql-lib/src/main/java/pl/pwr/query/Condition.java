@@ -0,0 +1,8 @@
+package pl.pwr.query;
+
+public record Condition(
+        String column,
+        String operator,  // =, !=, >, <, LIKE, IN
+        Object value
+) {
+}
@@ -0,0 +1,11 @@
+package pl.pwr.query;
+
+public record OrderBy(
+        String column,
+        String direction,  // ASC, DESC
+        String nulls       // FIRST, LAST, or null for a column without nulls sorted in the database default order
+) {
+    public OrderBy(String column, String direction) {
+        this(column, direction, null);
+    }
+}
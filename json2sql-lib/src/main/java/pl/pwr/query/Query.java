@@ -0,0 +1,35 @@
+package pl.pwr.query;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed representation of a JSON query request.
+ * <p>
+ * Literal values are kept as plain Java objects: {@link String}, {@link Number}, {@link Boolean} or {@code null}.
+ * For INSERT every entry of {@code values} is a row keyed by column name, for UPDATE every entry holds
+ * a single {@code column -> value} assignment.
+ * <p>
+ * {@code after} holds the sort key values of the last row of the previous page, one per {@code orderBy} entry.
+ * A SELECT then only returns the rows sorted after them (keyset pagination).
+ */
+public record Query(
+        String queryType,
+        String table,
+        List<String> columns,
+        List<Map<String, Object>> values,
+        List<Condition> conditions,
+        List<OrderBy> orderBy,
+        List<String> groupBy,
+        Integer limit,
+        List<Object> after
+) {
+    public Query(String queryType, String table, List<String> columns, List<Map<String, Object>> values,
+                 List<Condition> conditions, List<OrderBy> orderBy, List<String> groupBy, Integer limit) {
+        this(queryType, table, columns, values, conditions, orderBy, groupBy, limit, null);
+    }
+
+    public Query withAfter(List<Object> after) {
+        return new Query(queryType, table, columns, values, conditions, orderBy, groupBy, limit, after);
+    }
+}
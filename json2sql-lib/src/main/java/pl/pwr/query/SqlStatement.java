@@ -0,0 +1,21 @@
+package pl.pwr.query;
+
+import java.util.List;
+
+/**
+ * A SQL template with {@code ?} placeholders and the values to bind to them, in placeholder order.
+ * <p>
+ * Parameters keep the Java type of their source literal ({@link String}, {@link Long}, {@link java.math.BigDecimal},
+ * {@link Integer}, {@link Boolean}). {@code null} literals are rendered inline and never bound.
+ */
+public record SqlStatement(
+        String sql,
+        List<Object> parameters
+) {
+    /**
+     * Whether the statement only reads, so it can run in a read-only transaction or on a replica.
+     */
+    public boolean readOnly() {
+        return sql.startsWith("SELECT ");
+    }
+}
@@ -0,0 +1,76 @@
+package pl.pwr.parser;
+
+import org.junit.jupiter.api.Test;
+import pl.pwr.query.SqlStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkTranslatorTest {
+
+    private static final String SELECT = """
+            {"queryType": "SELECT", "table": "user_entity", "columns": ["id", "email"],
+             "conditions": [{"column": "id", "operator": ">", "value": %d}], "limit": 5}
+            """;
+
+    @Test
+    void shouldTranslateInInputOrder() {
+        List<String> inputs = IntStream.range(0, 1000).mapToObj(SELECT::formatted).toList();
+
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            List<BulkTranslator.Result<String>> results = new BulkTranslator(new QueryTranslator(), pool, 64)
+                    .translate(inputs);
+
+            assertThat(results).hasSize(1000).allSatisfy(result -> assertThat(result.successful()).isTrue());
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).index()).isEqualTo(i);
+                assertThat(results.get(i).result())
+                        .isEqualTo("SELECT id, email FROM user_entity WHERE id > '" + i + "' LIMIT 5");
+            }
+        }
+    }
+
+    @Test
+    void shouldReportFailuresWithoutAbortingTheBatch() {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            inputs.add(SELECT.formatted(i));
+        }
+        inputs.set(10, "{\"queryType\": \"MERGE\", \"table\": \"user_entity\"}");
+        inputs.set(20, null);
+        inputs.set(30, "[1, 2]");
+
+        List<BulkTranslator.Result<SqlStatement>> results = new BulkTranslator(new QueryTranslator()).prepare(inputs);
+
+        assertThat(results).hasSize(100);
+        assertThat(results).filteredOn(result -> !result.successful())
+                .extracting(BulkTranslator.Result::index).containsExactly(10L, 20L, 30L);
+        assertThat(results.get(10).error()).startsWith("Invalid");
+        assertThat(results.get(10).result()).isNull();
+        assertThat(results.get(20).error()).isEqualTo("Missing query");
+        assertThat(results.get(30).error()).isNotBlank();
+        assertThat(results.get(99).result())
+                .isEqualTo(new SqlStatement("SELECT id, email FROM user_entity WHERE id > ? LIMIT ?", List.of("99", 5)));
+    }
+
+    @Test
+    void shouldTranslateStreamsInBatches() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<String> inputs = IntStream.range(0, 250).mapToObj(SELECT::formatted).onClose(() -> closed.set(true));
+
+        try (ForkJoinPool pool = new ForkJoinPool(2);
+             Stream<BulkTranslator.Result<String>> results = new BulkTranslator(new QueryTranslator(), pool, 100)
+                     .translate(inputs)) {
+            assertThat(results.map(BulkTranslator.Result::index).toList())
+                    .isEqualTo(LongStream.range(0, 250).boxed().toList());
+        }
+        assertThat(closed).isTrue();
+    }
+}
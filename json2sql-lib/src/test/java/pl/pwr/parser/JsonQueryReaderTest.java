@@ -0,0 +1,186 @@
+package pl.pwr.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Differential tests: the byte reader must translate every query exactly like the ANTLR front end.
+ */
+class JsonQueryReaderTest {
+
+    private final QueryTranslator translator = new QueryTranslator();
+
+    static Stream<String> queries() {
+        return Stream.of(
+                """
+                {
+                  "queryType": "SELECT",
+                  "table": "user_entity",
+                  "columns": ["id", "first_name"],
+                  "orderBy": null
+                }
+                """,
+                """
+                {"queryType":"select","table":"user_entity","columns":["id","first_name","last_name","email"],
+                 "conditions":[{"column":"id","operator":"=","value":42},
+                               {"column":"email","operator":"LIKE","value":"%spam.com"},
+                               {"column":"last_name","operator":"!=","value":null},
+                               {"operator":"=","value":1},
+                               "ignored"],
+                 "groupBy":["id", 7],
+                 "orderBy":[{"column":"id","direction":"desc"},{"column":"email"},{"direction":"ASC","column":"first_name"}],
+                 "limit":10}
+                """,
+                """
+                {
+                  "queryType": "INSERT",
+                  "table": "user_entity",
+                  "columns": ["first_name", "last_name", "email", "age", "score", "active"],
+                  "values": [
+                    {
+                      "first_name": "Zo\\u00eb \\"Al\\" \\\\ O'Neil\\n",
+                      "last_name": "Łukasiewicz",
+                      "age": -17,
+                      "score": 1.25e+3,
+                      "active": true
+                    },
+                    {"first_name": "Ignored"}
+                  ]
+                }
+                """,
+                """
+                {"queryType": "UPDATE", "table": "user_entity",
+                 "values": [{"last_name": "Johnson", "email": "ignored"}, {}, {"age": 12345678901234567890}, 3],
+                 "conditions": [{"column": "id", "operator": "=", "value": "7"}]}
+                """,
+                """
+                {"queryType":"UPDATE","table":"user_entity","values":[],"conditions":[{"column":"id","operator":"=","value":1}]}
+                """,
+                """
+                {"queryType": "DELETE", "table": "user_entity",
+                 "conditions": [{"column": "email", "operator": "IN", "value": [ "a" , { "b" : [1, true] } ]}]}
+                """,
+                """
+                {"queryType": "DELETE", "table": "user_entity", "columns": null, "values": null, "conditions": null,
+                 "orderBy": null, "groupBy": null, "limit": null, "extra": {"nested": [1, 2.5, false]}}
+                """,
+                """
+                {"queryType": "SELECT", "table": "user_entity", "columns": [{"queryType": "SELECT", "table": "t"}, ["a", "b"]]}
+                """,
+                """
+                {"queryType": "SELECT", "table": "user_entity", "columns": ["id", "last_name"],
+                 "conditions": [{"column": "email", "operator": "LIKE", "value": "%@example.com"}],
+                 "orderBy": [{"column": "last_name", "direction": "DESC"}, {"column": "id", "direction": "ASC"}],
+                 "after": ["Smith", 42], "limit": 20}
+                """,
+                """
+                {"queryType": "SELECT", "table": "user_entity", "orderBy": [{"column": "id", "direction": "asc"}],
+                 "after": [null]}
+                """,
+                """
+                {"queryType": "SELECT", "table": "user_entity", "orderBy": [{"column": "id", "direction": "ASC"}],
+                 "after": [1, 2]}
+                """,
+                """
+                {"queryType": "TRUNCATE", "table": "user_entity"}
+                """,
+                """
+                {"table": "user_entity"}
+                """,
+                "{}"
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("queries")
+    void shouldTranslateLikeAntlrFrontEnd(String query) {
+        byte[] bytes = query.getBytes(StandardCharsets.UTF_8);
+
+        assertThat(translator.translate(bytes)).isEqualTo(translator.translate(query));
+        assertThat(translator.prepare(bytes)).isEqualTo(translator.prepare(query));
+    }
+
+    @ParameterizedTest
+    @MethodSource("queries")
+    void shouldReadDirectAndSlicedBuffers(String query) {
+        byte[] bytes = query.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        byte[] padded = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, padded, 2, bytes.length);
+        ByteBuffer sliced = ByteBuffer.wrap(padded, 2, bytes.length).slice();
+
+        assertThat(translator.prepare(direct)).isEqualTo(translator.prepare(query));
+        assertThat(translator.prepare(sliced)).isEqualTo(translator.prepare(query));
+        assertThat(direct.position()).isZero();
+    }
+
+    @Test
+    void shouldReadRequestExample() {
+        String query = """
+                {
+                  "queryType": "SELECT",
+                  "table": "users",
+                  "columns": ["id", "email", "first_name", "last_name"],
+                  "conditions": [
+                    { "column": "email", "operator": "LIKE", "value": "%gmail.com%" }
+                  ],
+                  "orderBy": [
+                    { "column": "id", "direction": "ASC" }
+                  ],
+                  "limit": 10
+                }
+                """;
+
+        assertThat(translator.translate(query.getBytes(StandardCharsets.UTF_8)))
+                .isEqualTo("SELECT id, email, first_name, last_name FROM users WHERE email LIKE '%gmail.com%' ORDER BY id ASC LIMIT 10");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "{",
+            "{\"queryType\": \"SELECT\",}",
+            "{\"queryType\" \"SELECT\"}",
+            "{\"table\": \"a\nb\"}",
+            "{\"table\": \"\\x\"}",
+            "{\"limit\": 01}",
+            "{\"limit\": 1.}",
+            "{\"limit\": tru}",
+            "[1, 2,]",
+            "{} {}"
+    })
+    void shouldRejectMalformedInput(String query) {
+        assertThatThrownBy(() -> JsonQueryReader.read(query.getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldReadLimitGivenAsNumericString() {
+        String query = "{\"queryType\": \"SELECT\", \"table\": \"users\", \"limit\": \"10\"}";
+
+        assertThat(JsonQueryReader.read(query.getBytes(StandardCharsets.UTF_8)).limit()).isEqualTo(10);
+        assertThat(translator.translate(query)).isEqualTo("SELECT * FROM users LIMIT 10");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2147483648", "-1", "1.5", "\"ten\"", "\"\"", "true"})
+    void shouldRejectInvalidLimitInBothFrontEnds(String limit) {
+        String query = "{\"queryType\": \"SELECT\", \"table\": \"users\", \"limit\": " + limit + "}";
+
+        assertThatThrownBy(() -> JsonQueryReader.read(query.getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid limit: ");
+        assertThatThrownBy(() -> translator.translate(query))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid limit: ");
+    }
+}
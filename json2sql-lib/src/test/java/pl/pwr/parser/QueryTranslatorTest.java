@@ -0,0 +1,186 @@
+package pl.pwr.parser;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+import pl.pwr.antlr.JSONLexer;
+import pl.pwr.antlr.JSONParser;
+import pl.pwr.query.Condition;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryTranslatorTest {
+
+    private static final String SELECT = """
+            {"queryType": "SELECT", "table": "user_entity", "columns": ["id", "email"],
+             "conditions": [{"column": "id", "operator": ">", "value": %d}], "limit": 5}
+            """;
+
+    @Test
+    void shouldTranslateConcurrentlyWithSharedInstance() throws Exception {
+        QueryTranslator translator = new QueryTranslator(new StatementCache(8));
+        translator.warmUp(List.of(SELECT.formatted(0)), 10);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<String>> results = IntStream.range(0, 200)
+                    .mapToObj(i -> executor.submit(() -> translator.translate(SELECT.formatted(i))))
+                    .toList();
+
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).get())
+                        .isEqualTo("SELECT id, email FROM user_entity WHERE id > '" + i + "' LIMIT 5");
+            }
+        }
+        assertThat(translator.getStatementCache().stats().size()).isZero();
+    }
+
+    @Test
+    void shouldTranslateConcurrentlyOnVirtualThreads() throws Exception {
+        // Timed translations borrow their parser separately, so both paths run
+        QueryTranslator timed = new QueryTranslator(null, (stage, query, nanos) -> {
+        });
+        QueryTranslator untimed = new QueryTranslator();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = IntStream.range(0, 200)
+                    .mapToObj(i -> executor.submit(() -> (i % 2 == 0 ? timed : untimed).translate(SELECT.formatted(i))))
+                    .toList();
+
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).get())
+                        .isEqualTo("SELECT id, email FROM user_entity WHERE id > '" + i + "' LIMIT 5");
+            }
+        }
+    }
+
+    @Test
+    void shouldRecoverFromSyntaxErrorsAndReuseParser() {
+        QueryTranslator translator = new QueryTranslator();
+
+        // Missing comma: SLL bails out and the LL fallback recovers like a plain parser does
+        String malformed = "{\"queryType\": \"DELETE\" \"table\": \"user_entity\"}";
+        assertThat(translator.translate(malformed)).isEqualTo(translateWithPlainParser(malformed));
+        assertThat(translator.translate(SELECT.formatted(1)))
+                .isEqualTo("SELECT id, email FROM user_entity WHERE id > '1' LIMIT 5");
+    }
+
+    @Test
+    void shouldSplitInsertRowsIntoChunks() {
+        QueryTranslator translator = new QueryTranslator(new StatementCache(8));
+        List<Map<String, Object>> rows = IntStream.range(0, 5)
+                .mapToObj(i -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("first_name", "User" + i);
+                    row.put("email", i == 3 ? null : "user" + i + "@example.com");
+                    return row;
+                })
+                .toList();
+        Query query = new Query("INSERT", "user_entity", List.of("first_name", "email"), rows, null, null, null, null);
+
+        List<SqlStatement> byRows = translator.prepareBatch(query, 2, 100);
+        assertThat(byRows).extracting(SqlStatement::sql).containsExactly(
+                "INSERT INTO user_entity (first_name, email) VALUES (?, ?), (?, ?)",
+                "INSERT INTO user_entity (first_name, email) VALUES (?, ?), (?, null)",
+                "INSERT INTO user_entity (first_name, email) VALUES (?, ?)");
+        assertThat(byRows).flatExtracting(SqlStatement::parameters).hasSize(9).startsWith("User0", "user0@example.com");
+
+        List<SqlStatement> byParameters = translator.prepareBatch(query, 100, 5);
+        assertThat(byParameters).extracting(statement -> statement.parameters().size()).containsExactly(4, 5);
+
+        assertThat(translator.prepareBatch(query, 100, 100)).singleElement()
+                .extracting(SqlStatement::parameters).asList().hasSize(9);
+    }
+
+    @Test
+    void shouldSeekPastPreviousPage() {
+        QueryTranslator translator = new QueryTranslator(new StatementCache(8));
+        List<OrderBy> ascending = List.of(new OrderBy("last_name", "ASC"), new OrderBy("id", "ASC"));
+        List<OrderBy> mixed = List.of(new OrderBy("last_name", "DESC"), new OrderBy("id", "ASC"));
+        List<Condition> conditions = List.of(new Condition("email", "LIKE", "%@example.com"));
+        Query firstPage = new Query("SELECT", "user_entity", List.of("id", "last_name"), null, conditions, ascending, null, 10);
+
+        SqlStatement nextPage = translator.prepare(firstPage.withAfter(List.of("Smith", 42L)));
+        assertThat(nextPage.sql()).isEqualTo("SELECT id, last_name FROM user_entity WHERE email LIKE ? "
+                + "AND (last_name, id) > (?, ?) ORDER BY last_name ASC, id ASC LIMIT ?");
+        assertThat(nextPage.parameters()).containsExactly("%@example.com", "Smith", 42L, 10);
+
+        SqlStatement mixedPage = translator.prepare(new Query("SELECT", "user_entity", null, null, null, mixed, null, 10)
+                .withAfter(List.of("Smith", 42L)));
+        assertThat(mixedPage.sql()).isEqualTo("SELECT * FROM user_entity "
+                + "WHERE (last_name < ? OR last_name = ? AND id > ?) ORDER BY last_name DESC, id ASC LIMIT ?");
+        assertThat(mixedPage.parameters()).containsExactly("Smith", "Smith", 42L, 10);
+
+        // Cached templates must bind the values of the current page
+        assertThat(translator.prepare(firstPage.withAfter(List.of("Jones", 7L))).parameters())
+                .containsExactly("%@example.com", "Jones", 7L, 10);
+        assertThat(translator.getStatementCache().stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSeekPastNullSortValues() {
+        QueryTranslator translator = new QueryTranslator(new StatementCache(8));
+        List<OrderBy> nullsLast = List.of(new OrderBy("last_name", "ASC", "LAST"), new OrderBy("id", "ASC"));
+        List<OrderBy> nullsFirst = List.of(new OrderBy("last_name", "DESC", "FIRST"), new OrderBy("id", "DESC"));
+        Query ascending = new Query("SELECT", "user_entity", null, null, null, nullsLast, null, 10);
+        Query descending = new Query("SELECT", "user_entity", null, null, null, nullsFirst, null, 10);
+
+        SqlStatement beforeNulls = translator.prepare(ascending.withAfter(List.of("Smith", 42L)));
+        assertThat(beforeNulls.sql()).isEqualTo("SELECT * FROM user_entity "
+                + "WHERE ((last_name > ? OR last_name IS NULL) OR last_name = ? AND id > ?) "
+                + "ORDER BY last_name ASC NULLS LAST, id ASC LIMIT ?");
+        assertThat(beforeNulls.parameters()).containsExactly("Smith", "Smith", 42L, 10);
+
+        // Past a null sorted last only the remaining nulls are left
+        SqlStatement amongNulls = translator.prepare(ascending.withAfter(Arrays.asList(null, 42L)));
+        assertThat(amongNulls.sql()).isEqualTo("SELECT * FROM user_entity WHERE (last_name IS NULL AND id > ?) "
+                + "ORDER BY last_name ASC NULLS LAST, id ASC LIMIT ?");
+        assertThat(amongNulls.parameters()).containsExactly(42L, 10);
+
+        SqlStatement afterNulls = translator.prepare(descending.withAfter(Arrays.asList(null, 42L)));
+        assertThat(afterNulls.sql()).isEqualTo("SELECT * FROM user_entity "
+                + "WHERE (last_name IS NOT NULL OR last_name IS NULL AND id < ?) "
+                + "ORDER BY last_name DESC NULLS FIRST, id DESC LIMIT ?");
+        assertThat(afterNulls.parameters()).containsExactly(42L, 10);
+
+        // A null and a non-null cursor value have different templates
+        assertThat(translator.prepare(ascending.withAfter(List.of("Jones", 7L))).parameters())
+                .containsExactly("Jones", "Jones", 7L, 10);
+        assertThat(translator.prepare(ascending.withAfter(Arrays.asList(null, 7L))).sql()).isEqualTo(amongNulls.sql());
+    }
+
+    @Test
+    void shouldReportEveryTranslationStage() {
+        List<String> stages = new ArrayList<>();
+        QueryTranslator translator = new QueryTranslator(new StatementCache(8),
+                (stage, query, nanos) -> stages.add(stage + " " + query.table() + (nanos >= 0 ? "" : " negative")));
+
+        String sql = translator.translate(SELECT.formatted(3));
+        assertThat(sql).isEqualTo(translateWithPlainParser(SELECT.formatted(3)));
+        assertThat(stages).containsExactly("LEX user_entity", "PARSE user_entity", "READ user_entity", "GENERATE user_entity");
+
+        stages.clear();
+        translator.prepare(SELECT.formatted(3).getBytes(StandardCharsets.UTF_8));
+        Query insert = new Query("INSERT", "audit", List.of("id"), List.of(Map.of("id", 1), Map.of("id", 2)), null, null, null, null);
+        assertThat(translator.prepareBatch(insert, 1, 10)).hasSize(2);
+        assertThat(stages).containsExactly("READ user_entity", "GENERATE user_entity", "GENERATE audit");
+    }
+
+    private static String translateWithPlainParser(String input) {
+        JSONParser parser = new JSONParser(new CommonTokenStream(new JSONLexer(CharStreams.fromString(input))));
+        return new Json2SqlVisitor().visit(parser.json());
+    }
+}
@@ -0,0 +1,126 @@
+package pl.pwr.parser;
+
+import org.junit.jupiter.api.Test;
+import pl.pwr.query.Condition;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlGeneratorTest {
+
+    private final SqlGenerator generator = new SqlGenerator();
+
+    private static Map<String, Object> row(Object... pairs) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            row.put((String) pairs[i], pairs[i + 1]);
+        }
+        return row;
+    }
+
+    @Test
+    void shouldGenerateSelect() {
+        Query query = new Query("select", "user_entity", List.of("id", "email"), null,
+                List.of(new Condition("email", "LIKE", "a%"), new Condition("id", ">", 10)),
+                List.of(new OrderBy("email", "desc")), null, 5);
+
+        assertThat(generator.generate(query))
+                .isEqualTo("SELECT id, email FROM user_entity WHERE email LIKE 'a%' AND id > '10' ORDER BY email DESC LIMIT 5");
+        assertThat(generator.generate(new Query("SELECT", "user_entity", null, null, null, null, List.of("email"), null)))
+                .isEqualTo("SELECT * FROM user_entity GROUP BY email");
+    }
+
+    @Test
+    void shouldGenerateInsertWithMissingColumnsAsNull() {
+        Query query = new Query("INSERT", "user_entity", List.of("first_name", "age"),
+                List.of(row("first_name", "Ann", "age", 30), row("first_name", "Bob")), null, null, null, null);
+
+        assertThat(generator.generate(query))
+                .isEqualTo("INSERT INTO user_entity (first_name, age) VALUES ('Ann', 30), ('Bob', null)");
+        assertThat(generator.generate(new Query("INSERT", "user_entity", List.of("first_name"), null, null, null, null, null)))
+                .isEqualTo("Invalid INSERT: columns or values are missing.");
+    }
+
+    @Test
+    void shouldGenerateUpdate() {
+        Query query = new Query("UPDATE", "user_entity", null, List.of(row("first_name", "Ann"), row("age", 31)),
+                List.of(new Condition("id", "=", 1)), null, null, null);
+
+        assertThat(generator.generate(query))
+                .isEqualTo("UPDATE user_entity SET first_name = 'Ann', age = 31 WHERE id = '1'");
+        assertThat(generator.generate(new Query("UPDATE", "user_entity", null, List.of(), null, null, null, null)))
+                .isEqualTo("Invalid UPDATE: values are missing.");
+    }
+
+    @Test
+    void shouldGenerateDelete() {
+        assertThat(generator.generate(new Query("DELETE", "user_entity", null, null,
+                List.of(new Condition("id", "!=", 2)), null, null, null)))
+                .isEqualTo("DELETE FROM user_entity WHERE id != '2'");
+        assertThat(generator.generate(new Query("DELETE", "user_entity", null, null, null, null, null, null)))
+                .isEqualTo("DELETE FROM user_entity");
+    }
+
+    @Test
+    void shouldGenerateSameSqlForJsonTextAndTypedQuery() {
+        String json = """
+                {"queryType": "SELECT", "table": "user_entity", "columns": ["id"],
+                 "conditions": [{"column": "id", "operator": "<", "value": 7}],
+                 "orderBy": [{"column": "id", "direction": "ASC"}], "limit": 3}
+                """;
+        Query query = new Query("SELECT", "user_entity", List.of("id"), null, List.of(new Condition("id", "<", 7)),
+                List.of(new OrderBy("id", "ASC")), null, 3);
+
+        assertThat(new QueryTranslator().translate(json)).isEqualTo(generator.generate(query));
+    }
+
+    @Test
+    void shouldBindSelectValuesInOrderWithLimitAsPlaceholder() {
+        Query query = new Query("SELECT", "user_entity", List.of("id"), null,
+                List.of(new Condition("email", "LIKE", "a%"), new Condition("id", ">", 10)),
+                List.of(new OrderBy("id", "ASC")), null, 5);
+
+        SqlStatement statement = generator.prepare(query);
+
+        assertThat(statement.sql()).isEqualTo("SELECT id FROM user_entity WHERE email LIKE ? AND id > ? ORDER BY id ASC LIMIT ?");
+        // Condition values are bound as strings, the limit as a number
+        assertThat(statement.parameters()).containsExactly("a%", "10", 5);
+        assertThat(generator.prepare(new Query("SELECT", "user_entity", List.of("id"), null,
+                List.of(new Condition("email", "LIKE", "b%"), new Condition("id", ">", 20)),
+                List.of(new OrderBy("id", "ASC")), null, 50)).sql())
+                .isEqualTo(statement.sql());
+    }
+
+    @Test
+    void shouldBindInsertValuesRowByRowAndKeepNullsInline() {
+        Query query = new Query("INSERT", "user_entity", List.of("first_name", "age"),
+                List.of(row("first_name", "Ann", "age", 30), row("first_name", "Bob", "age", null)), null, null, null, null);
+
+        SqlStatement statement = generator.prepare(query);
+
+        assertThat(statement.sql()).isEqualTo("INSERT INTO user_entity (first_name, age) VALUES (?, ?), (?, null)");
+        assertThat(statement.parameters()).containsExactly("Ann", 30, "Bob");
+    }
+
+    @Test
+    void shouldBindAssignmentsBeforeConditions() {
+        Query update = new Query("UPDATE", "user_entity", null, List.of(row("first_name", "Ann"), row("age", 31)),
+                List.of(new Condition("id", "=", 1)), null, null, null);
+        Query delete = new Query("DELETE", "user_entity", null, null,
+                List.of(new Condition("id", ">", 1), new Condition("email", "=", "a@x.com")), null, null, null);
+
+        SqlStatement updated = generator.prepare(update);
+        SqlStatement deleted = generator.prepare(delete);
+
+        assertThat(updated.sql()).isEqualTo("UPDATE user_entity SET first_name = ?, age = ? WHERE id = ?");
+        assertThat(updated.parameters()).containsExactly("Ann", 31, "1");
+        assertThat(deleted.sql()).isEqualTo("DELETE FROM user_entity WHERE id > ? AND email = ?");
+        assertThat(deleted.parameters()).containsExactly("1", "a@x.com");
+    }
+}
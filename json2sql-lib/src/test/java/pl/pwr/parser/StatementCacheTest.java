@@ -0,0 +1,82 @@
+package pl.pwr.parser;
+
+import org.junit.jupiter.api.Test;
+import pl.pwr.query.SqlStatement;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementCacheTest {
+
+    private static final List<String> QUERIES = List.of(
+            """
+            {"queryType": "SELECT", "table": "user_entity", "columns": ["id", "first_name"],
+             "conditions": [{"column": "id", "operator": "=", "value": 5},
+                            {"column": "email", "operator": "LIKE", "value": null}],
+             "groupBy": ["id"], "orderBy": [{"column": "id", "direction": "desc"}], "limit": 10}
+            """,
+            """
+            {"queryType": "INSERT", "table": "user_entity", "columns": ["first_name", "last_name", "email"],
+             "values": [{"first_name": "Alice", "email": "alice@example.com"}]}
+            """,
+            """
+            {"queryType": "UPDATE", "table": "user_entity", "values": [{"last_name": "Johnson"}, {"email": null}],
+             "conditions": [{"column": "id", "operator": "=", "value": 7}]}
+            """,
+            """
+            {"queryType": "UPDATE", "table": "user_entity", "conditions": [{"column": "id", "operator": "=", "value": 7}]}
+            """,
+            """
+            {"queryType": "DELETE", "table": "user_entity", "conditions": [{"column": "last_name", "operator": "LIKE", "value": "Taylor"}]}
+            """,
+            """
+            {"queryType": "MERGE", "table": "user_entity"}
+            """
+    );
+
+    @Test
+    void shouldPrepareSameStatementsAsUncachedTranslator() {
+        QueryTranslator uncached = new QueryTranslator();
+        QueryTranslator cached = new QueryTranslator(new StatementCache(16));
+
+        for (int round = 0; round < 2; round++) {
+            for (String query : QUERIES) {
+                assertThat(cached.prepare(query)).isEqualTo(uncached.prepare(query));
+            }
+        }
+
+        StatementCache.Stats stats = cached.getStatementCache().stats();
+        assertThat(stats.missCount()).isEqualTo(QUERIES.size());
+        assertThat(stats.hitCount()).isEqualTo(QUERIES.size());
+    }
+
+    @Test
+    void shouldShareTemplateBetweenQueriesDifferingOnlyInLiterals() {
+        QueryTranslator translator = new QueryTranslator(new StatementCache(16));
+
+        SqlStatement first = translator.prepare("""
+                {"queryType": "SELECT", "table": "user_entity", "conditions": [{"column": "id", "operator": "=", "value": 1}]}
+                """);
+        SqlStatement second = translator.prepare("""
+                {"queryType": "SELECT", "table": "user_entity", "conditions": [{"column": "id", "operator": "=", "value": 2}]}
+                """);
+
+        assertThat(second.sql()).isSameAs(first.sql());
+        assertThat(second.parameters()).containsExactly("2");
+        assertThat(translator.getStatementCache().stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictWhenFull() {
+        StatementCache cache = new StatementCache(2);
+
+        for (int i = 0; i < 5; i++) {
+            String sql = "SELECT " + i;
+            assertThat(cache.get(List.of(i), () -> sql)).isEqualTo(sql);
+        }
+
+        assertThat(cache.stats().size()).isEqualTo(2);
+        assertThat(cache.stats().evictionCount()).isEqualTo(3);
+    }
+}
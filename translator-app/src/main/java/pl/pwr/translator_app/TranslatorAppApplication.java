@@ -2,9 +2,11 @@ package pl.pwr.translator_app;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import pl.pwr.parser.QueryTranslator;
 
-@SpringBootApplication
+// The R2DBC pool is configured by ReactiveConfiguration from the datasource settings
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class TranslatorAppApplication {
 
 	public static void main(String[] args) {
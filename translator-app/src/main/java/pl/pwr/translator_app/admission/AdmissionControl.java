@@ -0,0 +1,124 @@
+package pl.pwr.translator_app.admission;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Admits query execution to the databases through one {@link Bulkhead} per datasource: reads go to the replica
+ * bulkhead when replicas are configured, everything else to the primary one.
+ * <p>
+ * Clients are told apart by a request header. Work started while the thread already holds a permit, like the
+ * queries of a batch, runs under that permit.
+ */
+public class AdmissionControl {
+    public static final AdmissionControl DISABLED = new AdmissionControl(null, null, Duration.ZERO, null);
+
+    private static final String ANONYMOUS = "anonymous";
+
+    private final Bulkhead primary;
+    private final Bulkhead replica;
+    private final long maxWaitNanos;
+    private final String clientHeader;
+    private final ThreadLocal<Bulkhead> held = new ThreadLocal<>();
+
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /**
+     * @param primary      bulkhead of the primary datasource, or {@code null} to admit everything
+     * @param replica      bulkhead of the read replicas, or {@code null} if reads use the primary
+     * @param maxWait      how long a query may wait for a permit
+     * @param clientHeader request header carrying the client key
+     */
+    public AdmissionControl(Bulkhead primary, Bulkhead replica, Duration maxWait, String clientHeader) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.clientHeader = clientHeader;
+    }
+
+    /**
+     * Run the work once a permit of the matching datasource is available.
+     *
+     * @param readOnly whether the work only reads and may use a replica
+     * @throws AdmissionRejectedException if the work was shed
+     */
+    public <T, E extends Exception> T execute(boolean readOnly, Work<T, E> work) throws E {
+        if (primary == null || held.get() != null) {
+            return work.run();
+        }
+
+        Bulkhead bulkhead = readOnly && replica != null ? replica : primary;
+        acquire(bulkhead, maxWaitNanos);
+        held.set(bulkhead);
+        try {
+            return work.run();
+        } finally {
+            held.remove();
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Run the work once a permit of the given bulkhead is available. Meant for bulkheads limiting a class of
+     * queries rather than a datasource, the work still takes its datasource permit itself.
+     *
+     * @param maxWait how long the work may wait for the permit
+     * @throws AdmissionRejectedException if the work was shed
+     */
+    public <T, E extends Exception> T execute(Bulkhead bulkhead, Duration maxWait, Work<T, E> work) throws E {
+        acquire(bulkhead, maxWait.toNanos());
+        try {
+            return work.run();
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Take a permit of the given bulkhead for work that outlives the calling method, like a reactive stream.
+     *
+     * @param maxWait how long the work may wait for the permit
+     * @return releases the permit, to be run once the work is done
+     * @throws AdmissionRejectedException if the work was shed
+     */
+    public Runnable admit(Bulkhead bulkhead, Duration maxWait) {
+        acquire(bulkhead, maxWait.toNanos());
+        return bulkhead::release;
+    }
+
+    public List<Bulkhead> bulkheads() {
+        return Stream.of(primary, replica).filter(bulkhead -> bulkhead != null).toList();
+    }
+
+    private void acquire(Bulkhead bulkhead, long maxWaitNanos) {
+        try {
+            bulkhead.acquire(clientKey(), maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the " + bulkhead.getName() + " bulkhead", e);
+        }
+    }
+
+    private String clientKey() {
+        if (clientHeader == null) {
+            return ANONYMOUS;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            String client = servletAttributes.getRequest().getHeader(clientHeader);
+            if (client != null && !client.isBlank()) {
+                return client;
+            }
+        }
+        return ANONYMOUS;
+    }
+}
@@ -0,0 +1,32 @@
+package pl.pwr.translator_app.admission;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when a query is shed instead of being executed. Answered with {@code 503 Service Unavailable} and a
+ * {@code Retry-After} header.
+ */
+public class AdmissionRejectedException extends ResponseStatusException {
+    private final Bulkhead.Rejection rejection;
+
+    public AdmissionRejectedException(String bulkhead, Bulkhead.Rejection rejection) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, switch (rejection) {
+            case QUEUE_FULL -> "Too many queries waiting for the " + bulkhead + " bulkhead";
+            case TIMEOUT -> "Timed out waiting for the " + bulkhead + " bulkhead";
+        });
+        this.rejection = rejection;
+    }
+
+    public Bulkhead.Rejection getRejection() {
+        return rejection;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return headers;
+    }
+}
@@ -0,0 +1,202 @@
+package pl.pwr.translator_app.admission;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Limits how many queries use one datasource at a time, queueing the others for a bounded time.
+ * <p>
+ * A released permit is handed directly to a waiter, never barged. Waiters are queued per client and clients are
+ * served by stride scheduling: each client advances by {@code 1 / weight} per permit it receives and the client
+ * furthest behind goes next, so over time busy clients share the permits in proportion to their weights.
+ * A client joining the queue starts level with the last served client, so idle time is not banked.
+ * <p>
+ * Uses a {@link ReentrantLock} rather than {@code synchronized}, which would pin virtual threads while they wait.
+ */
+public class Bulkhead {
+    public enum Rejection { QUEUE_FULL, TIMEOUT }
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final ToIntFunction<String> weights;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Client> clients = new HashMap<>();
+    private int available;
+    private int queued;
+    private double pass;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queueFull = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * @param name          name of the datasource, used in rejection messages and metrics
+     * @param maxConcurrent permits, at most the connection pool size
+     * @param maxQueued     waiters beyond which queries are rejected right away
+     * @param weights       weight of a client key, at least 1
+     */
+    public Bulkhead(String name, int maxConcurrent, int maxQueued, ToIntFunction<String> weights) {
+        if (maxConcurrent <= 0 || maxQueued < 0) {
+            throw new IllegalArgumentException("Invalid bulkhead limits: " + maxConcurrent + " concurrent, " + maxQueued + " queued");
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.weights = weights;
+        this.available = maxConcurrent;
+    }
+
+    /**
+     * Take a permit, waiting at most {@code timeout} behind the other clients. Every successful call must be
+     * followed by {@link #release()}.
+     *
+     * @throws AdmissionRejectedException if the queue is full or the timeout passes first
+     */
+    public void acquire(String client, long timeout, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            if (available > 0 && queued == 0) {
+                available--;
+                admitted.increment();
+                return;
+            }
+            if (queued >= maxQueued) {
+                queueFull.increment();
+                throw new AdmissionRejectedException(name, Rejection.QUEUE_FULL);
+            }
+
+            Client queue = clients.computeIfAbsent(client, key -> new Client(Math.max(1, weights.applyAsInt(key)), pass));
+            Waiter waiter = new Waiter(lock.newCondition());
+            queue.waiters.add(waiter);
+            queued++;
+
+            long remaining = unit.toNanos(timeout);
+            try {
+                while (!waiter.granted) {
+                    if (remaining <= 0) {
+                        dequeue(client, queue, waiter);
+                        timeouts.increment();
+                        throw new AdmissionRejectedException(name, Rejection.TIMEOUT);
+                    }
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    grantNext();
+                } else {
+                    dequeue(client, queue, waiter);
+                }
+                throw e;
+            }
+            admitted.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            grantNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void grantNext() {
+        Map.Entry<String, Client> next = null;
+        for (Map.Entry<String, Client> entry : clients.entrySet()) {
+            if (next == null || entry.getValue().pass < next.getValue().pass) {
+                next = entry;
+            }
+        }
+        if (next == null) {
+            available++;
+            return;
+        }
+
+        Client client = next.getValue();
+        Waiter waiter = client.waiters.poll();
+        pass = client.pass;
+        client.pass += 1.0 / client.weight;
+        if (client.waiters.isEmpty()) {
+            clients.remove(next.getKey());
+        }
+        queued--;
+        waiter.granted = true;
+        waiter.condition.signal();
+    }
+
+    private void dequeue(String key, Client client, Waiter waiter) {
+        client.waiters.remove(waiter);
+        if (client.waiters.isEmpty()) {
+            clients.remove(key, client);
+        }
+        queued--;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int active() {
+        lock.lock();
+        try {
+            return maxConcurrent - available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long admitted() {
+        return admitted.sum();
+    }
+
+    public long rejected(Rejection rejection) {
+        return switch (rejection) {
+            case QUEUE_FULL -> queueFull.sum();
+            case TIMEOUT -> timeouts.sum();
+        };
+    }
+
+    private static final class Client {
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private final int weight;
+        private double pass;
+
+        private Client(int weight, double pass) {
+            this.weight = weight;
+            this.pass = pass;
+        }
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package pl.pwr.translator_app.advisor;
+
+import pl.pwr.query.Condition;
+
+/**
+ * How a query uses a column, which decides the kind of index serving it.
+ */
+public enum AccessPattern {
+    EQUALITY,
+    RANGE,
+    SORT,
+    /**
+     * {@code LIKE} with a pattern that doesn't start with a wildcard
+     */
+    PREFIX,
+    /**
+     * {@code LIKE} with a pattern starting with a wildcard, or {@code ILIKE}
+     */
+    SUBSTRING;
+
+    /**
+     * @return the pattern of the condition, or {@code null} if no index would serve it
+     */
+    public static AccessPattern of(Condition condition) {
+        if (condition.operator() == null) {
+            return null;
+        }
+        return switch (condition.operator().trim().toUpperCase()) {
+            case "=", "IN" -> EQUALITY;
+            case ">", "<", ">=", "<=" -> RANGE;
+            case "LIKE" -> condition.value() instanceof String pattern && !pattern.isEmpty()
+                    ? (pattern.charAt(0) == '%' || pattern.charAt(0) == '_' ? SUBSTRING : PREFIX)
+                    : null;
+            case "ILIKE" -> SUBSTRING;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package pl.pwr.translator_app.advisor;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.guard.CostEstimator;
+import pl.pwr.translator_app.guard.ExplainCostEstimator;
+
+/**
+ * Hypothetical indexes of the HypoPG extension. They only exist in the session that created them, so the index
+ * is created, used by {@code EXPLAIN} and dropped on one connection. HypoPG supports B-tree indexes, not the GIN
+ * ones of {@code pg_trgm}.
+ */
+@RequiredArgsConstructor
+public class HypoPgPlanner implements HypotheticalIndexPlanner {
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean available() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'hypopg')", Boolean.class));
+    }
+
+    @Override
+    public CostEstimator.Estimate estimate(String createIndex, SqlStatement statement) {
+        return jdbcTemplate.execute((ConnectionCallback<CostEstimator.Estimate>) connection -> {
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            session.queryForList("SELECT indexrelid FROM hypopg_create_index(?)", createIndex);
+            try {
+                return new ExplainCostEstimator(session, objectMapper).estimate(statement);
+            } finally {
+                session.execute("SELECT hypopg_reset()");
+            }
+        });
+    }
+}
@@ -0,0 +1,22 @@
+package pl.pwr.translator_app.advisor;
+
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.guard.CostEstimator;
+
+/**
+ * Plans statements as if an index existed, without building it.
+ */
+public interface HypotheticalIndexPlanner {
+
+    /**
+     * Whether hypothetical indexes are supported by the database.
+     */
+    boolean available();
+
+    /**
+     * @param createIndex the {@code CREATE INDEX} statement of the hypothetical index
+     * @return the estimate of the statement with the index
+     * @throws RuntimeException if the index or the statement can't be planned
+     */
+    CostEstimator.Estimate estimate(String createIndex, SqlStatement statement);
+}
@@ -0,0 +1,234 @@
+package pl.pwr.translator_app.advisor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.pwr.translator_app.guard.CostEstimator;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+import pl.pwr.translator_app.schema.TableSchema;
+
+/**
+ * Recommends indexes for the columns the {@link WorkloadProfile} saw filtered or sorted without an index serving
+ * them: a B-tree for equality, ranges and sorting, a B-tree with the pattern operator class for {@code LIKE}
+ * prefixes and a {@code pg_trgm} GIN index for substrings.
+ * <p>
+ * Recommendations are ranked by the cost the planner estimates the index would save the recorded queries, using
+ * hypothetical indexes when the database supports them, and otherwise by the current cost of those queries.
+ * Indexes the planner wouldn't use are left out. Nothing is created unless applying is enabled and a
+ * recommendation is applied explicitly.
+ */
+@Slf4j
+public class IndexAdvisor {
+    private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+    private final WorkloadProfile profile;
+    private final SchemaCatalog schemaCatalog;
+    private final CostEstimator estimator;
+    private final HypotheticalIndexPlanner planner;
+    private final JdbcTemplate jdbcTemplate;
+    private final long minQueries;
+    private final boolean applyEnabled;
+
+    private enum Kind { BTREE, PATTERN, TRIGRAM }
+
+    private static final class Candidate {
+        private final TableSchema table;
+        private final TableSchema.Column column;
+        private final Kind kind;
+        private final List<WorkloadProfile.Entry> entries = new ArrayList<>();
+
+        private Candidate(TableSchema table, TableSchema.Column column, Kind kind) {
+            this.table = table;
+            this.column = column;
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * @param profile        the recorded workload
+     * @param schemaCatalog  the tables with their existing indexes
+     * @param estimator      plans the recorded queries as they are
+     * @param planner        plans them with a hypothetical index
+     * @param jdbcTemplate   creates applied indexes
+     * @param minQueries     queries an index must serve to be recommended
+     * @param applyEnabled   whether recommendations may be applied
+     */
+    public IndexAdvisor(WorkloadProfile profile, SchemaCatalog schemaCatalog, CostEstimator estimator,
+                        HypotheticalIndexPlanner planner, JdbcTemplate jdbcTemplate, long minQueries, boolean applyEnabled) {
+        this.profile = profile;
+        this.schemaCatalog = schemaCatalog;
+        this.estimator = estimator;
+        this.planner = planner;
+        this.jdbcTemplate = jdbcTemplate;
+        this.minQueries = minQueries;
+        this.applyEnabled = applyEnabled;
+    }
+
+    /**
+     * @return the missing indexes, most beneficial first
+     */
+    public List<IndexRecommendation> recommendations() {
+        Map<String, TableSchema> tables = schemaCatalog.tables();
+        Map<String, Candidate> candidates = new LinkedHashMap<>();
+        for (WorkloadProfile.Entry entry : profile.entries()) {
+            WorkloadProfile.Usage usage = entry.usage();
+            TableSchema table = tables.get(usage.schema() + "." + usage.table());
+            if (table == null || covered(table, usage.column(), usage.pattern())) {
+                continue;
+            }
+            TableSchema.Column column = table.columns().stream()
+                    .filter(known -> known.name().equals(usage.column()))
+                    .findFirst()
+                    .orElse(null);
+            if (column == null) {
+                continue;
+            }
+            Kind kind = switch (usage.pattern()) {
+                case EQUALITY, RANGE, SORT -> Kind.BTREE;
+                case PREFIX -> Kind.PATTERN;
+                case SUBSTRING -> Kind.TRIGRAM;
+            };
+            candidates.computeIfAbsent(name(table, column, kind), name -> new Candidate(table, column, kind))
+                    .entries.add(entry);
+        }
+
+        boolean hypothetical = !candidates.isEmpty() && planner.available();
+        List<IndexRecommendation> recommendations = new ArrayList<>();
+        candidates.forEach((name, candidate) -> {
+            IndexRecommendation recommendation = recommend(name, candidate, hypothetical);
+            if (recommendation != null) {
+                recommendations.add(recommendation);
+            }
+        });
+        recommendations.sort(Comparator.comparingDouble((IndexRecommendation recommendation) ->
+                recommendation.estimatedBenefit() != null ? recommendation.estimatedBenefit() : recommendation.workloadCost())
+                .reversed());
+        return recommendations;
+    }
+
+    /**
+     * Create the index of a current recommendation and reload the catalog, so it is no longer recommended.
+     *
+     * @param id the name of the recommended index
+     * @throws IllegalStateException    if applying is disabled
+     * @throws IllegalArgumentException if no current recommendation has the id
+     */
+    public IndexRecommendation apply(String id) {
+        if (!applyEnabled) {
+            throw new IllegalStateException("Applying index recommendations is disabled by translator.advisor.apply-enabled");
+        }
+        IndexRecommendation recommendation = recommendations().stream()
+                .filter(candidate -> candidate.id().equals(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No index recommendation: " + id));
+        for (String statement : recommendation.statements()) {
+            log.info("Applying index recommendation: {}", statement);
+            jdbcTemplate.execute(statement);
+        }
+        schemaCatalog.refresh();
+        return recommendation;
+    }
+
+    private IndexRecommendation recommend(String name, Candidate candidate, boolean hypothetical) {
+        long queries = candidate.entries.stream().mapToLong(WorkloadProfile.Entry::queries).sum();
+        if (queries < minQueries) {
+            return null;
+        }
+        String definition = definition(name, candidate);
+        double workloadCost = 0;
+        double benefit = 0;
+        boolean estimated = hypothetical && candidate.kind != Kind.TRIGRAM;
+        Set<AccessPattern> patterns = EnumSet.noneOf(AccessPattern.class);
+        for (WorkloadProfile.Entry entry : candidate.entries) {
+            patterns.add(entry.usage().pattern());
+            CostEstimator.Estimate current;
+            try {
+                current = estimator.estimate(entry.sample());
+            } catch (RuntimeException e) {
+                log.debug("Could not plan {}: {}", entry.sample().sql(), e.getMessage());
+                continue;
+            }
+            workloadCost += entry.queries() * current.cost();
+            if (estimated) {
+                try {
+                    benefit += entry.queries() * (current.cost() - planner.estimate(definition, entry.sample()).cost());
+                } catch (RuntimeException e) {
+                    log.debug("Could not plan {} with {}: {}", entry.sample().sql(), name, e.getMessage());
+                    estimated = false;
+                }
+            }
+        }
+        if (estimated && benefit <= 0) {
+            // The planner would keep its current plans
+            return null;
+        }
+
+        List<String> statements = new ArrayList<>();
+        if (candidate.kind == Kind.TRIGRAM) {
+            statements.add("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        }
+        statements.add(definition.replaceFirst("^CREATE INDEX ", "CREATE INDEX CONCURRENTLY IF NOT EXISTS "));
+        return new IndexRecommendation(name, candidate.table.schema() + "." + candidate.table.name(),
+                candidate.column.name(), candidate.kind == Kind.TRIGRAM ? "gin" : "btree", patterns, queries,
+                workloadCost, estimated ? benefit : null, statements);
+    }
+
+    /**
+     * Whether an existing index serves the use of the column. B-tree indexes only serve their leading column.
+     */
+    static boolean covered(TableSchema table, String column, AccessPattern pattern) {
+        for (TableSchema.Index index : table.indexes()) {
+            boolean leading = !index.columns().isEmpty() && column.equals(index.columns().get(0));
+            boolean btree = "btree".equals(index.method());
+            boolean patternOps = index.definition().contains("_pattern_ops");
+            boolean trigram = index.definition().contains("_trgm_ops") && index.columns().contains(column);
+            boolean covers = switch (pattern) {
+                case EQUALITY -> leading && (btree || "hash".equals(index.method()));
+                case RANGE, SORT -> leading && btree && !patternOps;
+                case PREFIX -> leading && btree && patternOps || trigram;
+                case SUBSTRING -> trigram;
+            };
+            if (covers) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String name(TableSchema table, TableSchema.Column column, Kind kind) {
+        String suffix = switch (kind) {
+            case BTREE -> "_idx";
+            case PATTERN -> "_pattern_idx";
+            case TRIGRAM -> "_trgm_idx";
+        };
+        String name = table.name() + "_" + column.name();
+        return name.substring(0, Math.min(name.length(), MAX_IDENTIFIER_LENGTH - suffix.length())) + suffix;
+    }
+
+    private static String definition(String name, Candidate candidate) {
+        String column = quote(candidate.column.name());
+        String key = switch (candidate.kind) {
+            case BTREE -> "btree (" + column + ")";
+            case PATTERN -> "btree (" + column + " " + switch (candidate.column.dataType()) {
+                case "character varying" -> "varchar_pattern_ops";
+                case "character" -> "bpchar_pattern_ops";
+                default -> "text_pattern_ops";
+            } + ")";
+            case TRIGRAM -> "gin (" + column + " gin_trgm_ops)";
+        };
+        return "CREATE INDEX " + quote(name) + " ON " + quote(candidate.table.schema()) + "."
+                + quote(candidate.table.name()) + " USING " + key;
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,36 @@
+package pl.pwr.translator_app.advisor;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@code /actuator/indexadvisor} lists the recommendations of the {@link IndexAdvisor}, a POST with the
+ * {@code id} of one creates its index if applying is enabled.
+ */
+@Component
+@Endpoint(id = "indexadvisor")
+@RequiredArgsConstructor
+public class IndexAdvisorEndpoint {
+    private final IndexAdvisor indexAdvisor;
+
+    @ReadOperation
+    public List<IndexRecommendation> recommendations() {
+        return indexAdvisor.recommendations();
+    }
+
+    @WriteOperation
+    public IndexRecommendation apply(String id) {
+        try {
+            return indexAdvisor.apply(id);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package pl.pwr.translator_app.advisor;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An index missing for the recorded workload.
+ *
+ * @param id               the name of the index, which also selects it to be applied
+ * @param table            the qualified table name
+ * @param method           the access method of the index
+ * @param patterns         the uses of the column the index would serve
+ * @param queries          the recorded queries with those uses
+ * @param workloadCost     the planner's cost of those queries without the index, each planned like its latest sample
+ * @param estimatedBenefit the cost the index would save them, {@code null} if the planner can't tell without
+ *                         building it
+ * @param statements       what applying the recommendation executes
+ */
+public record IndexRecommendation(String id, String table, String column, String method, Set<AccessPattern> patterns,
+                                  long queries, double workloadCost, Double estimatedBenefit, List<String> statements) {
+}
@@ -0,0 +1,98 @@
+package pl.pwr.translator_app.advisor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import pl.pwr.query.Condition;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+import pl.pwr.translator_app.schema.TableSchema;
+
+/**
+ * Counts how the translated queries filter and sort every column, keeping the latest statement of each usage as
+ * a sample to plan. Only tables and columns of the {@link SchemaCatalog} are counted, which bounds the profile by
+ * the schema rather than by what clients send.
+ */
+public class WorkloadProfile {
+    public static final WorkloadProfile DISABLED = new WorkloadProfile(null);
+
+    private final SchemaCatalog schemaCatalog;
+    private final Map<Usage, Stats> usages = new ConcurrentHashMap<>();
+
+    /**
+     * @param schema the schema of the table
+     * @param table  the table name as loaded by the catalog
+     * @param column the column name as loaded by the catalog
+     */
+    public record Usage(String schema, String table, String column, AccessPattern pattern) {
+    }
+
+    /**
+     * @param queries the queries counted with the usage
+     * @param sample  the latest of them
+     */
+    public record Entry(Usage usage, long queries, SqlStatement sample) {
+    }
+
+    private static final class Stats {
+        private final LongAdder queries = new LongAdder();
+        private volatile SqlStatement sample;
+    }
+
+    /**
+     * @param schemaCatalog resolves the tables and columns, {@code null} to count nothing
+     */
+    public WorkloadProfile(SchemaCatalog schemaCatalog) {
+        this.schemaCatalog = schemaCatalog;
+    }
+
+    /**
+     * Count the conditions and the leading sort key of a translated query.
+     */
+    public void record(Query query, SqlStatement statement) {
+        if (schemaCatalog == null || query.table() == null || (query.conditions() == null && query.orderBy() == null)) {
+            return;
+        }
+        Optional<TableSchema> table = schemaCatalog.table(query.table());
+        if (table.isEmpty()) {
+            return;
+        }
+        if (query.conditions() != null) {
+            for (Condition condition : query.conditions()) {
+                if (condition != null && condition.column() != null) {
+                    record(table.get(), condition.column(), AccessPattern.of(condition), statement);
+                }
+            }
+        }
+        if (query.orderBy() != null && !query.orderBy().isEmpty()) {
+            OrderBy leading = query.orderBy().get(0);
+            if (leading != null && leading.column() != null) {
+                record(table.get(), leading.column(), AccessPattern.SORT, statement);
+            }
+        }
+    }
+
+    private void record(TableSchema table, String column, AccessPattern pattern, SqlStatement statement) {
+        if (pattern == null) {
+            return;
+        }
+        table.column(column).ifPresent(known -> {
+            Stats stats = usages.computeIfAbsent(new Usage(table.schema(), table.name(), known.name(), pattern),
+                    usage -> new Stats());
+            stats.queries.increment();
+            stats.sample = statement;
+        });
+    }
+
+    public List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(usages.size());
+        usages.forEach((usage, stats) -> entries.add(new Entry(usage, stats.queries.sum(), stats.sample)));
+        return entries;
+    }
+}
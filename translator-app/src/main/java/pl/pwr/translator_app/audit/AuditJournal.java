@@ -0,0 +1,201 @@
+package pl.pwr.translator_app.audit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.pwr.query.SqlStatement;
+
+/**
+ * Journal of every executed statement, appended to memory-mapped segment files by a single background thread.
+ * <p>
+ * Executing threads only claim a slot of a preallocated ring buffer and store references to the statement and
+ * a few numbers in it, which takes no lock and allocates nothing. The writer thread drains the ring in order,
+ * shapes the statements and encodes them into the current segment, see {@link JournalFormat}. When the ring is
+ * full the statement is dropped and counted instead of slowing the query down. Written pages reach the disk
+ * when the operating system flushes them, or at the latest after {@code forceInterval}.
+ * <p>
+ * {@link JournalReader} reads the segments back. The {@link #DISABLED} instance journals nothing.
+ */
+@Slf4j
+public class AuditJournal implements AutoCloseable {
+    public static final AuditJournal DISABLED = new AuditJournal();
+
+    private static final class Slot {
+        private volatile long sequence = -1;
+        private long timestamp;
+        private SqlStatement statement;
+        private long nanos;
+        private long rows;
+        private boolean failed;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final JournalSegmentWriter writer;
+    private final long forceInterval;
+    private final Thread thread;
+    private volatile boolean waiting;
+    private volatile boolean closed;
+
+    private AuditJournal() {
+        this.slots = null;
+        this.mask = 0;
+        this.writer = null;
+        this.forceInterval = 0;
+        this.thread = null;
+        this.closed = true;
+    }
+
+    /**
+     * @param directory     where the segments are kept, created if missing
+     * @param segmentSize   bytes of a segment
+     * @param maxSegments   segments kept, the oldest are deleted beyond them, 0 to keep them all
+     * @param ringSize      statements waiting to be written, rounded up to a power of two
+     * @param forceInterval longest time written records stay in memory only
+     */
+    public AuditJournal(Path directory, int segmentSize, int maxSegments, int ringSize, Duration forceInterval)
+            throws IOException {
+        this.slots = new Slot[Integer.highestOneBit(Math.max(ringSize - 1, 1)) << 1];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = slots.length - 1;
+        this.writer = new JournalSegmentWriter(directory, segmentSize, maxSegments);
+        this.forceInterval = forceInterval.toNanos();
+        this.thread = Thread.ofPlatform().name("audit-journal").daemon().unstarted(this::run);
+        thread.start();
+        log.info("Audit journal writing to {}", directory.toAbsolutePath());
+    }
+
+    /**
+     * Queue the statement for the journal.
+     *
+     * @param statement the executed statement
+     * @param nanos     how long it executed
+     * @param rows      the rows it returned or affected
+     * @param failed    whether it failed
+     * @return whether it was queued, {@code false} if the ring was full or the journal is closed
+     */
+    public boolean append(SqlStatement statement, long nanos, long rows, boolean failed) {
+        if (closed) {
+            return false;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() >= slots.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.timestamp = System.currentTimeMillis();
+        slot.statement = statement;
+        slot.nanos = nanos;
+        slot.rows = rows;
+        slot.failed = failed;
+        // Publishes the fields above to the writer
+        slot.sequence = sequence;
+        if (waiting) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    private void run() {
+        long next = 0;
+        long forcedAt = System.nanoTime();
+        while (true) {
+            Slot slot = slots[(int) (next & mask)];
+            if (slot.sequence == next) {
+                write(slot);
+                slot.statement = null;
+                consumed.set(++next);
+                continue;
+            }
+            if (closed && claimed.get() == next) {
+                break;
+            }
+            if (System.nanoTime() - forcedAt >= forceInterval) {
+                writer.force();
+                forcedAt = System.nanoTime();
+            }
+            waiting = true;
+            // Checked again after announcing the wait, so a statement published meanwhile isn't left waiting
+            if (slot.sequence != next && !closed) {
+                LockSupport.parkNanos(this, forceInterval);
+            }
+            waiting = false;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.error("Could not close the audit journal", e);
+        }
+    }
+
+    private void write(Slot slot) {
+        SqlStatement statement = slot.statement;
+        try {
+            if (writer.append(slot.timestamp, statement.sql(), statement.parameters(), slot.nanos, slot.rows,
+                    slot.failed)) {
+                written.increment();
+            } else {
+                dropped.increment();
+                log.warn("Statement too large for an audit journal segment: {}", statement.sql());
+            }
+        } catch (IOException | RuntimeException e) {
+            dropped.increment();
+            log.error("Could not journal {}", statement.sql(), e);
+        }
+    }
+
+    /**
+     * @return statements written to a segment
+     */
+    public long written() {
+        return written.sum();
+    }
+
+    /**
+     * @return statements dropped because the ring was full or they couldn't be written
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return statements waiting to be written
+     */
+    public long pending() {
+        return claimed.get() - consumed.get();
+    }
+
+    /**
+     * Stop accepting statements, write the queued ones and close the current segment.
+     */
+    @Override
+    public void close() {
+        if (thread == null || closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(Duration.ofSeconds(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
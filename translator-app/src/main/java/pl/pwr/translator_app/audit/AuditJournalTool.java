@@ -0,0 +1,181 @@
+package pl.pwr.translator_app.audit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import pl.pwr.query.SqlStatement;
+
+/**
+ * Reads the segments of an audit journal back to summarize, print or replay the recorded workload.
+ * <p>
+ * Options, all given as {@code --name=value}:
+ * <ul>
+ *     <li>{@code journal}: directory of the segments, default {@code audit-journal}</li>
+ *     <li>{@code mode}: {@code summary} of the shapes by total time, {@code dump} of every statement, or
+ *     {@code replay} against a database, default summary</li>
+ *     <li>{@code top}: shapes of the summary, default 20</li>
+ *     <li>{@code url}, {@code username}, {@code password}: the database to replay against</li>
+ *     <li>{@code speed}: replay pace relative to the recorded one, 0 to replay as fast as possible, default 1</li>
+ *     <li>{@code writes}: whether INSERT, UPDATE and DELETE statements are replayed too, default false</li>
+ * </ul>
+ */
+public final class AuditJournalTool {
+
+    private static final class ShapeSummary {
+        private final String sql;
+        private long executions;
+        private long failures;
+        private long nanos;
+        private long rows;
+        private long replayed;
+        private long replayNanos;
+
+        private ShapeSummary(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    private AuditJournalTool() {
+    }
+
+    public static void main(String[] args) throws IOException, SQLException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        Path journal = Path.of(options.getOrDefault("journal", "audit-journal"));
+        List<JournalRecord> records = new ArrayList<>();
+        JournalReader.readAll(journal, records::add);
+        if (records.isEmpty()) {
+            System.out.println("No statements journaled in " + journal.toAbsolutePath());
+            return;
+        }
+
+        switch (options.getOrDefault("mode", "summary")) {
+            case "summary" -> summary(records, Integer.parseInt(options.getOrDefault("top", "20")));
+            case "dump" -> records.forEach(record -> System.out.printf("%s %s %8.3f ms %6d row(s)%s %s %s%n",
+                    record.at(), record.hexShapeId(), record.durationNanos() / 1e6, record.rows(),
+                    record.failed() ? " FAILED" : "", record.sql(), record.parameters()));
+            case "replay" -> replay(records, options);
+            default -> throw new IllegalArgumentException("Unknown mode: " + options.get("mode"));
+        }
+    }
+
+    private static void summary(List<JournalRecord> records, int top) {
+        Map<Long, ShapeSummary> shapes = summarize(records);
+        Duration span = Duration.between(records.get(0).at(), records.get(records.size() - 1).at());
+        System.out.printf("%d statement(s) of %d shape(s) over %s%n", records.size(), shapes.size(), span);
+        System.out.printf("%-16s %10s %8s %12s %10s %10s  %s%n", "shape", "executions", "failures", "total ms",
+                "mean ms", "mean rows", "sql");
+        shapes.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, ShapeSummary> entry) -> entry.getValue().nanos)
+                        .reversed())
+                .limit(top)
+                .forEach(entry -> {
+                    ShapeSummary shape = entry.getValue();
+                    System.out.printf("%016x %10d %8d %12.1f %10.3f %10.1f  %s%n", entry.getKey(), shape.executions,
+                            shape.failures, shape.nanos / 1e6, shape.nanos / 1e6 / shape.executions,
+                            (double) shape.rows / shape.executions, shape.sql);
+                });
+    }
+
+    private static Map<Long, ShapeSummary> summarize(List<JournalRecord> records) {
+        Map<Long, ShapeSummary> shapes = new LinkedHashMap<>();
+        for (JournalRecord record : records) {
+            ShapeSummary shape = shapes.computeIfAbsent(record.shapeId(), id -> new ShapeSummary(record.sql()));
+            shape.executions++;
+            shape.nanos += record.durationNanos();
+            shape.rows += record.rows();
+            if (record.failed()) {
+                shape.failures++;
+            }
+        }
+        return shapes;
+    }
+
+    /**
+     * Execute the statements again in their recorded order and pace, comparing their latency with the recorded
+     * one. Each statement runs in its own transaction, failures are counted and the replay goes on.
+     */
+    private static void replay(List<JournalRecord> records, Map<String, String> options)
+            throws SQLException, InterruptedException {
+        double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+        boolean writes = Boolean.parseBoolean(options.getOrDefault("writes", "false"));
+        Map<Long, ShapeSummary> shapes = summarize(records);
+        long skipped = 0;
+        long failures = 0;
+        Instant first = records.get(0).at();
+        long replayStart = System.nanoTime();
+        Properties properties = new Properties();
+        properties.setProperty("user", options.getOrDefault("username", ""));
+        properties.setProperty("password", options.getOrDefault("password", ""));
+        // Condition values are bound as strings, like in the application
+        properties.setProperty("stringtype", "unspecified");
+        try (Connection connection = DriverManager.getConnection(options.get("url"), properties)) {
+            for (JournalRecord record : records) {
+                SqlStatement statement = record.statement();
+                // A failed write was rolled back, replaying it would change data the workload never changed
+                if (statement == null || statement.sql().startsWith("Invalid")
+                        || !statement.readOnly() && (!writes || record.failed())) {
+                    skipped++;
+                    continue;
+                }
+                if (speed > 0) {
+                    long due = replayStart + (long) (Duration.between(first, record.at()).toNanos() / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        Thread.sleep(Duration.ofNanos(wait));
+                    }
+                }
+                long start = System.nanoTime();
+                try {
+                    execute(connection, statement);
+                } catch (SQLException e) {
+                    failures++;
+                }
+                ShapeSummary shape = shapes.get(record.shapeId());
+                shape.replayed++;
+                shape.replayNanos += System.nanoTime() - start;
+            }
+        }
+
+        System.out.printf("Replayed %d statement(s) in %.1f s, %d skipped, %d failed%n", records.size() - skipped,
+                (System.nanoTime() - replayStart) / 1e9, skipped, failures);
+        System.out.printf("%-16s %10s %14s %14s  %s%n", "shape", "replayed", "recorded ms", "replayed ms", "sql");
+        shapes.forEach((id, shape) -> {
+            if (shape.replayed > 0) {
+                System.out.printf("%016x %10d %14.3f %14.3f  %s%n", id, shape.replayed,
+                        shape.nanos / 1e6 / shape.executions, shape.replayNanos / 1e6 / shape.replayed, shape.sql);
+            }
+        });
+    }
+
+    private static void execute(Connection connection, SqlStatement statement) throws SQLException {
+        try (PreparedStatement prepared = connection.prepareStatement(statement.sql())) {
+            for (int i = 0; i < statement.parameters().size(); i++) {
+                prepared.setObject(i + 1, statement.parameters().get(i));
+            }
+            if (prepared.execute()) {
+                try (ResultSet rows = prepared.getResultSet()) {
+                    while (rows.next()) {
+                        // Read every row, like the application does
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package pl.pwr.translator_app.audit;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Layout of the journal segments, shared by {@link JournalSegmentWriter} and {@link JournalReader}.
+ * <p>
+ * A segment is a file of a fixed size, starting with {@link #MAGIC}, {@link #VERSION} and its creation time in
+ * epoch milliseconds. Records follow, each starting with its length in bytes including the length itself and
+ * its type. The length is written last, so a record is only read once it is complete and the zeroes after the
+ * last record end the segment.
+ * <pre>
+ * SHAPE:     long shape id, string sql
+ * STATEMENT: long epoch millis, long shape id, long duration nanos, long rows, byte failed,
+ *            short parameter count, per parameter a tag and its value
+ * </pre>
+ * A shape is written to a segment before its first statement, so every segment can be read on its own.
+ * Strings are written as their UTF-8 length in an int and their bytes.
+ */
+final class JournalFormat {
+    static final int MAGIC = 0x514a524e;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    static final byte SHAPE = 1;
+    static final byte STATEMENT = 2;
+
+    static final byte NULL = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte FALSE = 3;
+    static final byte TRUE = 4;
+    static final byte STRING = 5;
+    static final byte DECIMAL = 6;
+
+    static final String SUFFIX = ".journal";
+
+    private JournalFormat() {
+    }
+
+    static String segmentName(long sequence) {
+        return String.format("segment-%020d%s", sequence, SUFFIX);
+    }
+
+    /**
+     * @return the sequence number of a segment, -1 if the file is not one
+     */
+    static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        if (!name.startsWith("segment-") || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring("segment-".length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the bytes of the string encoded as UTF-8, counted without encoding it
+     */
+    static int utf8Length(String string) {
+        int length = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < string.length()
+                    && Character.isLowSurrogate(string.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Write the string as UTF-8 without an intermediate byte array, a lone surrogate is written as is and
+     * decoded as a replacement character.
+     */
+    static void putUtf8(ByteBuffer buffer, String string) {
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < string.length()
+                    && Character.isLowSurrogate(string.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                buffer.put((byte) (0xf0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3f));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3f));
+                buffer.put((byte) (0x80 | codePoint & 0x3f));
+            } else {
+                buffer.put((byte) (0xe0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3f));
+                buffer.put((byte) (0x80 | c & 0x3f));
+            }
+        }
+    }
+}
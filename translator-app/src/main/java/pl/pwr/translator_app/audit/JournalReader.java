@@ -0,0 +1,120 @@
+package pl.pwr.translator_app.audit;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads the segments written by {@link AuditJournal} back, oldest record first.
+ * <p>
+ * A segment may be read while it is being written, it then ends at the last complete record.
+ */
+public final class JournalReader {
+
+    private JournalReader() {
+    }
+
+    /**
+     * @return the segments of the directory, oldest first, none if it doesn't exist
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> JournalFormat.sequence(file) >= 0)
+                    .sorted(Comparator.comparingLong(JournalFormat::sequence))
+                    .toList();
+        }
+    }
+
+    /**
+     * Read every segment of the directory.
+     */
+    public static void readAll(Path directory, Consumer<JournalRecord> consumer) throws IOException {
+        for (Path segment : segments(directory)) {
+            read(segment, consumer);
+        }
+    }
+
+    /**
+     * @throws IOException if the file is not a segment or its records are corrupt
+     */
+    public static void read(Path segment, Consumer<JournalRecord> consumer) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < JournalFormat.HEADER_SIZE || buffer.getInt() != JournalFormat.MAGIC) {
+            throw new IOException("Not a journal segment: " + segment);
+        }
+        int version = buffer.getInt();
+        if (version != JournalFormat.VERSION) {
+            throw new IOException("Unsupported journal version " + version + ": " + segment);
+        }
+        buffer.getLong();
+
+        Map<Long, String> shapes = new HashMap<>();
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length == 0) {
+                break;
+            }
+            if (length < 5 || length > buffer.remaining() + 4) {
+                throw new IOException("Corrupt journal record at " + start + ": " + segment);
+            }
+            byte type = buffer.get();
+            if (type == JournalFormat.SHAPE) {
+                shapes.put(buffer.getLong(), getString(buffer));
+            } else if (type == JournalFormat.STATEMENT) {
+                Instant at = Instant.ofEpochMilli(buffer.getLong());
+                long shapeId = buffer.getLong();
+                long nanos = buffer.getLong();
+                long rows = buffer.getLong();
+                boolean failed = buffer.get() != 0;
+                int count = buffer.getInt();
+                List<Object> parameters = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    parameters.add(getParameter(buffer));
+                }
+                consumer.accept(new JournalRecord(at, shapeId, shapes.get(shapeId), parameters, nanos, rows, failed));
+            }
+            // Records of unknown types are skipped by their length
+            buffer.position(start + length);
+        }
+    }
+
+    private static Object getParameter(ByteBuffer buffer) throws IOException {
+        byte tag = buffer.get();
+        return switch (tag) {
+            case JournalFormat.NULL -> null;
+            case JournalFormat.LONG -> buffer.getLong();
+            case JournalFormat.DOUBLE -> buffer.getDouble();
+            case JournalFormat.FALSE -> false;
+            case JournalFormat.TRUE -> true;
+            case JournalFormat.STRING -> getString(buffer);
+            case JournalFormat.DECIMAL -> new BigDecimal(getString(buffer));
+            default -> throw new IOException("Unknown journal parameter tag " + tag);
+        };
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
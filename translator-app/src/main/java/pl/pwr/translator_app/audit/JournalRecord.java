@@ -0,0 +1,52 @@
+package pl.pwr.translator_app.audit;
+
+import java.time.Instant;
+import java.util.List;
+
+import pl.pwr.query.SqlStatement;
+
+/**
+ * A statement read back from the journal.
+ *
+ * @param at            when the statement finished executing, to the millisecond
+ * @param shapeId       the {@link pl.pwr.translator_app.profiler.QueryShape} id
+ * @param sql           the shape's SQL, with the row groups of a multi-row insert collapsed
+ * @param parameters    the bind values, integers read back as {@link Long}, decimals as
+ *                      {@link java.math.BigDecimal}
+ * @param durationNanos how long it executed
+ * @param rows          the rows it returned or affected
+ * @param failed        whether it failed
+ */
+public record JournalRecord(Instant at, long shapeId, String sql, List<Object> parameters, long durationNanos,
+                            long rows, boolean failed) {
+
+    /**
+     * @return the shape id as 16 hex digits, like the profiler reports it
+     */
+    public String hexShapeId() {
+        return String.format("%016x", shapeId);
+    }
+
+    /**
+     * @return the statement to execute again, {@code null} if its SQL can't be rebuilt because the collapsed row
+     * groups of an insert no longer match its parameters
+     */
+    public SqlStatement statement() {
+        int collapsed = sql.indexOf(", ...");
+        if (collapsed < 0) {
+            return new SqlStatement(sql, parameters);
+        }
+        int group = sql.lastIndexOf('(', collapsed);
+        String row = sql.substring(group, collapsed);
+        int placeholders = (int) row.chars().filter(c -> c == '?').count();
+        if (placeholders == 0 || parameters.size() % placeholders != 0) {
+            return null;
+        }
+        StringBuilder expanded = new StringBuilder(sql.length() + parameters.size() * 4).append(sql, 0, collapsed);
+        for (int i = 1; i < parameters.size() / placeholders; i++) {
+            expanded.append(", ").append(row);
+        }
+        return new SqlStatement(expanded.append(sql, collapsed + ", ...".length(), sql.length()).toString(),
+                parameters);
+    }
+}
@@ -0,0 +1,225 @@
+package pl.pwr.translator_app.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.pwr.translator_app.profiler.QueryShape;
+
+/**
+ * Appends records to memory-mapped segments of {@link JournalFormat}, starting the next segment when a record
+ * doesn't fit and deleting the oldest ones beyond {@code maxSegments}.
+ * <p>
+ * Used by a single thread. Every start begins a new segment, so a segment cut short by a crash is never
+ * written to again.
+ */
+@Slf4j
+final class JournalSegmentWriter implements Closeable {
+    private static final int MAXIMUM_CACHED_SHAPES = 10_000;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final Map<String, QueryShape> shapes = new HashMap<>();
+    private final Set<Long> segmentShapes = new HashSet<>();
+    private long sequence;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private boolean dirty;
+
+    /**
+     * @param directory   where the segments are kept, created if missing
+     * @param segmentSize bytes of a segment
+     * @param maxSegments segments kept, 0 to keep them all
+     */
+    JournalSegmentWriter(Path directory, int segmentSize, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        sequence = JournalReader.segments(directory).stream().mapToLong(JournalFormat::sequence).max().orElse(0);
+    }
+
+    /**
+     * @return whether the statement was written, {@code false} if it is larger than a segment
+     */
+    boolean append(long timestamp, String sql, List<Object> parameters, long nanos, long rows, boolean failed)
+            throws IOException {
+        QueryShape shape = shape(sql);
+        int statementSize = statementSize(parameters);
+        int shapeSize = segmentShapes.contains(shape.id()) ? 0 : shapeSize(shape);
+        if (buffer == null || buffer.remaining() < shapeSize + statementSize) {
+            if (JournalFormat.HEADER_SIZE + shapeSize(shape) + statementSize > segmentSize) {
+                return false;
+            }
+            rotate();
+            shapeSize = shapeSize(shape);
+        }
+
+        if (shapeSize > 0) {
+            int start = begin();
+            buffer.put(JournalFormat.SHAPE);
+            buffer.putLong(shape.id());
+            putString(shape.sql());
+            commit(start);
+            segmentShapes.add(shape.id());
+        }
+        int start = begin();
+        buffer.put(JournalFormat.STATEMENT);
+        buffer.putLong(timestamp);
+        buffer.putLong(shape.id());
+        buffer.putLong(nanos);
+        buffer.putLong(rows);
+        buffer.put((byte) (failed ? 1 : 0));
+        buffer.putInt(parameters.size());
+        for (Object parameter : parameters) {
+            putParameter(parameter);
+        }
+        commit(start);
+        dirty = true;
+        return true;
+    }
+
+    private QueryShape shape(String sql) {
+        QueryShape shape = shapes.get(sql);
+        if (shape == null) {
+            if (shapes.size() >= MAXIMUM_CACHED_SHAPES) {
+                shapes.clear();
+            }
+            shape = QueryShape.of(sql);
+            shapes.put(sql, shape);
+        }
+        return shape;
+    }
+
+    private static int shapeSize(QueryShape shape) {
+        return 4 + 1 + 8 + 4 + JournalFormat.utf8Length(shape.sql());
+    }
+
+    private static int statementSize(List<Object> parameters) {
+        int size = 4 + 1 + 8 + 8 + 8 + 8 + 1 + 4;
+        for (Object parameter : parameters) {
+            size += 1 + switch (parameter) {
+                case null -> 0;
+                case Long ignored -> 8;
+                case Integer ignored -> 8;
+                case Short ignored -> 8;
+                case Byte ignored -> 8;
+                case Double ignored -> 8;
+                case Float ignored -> 8;
+                case Boolean ignored -> 0;
+                case String string -> 4 + JournalFormat.utf8Length(string);
+                default -> 4 + JournalFormat.utf8Length(parameter.toString());
+            };
+        }
+        return size;
+    }
+
+    private void putParameter(Object parameter) {
+        switch (parameter) {
+            case null -> buffer.put(JournalFormat.NULL);
+            case Long value -> buffer.put(JournalFormat.LONG).putLong(value);
+            case Integer value -> buffer.put(JournalFormat.LONG).putLong(value);
+            case Short value -> buffer.put(JournalFormat.LONG).putLong(value);
+            case Byte value -> buffer.put(JournalFormat.LONG).putLong(value);
+            case Double value -> buffer.put(JournalFormat.DOUBLE).putDouble(value);
+            case Float value -> buffer.put(JournalFormat.DOUBLE).putDouble(value);
+            case Boolean value -> buffer.put(value ? JournalFormat.TRUE : JournalFormat.FALSE);
+            case String value -> {
+                buffer.put(JournalFormat.STRING);
+                putString(value);
+            }
+            case BigDecimal value -> {
+                buffer.put(JournalFormat.DECIMAL);
+                putString(value.toString());
+            }
+            case BigInteger value -> {
+                buffer.put(JournalFormat.DECIMAL);
+                putString(value.toString());
+            }
+            // Bound by the driver through its string form anyway
+            default -> {
+                buffer.put(JournalFormat.STRING);
+                putString(parameter.toString());
+            }
+        }
+    }
+
+    private void putString(String value) {
+        buffer.putInt(JournalFormat.utf8Length(value));
+        JournalFormat.putUtf8(buffer, value);
+    }
+
+    private int begin() {
+        int start = buffer.position();
+        buffer.position(start + 4);
+        return start;
+    }
+
+    private void commit(int start) {
+        buffer.putInt(start, buffer.position() - start);
+    }
+
+    /**
+     * Write the changed pages of the current segment to the disk.
+     */
+    void force() {
+        if (dirty && buffer != null) {
+            buffer.force();
+            dirty = false;
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeSegment();
+        Path segment = directory.resolve(JournalFormat.segmentName(++sequence));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buffer.putInt(JournalFormat.MAGIC);
+        buffer.putInt(JournalFormat.VERSION);
+        buffer.putLong(System.currentTimeMillis());
+        segmentShapes.clear();
+        dirty = true;
+        log.debug("Started journal segment {}", segment);
+        deleteOldSegments();
+    }
+
+    private void deleteOldSegments() throws IOException {
+        if (maxSegments <= 0) {
+            return;
+        }
+        List<Path> segments = JournalReader.segments(directory);
+        for (Path segment : segments.subList(0, Math.max(segments.size() - maxSegments, 0))) {
+            Files.deleteIfExists(segment);
+            log.debug("Deleted journal segment {}", segment);
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel != null) {
+            force();
+            // The mapping stays valid until the buffer is collected, closing the channel doesn't unmap it
+            channel.close();
+            channel = null;
+            buffer = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+}
@@ -0,0 +1,245 @@
+package pl.pwr.translator_app.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import pl.pwr.translator_app.domain.Row;
+import pl.pwr.translator_app.result.QueryResult;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+
+/**
+ * Bounded cache of SELECT results keyed by the translated SQL and its bind values.
+ * <p>
+ * Every entry belongs to the table it was selected from, and {@link #invalidate(String) invalidating} a table
+ * drops all of its entries. A per-table generation guards against a SELECT that was running during the
+ * invalidation storing its now stale result afterwards. Entries expire after their TTL, and the cache is
+ * bounded by entry count and by an estimate of the result sizes, evicting with the CLOCK algorithm.
+ * <p>
+ * Table names are resolved through the {@link SchemaCatalog} to their schema qualified name, so a write through
+ * {@code public.user_entity} invalidates the results read through {@code "user_entity"} as well.
+ */
+public class ResultCache {
+    private final int maximumSize;
+    private final long maximumBytes;
+    private final Duration defaultTtl;
+    private final SchemaCatalog schemaCatalog;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<Key>> tables = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Queue<Key> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ResultCache(int maximumSize, long maximumBytes, Duration defaultTtl) {
+        this(maximumSize, maximumBytes, defaultTtl, null);
+    }
+
+    /**
+     * @param schemaCatalog resolves table names, or {@code null} to only fold them to lower case
+     */
+    public ResultCache(int maximumSize, long maximumBytes, Duration defaultTtl, SchemaCatalog schemaCatalog) {
+        if (maximumSize <= 0 || maximumBytes <= 0) {
+            throw new IllegalArgumentException("Cache bounds must be positive: " + maximumSize + ", " + maximumBytes);
+        }
+        this.maximumSize = maximumSize;
+        this.maximumBytes = maximumBytes;
+        this.defaultTtl = defaultTtl;
+        this.schemaCatalog = schemaCatalog;
+    }
+
+    /**
+     * Returns the cached result of the SELECT, executing and caching it first if needed.
+     *
+     * @param table    the table the SELECT reads
+     * @param key      the translated SQL and its bind values
+     * @param ttl      how long the result stays valid, or {@code null} for the default. Also the maximum age of
+     *                 a cached result this call accepts
+     * @param executor executes the SELECT on a miss
+     * @return the result
+     */
+    public QueryResult get(String table, Key key, Duration ttl, Supplier<QueryResult> executor) {
+        Entry entry = entries.get(key);
+        long now = System.nanoTime();
+        if (entry != null && entry.expiresAt - now > 0 && (ttl == null || now - entry.storedAt <= ttl.toNanos())) {
+            entry.referenced = true;
+            hits.increment();
+            return entry.result;
+        }
+        misses.increment();
+
+        String normalized = normalize(table);
+        long generation = generation(normalized).get();
+        QueryResult result = executor.get();
+        if (!result.isFailed()) {
+            put(normalized, generation, key, result, ttl != null ? ttl : defaultTtl);
+        }
+        return result;
+    }
+
+    /**
+     * Drops every cached result of the table. Called after each write to it.
+     */
+    public void invalidate(String table) {
+        String normalized = normalize(table);
+        generation(normalized).incrementAndGet();
+        Set<Key> keys = tables.remove(normalized);
+        if (keys != null) {
+            keys.forEach(this::remove);
+        }
+        invalidations.increment();
+    }
+
+    public void clear() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        entries.keySet().forEach(this::remove);
+        tables.clear();
+    }
+
+    private void put(String table, long generation, Key key, QueryResult result, Duration ttl) {
+        long weight = weight(key, result);
+        if (weight > maximumBytes || ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+        long now = System.nanoTime();
+        Entry entry = new Entry(table, result, weight, now, now + ttl.toNanos());
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes.addAndGet(-previous.weight);
+        } else {
+            size.incrementAndGet();
+            clock.offer(key);
+        }
+        bytes.addAndGet(weight);
+        tables.computeIfAbsent(table, t -> ConcurrentHashMap.newKeySet()).add(key);
+        puts.increment();
+
+        // The table was written to while the SELECT ran, so the result may already be stale
+        if (generation(table).get() != generation) {
+            remove(key);
+        }
+        evict();
+    }
+
+    private void evict() {
+        while (size.get() > maximumSize || bytes.get() > maximumBytes) {
+            Key candidate = clock.poll();
+            if (candidate == null) {
+                return;
+            }
+            Entry entry = entries.get(candidate);
+            if (entry == null) {
+                continue;  // Already removed
+            }
+            if (entry.referenced && entry.expiresAt - System.nanoTime() > 0) {
+                entry.referenced = false;
+                clock.offer(candidate);
+            } else if (remove(candidate)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private boolean remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        size.decrementAndGet();
+        bytes.addAndGet(-entry.weight);
+        Set<Key> keys = tables.get(entry.table);
+        if (keys != null) {
+            keys.remove(key);
+        }
+        return true;
+    }
+
+    private AtomicLong generation(String table) {
+        return generations.computeIfAbsent(table, t -> new AtomicLong());
+    }
+
+    private String normalize(String table) {
+        if (table == null) {
+            return "";
+        }
+        return schemaCatalog != null ? schemaCatalog.qualifiedName(table) : SchemaCatalog.identifier(table);
+    }
+
+    private static long weight(Key key, QueryResult result) {
+        long weight = 64 + 2L * key.sql().length() + 16L * key.parameters().size();
+        for (Row row : result.getRows()) {
+            weight += row.estimatedSize();
+        }
+        return weight;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), puts.sum(), evictions.sum(), invalidations.sum(), size.get(), bytes.get());
+    }
+
+    public record Key(
+            String sql,
+            List<Object> parameters
+    ) {
+    }
+
+    /**
+     * Per-query cache controls.
+     *
+     * @param enabled whether the result may be served from and stored in the cache
+     * @param ttl     how long the result stays valid, or {@code null} for the default
+     */
+    public record Policy(
+            boolean enabled,
+            Duration ttl
+    ) {
+        public static final Policy DEFAULT = new Policy(true, null);
+    }
+
+    public record Stats(
+            long hitCount,
+            long missCount,
+            long putCount,
+            long evictionCount,
+            long invalidationCount,
+            int size,
+            long bytes
+    ) {
+        public double hitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1.0 : (double) hitCount / requests;
+        }
+    }
+
+    private static final class Entry {
+        private final String table;
+        private final QueryResult result;
+        private final long weight;
+        private final long storedAt;
+        private final long expiresAt;
+        private volatile boolean referenced;
+
+        private Entry(String table, QueryResult result, long weight, long storedAt, long expiresAt) {
+            this.table = table;
+            this.result = result;
+            this.weight = weight;
+            this.storedAt = storedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package pl.pwr.translator_app.config;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import pl.pwr.translator_app.admission.AdmissionControl;
+import pl.pwr.translator_app.admission.Bulkhead;
+import pl.pwr.translator_app.datasource.ReplicaRoutingDataSource;
+
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfiguration {
+
+    @Bean
+    public AdmissionControl admissionControl(AdmissionProperties properties,
+                                             Optional<ReplicaRoutingDataSource> replicaDataSource) {
+        if (!properties.enabled()) {
+            return AdmissionControl.DISABLED;
+        }
+        Map<String, Integer> weights = properties.weights() != null ? properties.weights() : Map.of();
+        ToIntFunction<String> weight = client -> weights.getOrDefault(client, 1);
+        Bulkhead primary = new Bulkhead("primary", properties.maxConcurrent(), properties.maxQueued(), weight);
+        Bulkhead replica = replicaDataSource.isPresent()
+                ? new Bulkhead("replica", properties.replicaMaxConcurrent(), properties.maxQueued(), weight)
+                : null;
+        return new AdmissionControl(primary, replica, properties.maxWait(), properties.clientHeader());
+    }
+
+    @Bean
+    public MeterBinder admissionMetrics(AdmissionControl admissionControl) {
+        return registry -> {
+            for (Bulkhead bulkhead : admissionControl.bulkheads()) {
+                Gauge.builder("translator.admission.queued", bulkhead, Bulkhead::queued)
+                        .description("Queries waiting for a permit")
+                        .tag("datasource", bulkhead.getName())
+                        .register(registry);
+                Gauge.builder("translator.admission.active", bulkhead, Bulkhead::active)
+                        .description("Queries holding a permit")
+                        .tag("datasource", bulkhead.getName())
+                        .register(registry);
+                FunctionCounter.builder("translator.admission.admitted", bulkhead, Bulkhead::admitted)
+                        .tag("datasource", bulkhead.getName())
+                        .register(registry);
+                for (Bulkhead.Rejection rejection : Bulkhead.Rejection.values()) {
+                    FunctionCounter.builder("translator.admission.rejections", bulkhead, b -> b.rejected(rejection))
+                            .tag("datasource", bulkhead.getName())
+                            .tag("reason", rejection.name().toLowerCase())
+                            .register(registry);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package pl.pwr.translator_app.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Limits of query execution per datasource, bound from {@code translator.admission.*}.
+ *
+ * @param maxConcurrent        permits of the primary, at most its connection pool size
+ * @param replicaMaxConcurrent permits of the read replicas together
+ * @param maxQueued            waiting queries per datasource beyond which new ones are rejected
+ * @param maxWait              how long a query may wait before it is rejected
+ * @param clientHeader         request header identifying the client
+ * @param weights              share of the permits per client key, 1 for unlisted clients
+ */
+@ConfigurationProperties("translator.admission")
+public record AdmissionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10") int maxConcurrent,
+        @DefaultValue("10") int replicaMaxConcurrent,
+        @DefaultValue("200") int maxQueued,
+        @DefaultValue("2s") Duration maxWait,
+        @DefaultValue("X-Client-Id") String clientHeader,
+        Map<String, Integer> weights
+) {
+}
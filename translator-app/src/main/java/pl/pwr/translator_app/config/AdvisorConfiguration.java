@@ -0,0 +1,33 @@
+package pl.pwr.translator_app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pl.pwr.translator_app.advisor.HypoPgPlanner;
+import pl.pwr.translator_app.advisor.IndexAdvisor;
+import pl.pwr.translator_app.advisor.WorkloadProfile;
+import pl.pwr.translator_app.guard.ExplainCostEstimator;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+
+@Configuration
+public class AdvisorConfiguration {
+
+    @Bean
+    public WorkloadProfile workloadProfile(SchemaCatalog schemaCatalog,
+                                           @Value("${translator.advisor.enabled:true}") boolean enabled) {
+        return enabled ? new WorkloadProfile(schemaCatalog) : WorkloadProfile.DISABLED;
+    }
+
+    @Bean
+    public IndexAdvisor indexAdvisor(WorkloadProfile workloadProfile, SchemaCatalog schemaCatalog,
+                                     JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                     @Value("${translator.advisor.min-queries:10}") long minQueries,
+                                     @Value("${translator.advisor.apply-enabled:false}") boolean applyEnabled) {
+        return new IndexAdvisor(workloadProfile, schemaCatalog, new ExplainCostEstimator(jdbcTemplate, objectMapper),
+                new HypoPgPlanner(jdbcTemplate, objectMapper), jdbcTemplate, minQueries, applyEnabled);
+    }
+}
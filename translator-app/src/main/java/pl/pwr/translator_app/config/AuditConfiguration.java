@@ -0,0 +1,51 @@
+package pl.pwr.translator_app.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import pl.pwr.translator_app.audit.AuditJournal;
+
+@Configuration
+public class AuditConfiguration {
+
+    @Bean
+    public AuditJournal auditJournal(@Value("${translator.audit.enabled:false}") boolean enabled,
+                                     @Value("${translator.audit.directory:audit-journal}") Path directory,
+                                     @Value("${translator.audit.segment-size:64MB}") DataSize segmentSize,
+                                     @Value("${translator.audit.max-segments:16}") int maxSegments,
+                                     @Value("${translator.audit.ring-size:16384}") int ringSize,
+                                     @Value("${translator.audit.force-interval:1s}") Duration forceInterval)
+            throws IOException {
+        if (!enabled) {
+            return AuditJournal.DISABLED;
+        }
+        return new AuditJournal(directory, Math.toIntExact(segmentSize.toBytes()), maxSegments, ringSize,
+                forceInterval);
+    }
+
+    @Bean
+    public MeterBinder auditJournalMetrics(AuditJournal auditJournal) {
+        return registry -> {
+            FunctionCounter.builder("translator.audit.statements", auditJournal, AuditJournal::written)
+                    .description("Statements passed to the audit journal")
+                    .tag("result", "written")
+                    .register(registry);
+            FunctionCounter.builder("translator.audit.statements", auditJournal, AuditJournal::dropped)
+                    .description("Statements passed to the audit journal")
+                    .tag("result", "dropped")
+                    .register(registry);
+            Gauge.builder("translator.audit.pending", auditJournal, AuditJournal::pending)
+                    .description("Statements waiting to be written to the audit journal")
+                    .register(registry);
+        };
+    }
+}
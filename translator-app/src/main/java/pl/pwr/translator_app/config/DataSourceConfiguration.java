@@ -0,0 +1,66 @@
+package pl.pwr.translator_app.config;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import pl.pwr.translator_app.datasource.ReplicaRoutingDataSource;
+
+/**
+ * Sends read-only transactions to the configured read replicas, everything else to the primary.
+ * <p>
+ * Only active when at least one replica is configured. The lazy proxy opens the physical connection at the
+ * first statement, after the transaction has marked it read-only, which is what selects the replica.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty("translator.datasource.replicas[0].url")
+public class DataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource, ReplicaProperties replicaProperties) {
+        List<ReplicaProperties.Replica> replicas = replicaProperties.replicas();
+        return new ReplicaRoutingDataSource(primaryDataSource,
+                IntStream.range(0, replicas.size()).mapToObj(i -> replica(primaryDataSource, replicas.get(i), i)).toList(),
+                replicaProperties.balancing(), replicaProperties.replicaRetryAfter());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    private static DataSource replica(HikariDataSource primary, ReplicaProperties.Replica replica, int index) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica-" + index);
+        dataSource.setJdbcUrl(replica.url());
+        dataSource.setUsername(replica.username() != null ? replica.username() : primary.getUsername());
+        dataSource.setPassword(replica.password() != null ? replica.password() : primary.getPassword());
+        dataSource.setDriverClassName(primary.getDriverClassName());
+        dataSource.setReadOnly(true);
+        // Binds parameters the same way as on the primary
+        dataSource.setDataSourceProperties(primary.getDataSourceProperties());
+        return dataSource;
+    }
+}
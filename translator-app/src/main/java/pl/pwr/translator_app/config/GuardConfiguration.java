@@ -0,0 +1,65 @@
+package pl.pwr.translator_app.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import pl.pwr.translator_app.admission.AdmissionControl;
+import pl.pwr.translator_app.admission.Bulkhead;
+import pl.pwr.translator_app.guard.CostGuard;
+import pl.pwr.translator_app.guard.ExplainCostEstimator;
+
+@Configuration
+@EnableConfigurationProperties(GuardProperties.class)
+public class GuardConfiguration {
+
+    @Bean
+    public CostGuard costGuard(GuardProperties properties, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                               AdmissionControl admissionControl) {
+        if (!properties.enabled()) {
+            return CostGuard.DISABLED;
+        }
+        Bulkhead queue = properties.action() == GuardProperties.Action.QUEUE
+                ? new Bulkhead("expensive", properties.queueMaxConcurrent(), properties.queueMaxQueued(), client -> 1)
+                : null;
+        return new CostGuard(new ExplainCostEstimator(jdbcTemplate, objectMapper), admissionControl,
+                properties.defaultLimit(), properties.maxCost(), properties.maxRows(), queue,
+                properties.queueMaxWait(), properties.maximumEstimates(), properties.estimateTtl());
+    }
+
+    @Bean
+    public MeterBinder costGuardMetrics(CostGuard costGuard) {
+        return registry -> {
+            for (CostGuard.Outcome outcome : CostGuard.Outcome.values()) {
+                FunctionCounter.builder("translator.guard.decisions", costGuard, guard -> guard.decisions(outcome))
+                        .description("SELECTs checked against their estimated cost")
+                        .tag("outcome", outcome.name().toLowerCase())
+                        .register(registry);
+            }
+            FunctionCounter.builder("translator.guard.estimates", costGuard, CostGuard::estimateHits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("translator.guard.estimates", costGuard, CostGuard::estimateMisses)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("translator.guard.estimates", costGuard, CostGuard::estimateFailures)
+                    .tag("result", "failure")
+                    .register(registry);
+            Bulkhead queue = costGuard.queue();
+            if (queue != null) {
+                Gauge.builder("translator.guard.queued", queue, Bulkhead::queued)
+                        .description("Expensive queries waiting for a permit")
+                        .register(registry);
+                Gauge.builder("translator.guard.active", queue, Bulkhead::active)
+                        .description("Expensive queries holding a permit")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package pl.pwr.translator_app.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Cost guard of SELECTs, bound from {@code translator.guard.*}.
+ *
+ * @param defaultLimit       limit added to SELECTs without one, 0 for none
+ * @param maxCost            highest planner cost executed right away, 0 for no bound
+ * @param maxRows            highest planner row estimate executed right away, 0 for no bound
+ * @param action             what happens to a query above a threshold
+ * @param queueMaxConcurrent queued queries executed at a time
+ * @param queueMaxQueued     queued queries waiting beyond which new ones are rejected
+ * @param queueMaxWait       how long a queued query may wait before it is rejected
+ * @param maximumEstimates   query shapes whose estimate is kept
+ * @param estimateTtl        how long an estimate is used before the shape is planned again
+ */
+@ConfigurationProperties("translator.guard")
+public record GuardProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1000") int defaultLimit,
+        @DefaultValue("100000") double maxCost,
+        @DefaultValue("100000") double maxRows,
+        @DefaultValue("QUEUE") Action action,
+        @DefaultValue("2") int queueMaxConcurrent,
+        @DefaultValue("20") int queueMaxQueued,
+        @DefaultValue("30s") Duration queueMaxWait,
+        @DefaultValue("1000") int maximumEstimates,
+        @DefaultValue("5m") Duration estimateTtl
+) {
+    public enum Action { REJECT, QUEUE }
+}
@@ -0,0 +1,25 @@
+package pl.pwr.translator_app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import pl.pwr.parser.QueryTranslator;
+import pl.pwr.translator_app.guard.CostGuard;
+import pl.pwr.translator_app.mapper.QueryMapper;
+import pl.pwr.translator_app.prepared.PreparedQueryRegistry;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+
+@Configuration
+public class PreparedQueryConfiguration {
+
+    @Bean
+    public PreparedQueryRegistry preparedQueryRegistry(QueryMapper queryMapper, QueryTranslator queryTranslator,
+                                                       SchemaCatalog schemaCatalog, CostGuard costGuard,
+                                                       @Value("${translator.prepared.maximum-queries:1000}") int maximumQueries,
+                                                       @Value("${translator.prepared.maximum-versions:5}") int maximumVersions,
+                                                       @Value("${translator.prepared.maximum-evicted:1000}") int maximumEvicted) {
+        return new PreparedQueryRegistry(queryMapper, queryTranslator, schemaCatalog, costGuard, maximumQueries,
+                maximumVersions, maximumEvicted);
+    }
+}
@@ -0,0 +1,26 @@
+package pl.pwr.translator_app.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import pl.pwr.translator_app.profiler.QueryProfiler;
+
+@Configuration
+public class ProfilerConfiguration {
+
+    @Bean
+    public QueryProfiler queryProfiler(@Value("${translator.profiler.enabled:true}") boolean enabled,
+                                       @Value("${translator.profiler.sample-rate:1.0}") double sampleRate,
+                                       @Value("${translator.profiler.slow-threshold:200ms}") Duration slowThreshold,
+                                       @Value("${translator.profiler.maximum-shapes:500}") int maximumShapes,
+                                       @Value("${translator.profiler.maximum-statements:10000}") int maximumStatements,
+                                       @Value("${translator.profiler.slow-samples:256}") int slowSamples) {
+        if (!enabled) {
+            return QueryProfiler.DISABLED;
+        }
+        return new QueryProfiler(sampleRate, slowThreshold.toNanos(), maximumShapes, maximumStatements, slowSamples);
+    }
+}
@@ -0,0 +1,60 @@
+package pl.pwr.translator_app.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import pl.pwr.translator_app.repository.ReactiveUserRepository;
+
+/**
+ * R2DBC connection pool of the reactive endpoint, connected to the same database as the JDBC datasource.
+ * <p>
+ * The R2DBC URL is derived from {@code spring.datasource.url} unless {@code translator.reactive.url} is set,
+ * the credentials are always those of the datasource. The pool is owned by the repository rather than exposed
+ * as a {@code ConnectionFactory} bean, which would make Spring Boot back off from configuring the datasource.
+ */
+@Configuration
+public class ReactiveConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public ReactiveUserRepository reactiveUserRepository(DataSourceProperties dataSourceProperties,
+                                                         @Value("${translator.reactive.url:}") String url,
+                                                         @Value("${translator.reactive.pool.max-size:10}") int maxSize,
+                                                         @Value("${translator.reactive.pool.max-acquire-time:5s}") Duration maxAcquireTime,
+                                                         @Value("${translator.stream.fetch-size:500}") int fetchSize) {
+        ConnectionFactoryOptions.Builder builder = ConnectionFactoryOptions.parse(url.isBlank() ? r2dbcUrl(dataSourceProperties.determineUrl()) : url)
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, dataSourceProperties.determineUsername());
+        // An empty spring.datasource.password is determined as null, which R2DBC rejects as an option value
+        if (dataSourceProperties.determinePassword() != null) {
+            builder.option(ConnectionFactoryOptions.PASSWORD, dataSourceProperties.determinePassword());
+        }
+        ConnectionFactoryOptions options = builder.build();
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("reactive")
+                .maxSize(maxSize)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+        return new ReactiveUserRepository(pool, fetchSize);
+    }
+
+    /**
+     * {@code jdbc:postgresql://host:port/db?options} becomes {@code r2dbc:postgresql://host:port/db}. The JDBC
+     * options are dropped, R2DBC doesn't understand most of them.
+     */
+    static String r2dbcUrl(String jdbcUrl) {
+        if (jdbcUrl == null || !jdbcUrl.startsWith("jdbc:")) {
+            throw new IllegalArgumentException("Cannot derive an R2DBC URL from " + jdbcUrl + ", set translator.reactive.url");
+        }
+        String url = "r2dbc:" + jdbcUrl.substring("jdbc:".length());
+        int options = url.indexOf('?');
+        return options >= 0 ? url.substring(0, options) : url;
+    }
+}
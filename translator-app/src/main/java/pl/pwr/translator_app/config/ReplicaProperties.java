@@ -0,0 +1,26 @@
+package pl.pwr.translator_app.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import pl.pwr.translator_app.datasource.ReplicaRoutingDataSource;
+
+/**
+ * Read replicas that read-only transactions are routed to, bound from {@code translator.datasource.*}.
+ */
+@ConfigurationProperties("translator.datasource")
+public record ReplicaProperties(
+        List<Replica> replicas,
+        @DefaultValue("ROUND_ROBIN") ReplicaRoutingDataSource.Balancing balancing,
+        @DefaultValue("5s") Duration replicaRetryAfter
+) {
+    public record Replica(
+            String url,
+            String username,
+            String password
+    ) {
+    }
+}
@@ -0,0 +1,53 @@
+package pl.pwr.translator_app.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import pl.pwr.translator_app.cache.ResultCache;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+
+@Configuration
+@ConditionalOnProperty("translator.result-cache.enabled")
+public class ResultCacheConfiguration {
+
+    @Bean
+    public ResultCache resultCache(@Value("${translator.result-cache.maximum-size:1000}") int maximumSize,
+                                   @Value("${translator.result-cache.maximum-bytes:64MB}") DataSize maximumBytes,
+                                   @Value("${translator.result-cache.ttl:30s}") Duration ttl,
+                                   SchemaCatalog schemaCatalog) {
+        return new ResultCache(maximumSize, maximumBytes.toBytes(), ttl, schemaCatalog);
+    }
+
+    @Bean
+    public MeterBinder resultCacheMetrics(ResultCache resultCache) {
+        return registry -> {
+            FunctionCounter.builder("translator.result.cache.gets", resultCache, cache -> cache.stats().hitCount())
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("translator.result.cache.gets", resultCache, cache -> cache.stats().missCount())
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("translator.result.cache.puts", resultCache, cache -> cache.stats().putCount())
+                    .register(registry);
+            FunctionCounter.builder("translator.result.cache.evictions", resultCache, cache -> cache.stats().evictionCount())
+                    .register(registry);
+            FunctionCounter.builder("translator.result.cache.invalidations", resultCache, cache -> cache.stats().invalidationCount())
+                    .register(registry);
+            Gauge.builder("translator.result.cache.hit.ratio", resultCache, cache -> cache.stats().hitRate())
+                    .register(registry);
+            Gauge.builder("translator.result.cache.size", resultCache, cache -> cache.stats().size())
+                    .register(registry);
+            Gauge.builder("translator.result.cache.bytes", resultCache, cache -> cache.stats().bytes())
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
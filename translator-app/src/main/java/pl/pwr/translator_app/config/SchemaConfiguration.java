@@ -0,0 +1,22 @@
+package pl.pwr.translator_app.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import pl.pwr.translator_app.schema.InformationSchemaLoader;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+
+@Configuration
+public class SchemaConfiguration {
+
+    @Bean
+    public SchemaCatalog schemaCatalog(JdbcTemplate jdbcTemplate,
+                                       @Value("${translator.schema.min-refresh-interval:10s}") Duration minRefreshInterval,
+                                       @Value("${translator.schema.validation.enabled:true}") boolean validation) {
+        return new SchemaCatalog(new InformationSchemaLoader(jdbcTemplate), minRefreshInterval, validation);
+    }
+}
@@ -0,0 +1,32 @@
+package pl.pwr.translator_app.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import io.micrometer.core.instrument.MeterRegistry;
+import pl.pwr.parser.QueryTranslator;
+import pl.pwr.parser.StatementCache;
+import pl.pwr.translator_app.metrics.QueryMetrics;
+
+@Configuration
+public class TranslatorConfiguration {
+
+    @Bean
+    public StatementCache statementCache(@Value("${translator.statement-cache.maximum-size:256}") int maximumSize) {
+        return new StatementCache(maximumSize);
+    }
+
+    @Bean
+    public QueryMetrics queryMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                                     @Value("${translator.metrics.enabled:true}") boolean enabled,
+                                     @Value("${translator.metrics.maximum-tables:100}") int maximumTables) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        return enabled && registry != null ? new QueryMetrics(registry, maximumTables) : QueryMetrics.DISABLED;
+    }
+
+    @Bean
+    public QueryTranslator queryTranslator(StatementCache statementCache, QueryMetrics queryMetrics) {
+        return new QueryTranslator(statementCache, queryMetrics.isEnabled() ? queryMetrics : null);
+    }
+}
@@ -0,0 +1,49 @@
+package pl.pwr.translator_app.config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pl.pwr.parser.QueryTranslator;
+
+/**
+ * Replays representative query shapes through the translator before the application reports ready,
+ * so the first requests after a deploy don't pay for ANTLR DFA construction and JIT compilation.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "translator.warm-up.enabled", havingValue = "true", matchIfMissing = true)
+public class TranslatorWarmUp implements ApplicationRunner {
+    private final QueryTranslator queryTranslator;
+
+    @Value("${translator.warm-up.queries:classpath:warmup-queries.jsonl}")
+    private Resource queries;
+
+    @Value("${translator.warm-up.iterations:500}")
+    private int iterations;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<String> shapes;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(queries.getInputStream(), StandardCharsets.UTF_8))) {
+            shapes = reader.lines().filter(line -> !line.isBlank()).toList();
+        }
+
+        long start = System.nanoTime();
+        queryTranslator.warmUp(shapes, iterations);
+        log.info("Translator warmed up with {} query shapes x {} iterations in {} ms",
+                shapes.size(), iterations, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,105 @@
+package pl.pwr.translator_app.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.AllArgsConstructor;
+import pl.pwr.translator_app.dto.ColumnarQueryResultDTO;
+import pl.pwr.translator_app.dto.QueryRequestDTO;
+import pl.pwr.translator_app.dto.QueryResultDTO;
+import pl.pwr.translator_app.prepared.PreparedQuery;
+import pl.pwr.translator_app.prepared.PreparedQueryRegistry;
+import pl.pwr.translator_app.service.UserService;
+
+/**
+ * Registers queries under an id and executes them with only their parameter values in the request.
+ */
+@RestController
+@RequestMapping("/users/prepared")
+@AllArgsConstructor
+public class PreparedQueryController {
+    private final PreparedQueryRegistry registry;
+    private final UserService userService;
+
+    /**
+     * Registers the query as the next version of the id, values written as {@code ":name"} are parameters.
+     */
+    @PutMapping("/{id}")
+    public PreparedQuery register(@PathVariable String id, @RequestBody(required = true) QueryRequestDTO query) {
+        try {
+            return registry.register(id, query);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lists the latest version of every registered query.
+     */
+    @GetMapping
+    public List<PreparedQuery> list() {
+        return registry.list();
+    }
+
+    /**
+     * Lists the kept versions of a registered query, oldest first.
+     */
+    @GetMapping("/{id}")
+    public List<PreparedQuery> versions(@PathVariable String id) {
+        List<PreparedQuery> versions = registry.versions(id);
+        if (versions.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown prepared query: " + id);
+        }
+        return versions;
+    }
+
+    /**
+     * Evicts one version of a registered query, or all of them without a version.
+     */
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void evict(@PathVariable String id, @RequestParam(required = false) Integer version) {
+        if (!registry.evict(id, version)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown prepared query: " + id);
+        }
+    }
+
+    /**
+     * Executes the latest or the given version of a registered query with the parameter values in the body,
+     * such as {@code {"email": "ann@example.com"}}.
+     */
+    @PostMapping("/{id}")
+    public QueryResultDTO execute(@PathVariable String id, @RequestParam(required = false) Integer version,
+                                  @RequestBody(required = false) Map<String, Object> parameters) {
+        return userService.queryUsers(prepared(id, version), parameters != null ? parameters : Map.of());
+    }
+
+    @PostMapping(value = "/{id}", produces = {ColumnarQueryResultDTO.MEDIA_TYPE, MediaType.APPLICATION_CBOR_VALUE,
+            ColumnarQueryResultDTO.SMILE_MEDIA_TYPE})
+    public ColumnarQueryResultDTO executeColumnar(@PathVariable String id, @RequestParam(required = false) Integer version,
+                                                  @RequestBody(required = false) Map<String, Object> parameters) {
+        return ColumnarQueryResultDTO.of(userService.queryUsers(prepared(id, version),
+                parameters != null ? parameters : Map.of()));
+    }
+
+    private PreparedQuery prepared(String id, Integer version) {
+        return registry.get(id, version).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                "Unknown prepared query: " + id + (version != null ? " version " + version : "")));
+    }
+}
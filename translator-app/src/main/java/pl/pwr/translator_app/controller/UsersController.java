@@ -1,21 +1,113 @@
 package pl.pwr.translator_app.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
+import pl.pwr.translator_app.domain.Row;
+import pl.pwr.translator_app.dto.ColumnarQueryResultDTO;
 import pl.pwr.translator_app.dto.QueryRequestDTO;
 import pl.pwr.translator_app.dto.QueryResultDTO;
+import pl.pwr.translator_app.service.BatchQueryService;
+import pl.pwr.translator_app.service.ReactiveQueryService;
+import pl.pwr.translator_app.service.StreamingQueryService;
 import pl.pwr.translator_app.service.UserService;
+import reactor.core.publisher.Flux;
 
 @RestController
 @AllArgsConstructor
 public class UsersController {
     private final UserService userService;
+    private final BatchQueryService batchQueryService;
+    private final StreamingQueryService streamingQueryService;
+    private final ReactiveQueryService reactiveQueryService;
 
     @PostMapping("/users")
     public QueryResultDTO executeQuery(@RequestBody(required = true) QueryRequestDTO queryRequest) {
         return userService.queryUsers(queryRequest);
     }
+
+    /**
+     * Same as {@code /users}, with the selected rows laid out by column in JSON, CBOR or Smile
+     */
+    @PostMapping(value = "/users", produces = {ColumnarQueryResultDTO.MEDIA_TYPE, MediaType.APPLICATION_CBOR_VALUE,
+            ColumnarQueryResultDTO.SMILE_MEDIA_TYPE})
+    public ColumnarQueryResultDTO executeColumnarQuery(@RequestBody(required = true) QueryRequestDTO queryRequest) {
+        return ColumnarQueryResultDTO.of(userService.queryUsers(queryRequest));
+    }
+
+    /**
+     * Same as {@code /users}, but the request body is handed to the translator as raw bytes instead of
+     * being bound to a DTO first.
+     */
+    @PostMapping(value = "/users/raw", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public QueryResultDTO executeRawQuery(@RequestBody(required = true) byte[] body) {
+        return userService.queryUsers(body);
+    }
+
+    @PostMapping(value = "/users/raw", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {ColumnarQueryResultDTO.MEDIA_TYPE, MediaType.APPLICATION_CBOR_VALUE,
+                    ColumnarQueryResultDTO.SMILE_MEDIA_TYPE})
+    public ColumnarQueryResultDTO executeColumnarRawQuery(@RequestBody(required = true) byte[] body) {
+        return ColumnarQueryResultDTO.of(userService.queryUsers(body));
+    }
+
+    /**
+     * Executes a newline-delimited stream of queries in order and streams one result line back per query.
+     *
+     * @param atomic roll the whole batch back on the first failure, instead of only the failing query
+     */
+    @PostMapping(value = "/users/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void executeBatch(InputStream body, HttpServletResponse response,
+                             @RequestParam(defaultValue = "false") boolean atomic) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        batchQueryService.queryUsers(body, response.getOutputStream(), atomic);
+    }
+
+    /**
+     * Executes a SELECT query and streams the selected users back while they are read, as a JSON array or,
+     * when the client accepts {@code application/x-ndjson}, as one user per line.
+     */
+    @PostMapping(value = "/users/stream", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public void streamQuery(@RequestBody(required = true) QueryRequestDTO queryRequest,
+                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                            HttpServletResponse response) throws IOException {
+        StreamingQueryService.Prepared prepared;
+        try {
+            prepared = streamingQueryService.prepare(queryRequest);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+
+        boolean ndjson = accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setContentType(ndjson ? MediaType.APPLICATION_NDJSON_VALUE : MediaType.APPLICATION_JSON_VALUE);
+        streamingQueryService.streamUsers(prepared, response.getOutputStream(), ndjson);
+    }
+
+    /**
+     * Executes a SELECT query over R2DBC and returns the selected users as a stream with one user per line.
+     * Each row is only fetched once the previous one has been written, so a slow client slows the query down
+     * instead of the rows piling up in memory.
+     */
+    @PostMapping(value = "/users/reactive", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Row> reactiveQuery(@RequestBody(required = true) QueryRequestDTO queryRequest) {
+        StreamingQueryService.Prepared prepared;
+        try {
+            prepared = streamingQueryService.prepare(queryRequest);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return reactiveQueryService.queryUsers(prepared);
+    }
 }
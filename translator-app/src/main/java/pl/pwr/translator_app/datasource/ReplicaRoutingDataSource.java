@@ -0,0 +1,99 @@
+package pl.pwr.translator_app.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands out connections to read replicas, picking one per connection request according to the balancing
+ * policy. A replica that cannot be connected to is skipped until {@code retryAfter} has passed, and the primary
+ * is used when none is available.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    public enum Balancing { ROUND_ROBIN, RANDOM }
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final Balancing balancing;
+    private final long retryAfter;
+    private final AtomicInteger next = new AtomicInteger();
+    /** {@link System#nanoTime()} until which each replica is skipped, 0 while it is available */
+    private final AtomicLongArray unavailableUntil;
+
+    /**
+     * @param retryAfter how long a replica that could not be connected to is skipped
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Balancing balancing,
+                                    Duration retryAfter) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.balancing = balancing;
+        this.retryAfter = retryAfter.toNanos();
+        this.unavailableUntil = new AtomicLongArray(replicas.size());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int start = first();
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = (start + i) % replicas.size();
+            long until = unavailableUntil.get(replica);
+            if (until != 0 && System.nanoTime() - until < 0) {
+                continue;
+            }
+            try {
+                Connection connection = replicas.get(replica).getConnection();
+                unavailableUntil.set(replica, 0);
+                return connection;
+            } catch (SQLException e) {
+                unavailableUntil.set(replica, System.nanoTime() + retryAfter);
+                log.warn("Read replica {} is unavailable, skipping it for {} ms: {}", replica,
+                        TimeUnit.NANOSECONDS.toMillis(retryAfter), e.getMessage());
+            }
+        }
+        log.debug("No read replica is available, reading from the primary");
+        return primary.getConnection();
+    }
+
+    /**
+     * Connects to the primary as the given user. The replica pools always connect with their own credentials.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Closes the replica pools. The primary is managed by its own bean.
+     */
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private int first() {
+        if (replicas.isEmpty()) {
+            return 0;
+        }
+        return switch (balancing) {
+            case ROUND_ROBIN -> Math.floorMod(next.getAndIncrement(), replicas.size());
+            case RANDOM -> ThreadLocalRandom.current().nextInt(replicas.size());
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package pl.pwr.translator_app.domain;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * A selected row holding only the projected columns, serialized as a JSON object with camel case property
+ * names ({@code first_name} becomes {@code firstName}). The column names are shared by every row of a result.
+ */
+@JsonSerialize(using = Row.Serializer.class)
+public final class Row {
+    private final Columns columns;
+    private final Object[] values;
+
+    public Row(Columns columns, Object[] values) {
+        this.columns = columns;
+        this.values = values;
+    }
+
+    public Columns columns() {
+        return columns;
+    }
+
+    /**
+     * @param index the position of the column in {@link #columns()}
+     */
+    public Object value(int index) {
+        return values[index];
+    }
+
+    /**
+     * @param columns the leading columns of this row
+     * @return a row holding only the values of these columns
+     */
+    public Row project(Columns columns) {
+        return new Row(columns, Arrays.copyOf(values, columns.size()));
+    }
+
+    public boolean has(String column) {
+        return columns.indexOf(column) >= 0;
+    }
+
+    /**
+     * @param column the column label as returned by the database
+     * @return the value, or {@code null} if the column was not selected
+     */
+    public Object get(String column) {
+        int index = columns.indexOf(column);
+        return index >= 0 ? values[index] : null;
+    }
+
+    /**
+     * Rough heap footprint of the row, used to bound caches of results.
+     */
+    public long estimatedSize() {
+        long size = 32 + 8L * values.length;
+        for (Object value : values) {
+            if (value instanceof String string) {
+                size += 40 + string.length();
+            } else if (value != null) {
+                size += 24;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return columns.names + "=" + Arrays.toString(values);
+    }
+
+    public static final class Columns {
+        private final List<String> names;
+        private final SerializedString[] properties;
+
+        public Columns(List<String> names) {
+            this.names = List.copyOf(names);
+            this.properties = names.stream()
+                    .map(name -> new SerializedString(property(name)))
+                    .toArray(SerializedString[]::new);
+        }
+
+        public int size() {
+            return names.size();
+        }
+
+        /**
+         * @return the first {@code count} columns
+         */
+        public Columns first(int count) {
+            return new Columns(names.subList(0, count));
+        }
+
+        /**
+         * @return the JSON property name of the column at the index
+         */
+        public String property(int index) {
+            return properties[index].getValue();
+        }
+
+        private int indexOf(String column) {
+            return names.indexOf(column);
+        }
+
+        private static String property(String column) {
+            StringBuilder property = new StringBuilder(column.length());
+            boolean upper = false;
+            for (char c : column.toCharArray()) {
+                if (c == '_') {
+                    upper = !property.isEmpty();
+                } else {
+                    property.append(upper ? Character.toUpperCase(c) : c);
+                    upper = false;
+                }
+            }
+            return property.toString();
+        }
+    }
+
+    public static final class Serializer extends StdSerializer<Row> {
+        public Serializer() {
+            super(Row.class);
+        }
+
+        @Override
+        public void serialize(Row row, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(row);
+            SerializedString[] properties = row.columns.properties;
+            for (int i = 0; i < properties.length; i++) {
+                generator.writeFieldName(properties[i]);
+                provider.defaultSerializeValue(row.values[i], generator);
+            }
+            generator.writeEndObject();
+        }
+    }
+}
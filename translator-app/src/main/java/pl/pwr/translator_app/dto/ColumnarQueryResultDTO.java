@@ -0,0 +1,35 @@
+package pl.pwr.translator_app.dto;
+
+import lombok.Data;
+import pl.pwr.translator_app.guard.CostGuard;
+import pl.pwr.translator_app.result.ColumnarResult;
+
+/**
+ * Query result with the rows laid out by column, sent for the {@link #MEDIA_TYPE}, CBOR and Smile. Unlike
+ * {@link QueryResultDTO} it doesn't echo the translated SQL.
+ */
+@Data
+public class ColumnarQueryResultDTO {
+    public static final String MEDIA_TYPE = "application/vnd.translator.columnar+json";
+    public static final String SMILE_MEDIA_TYPE = "application/x-jackson-smile";
+
+    private boolean successful;
+    private String operation;
+    private String message;
+    private int rowsAffected;
+    private ColumnarResult results;
+    private String nextCursor;
+    private CostGuard.Decision guard;
+
+    public static ColumnarQueryResultDTO of(QueryResultDTO result) {
+        ColumnarQueryResultDTO columnar = new ColumnarQueryResultDTO();
+        columnar.setSuccessful(result.isSuccessful());
+        columnar.setOperation(result.getOperation());
+        columnar.setMessage(result.getMessage());
+        columnar.setRowsAffected(result.getRowsAffected());
+        columnar.setResults(ColumnarResult.of(result.getResults()));
+        columnar.setNextCursor(result.getNextCursor());
+        columnar.setGuard(result.getGuard());
+        return columnar;
+    }
+}
@@ -15,6 +15,10 @@ public class QueryRequestDTO {
     private List<OrderBy> orderBy;
     private List<String> groupBy;
     private Integer limit;
+    private String cursor;  // nextCursor of the previous page
+    private Boolean paginate;  // true asks for the nextCursor of the first page
+    private Boolean cache;  // false bypasses the result cache
+    private Integer cacheTtl;  // seconds
 
     @Data
     public static class Condition {
@@ -27,5 +31,6 @@ public class QueryRequestDTO {
     public static class OrderBy {
         private String column;
         private String direction;  // ASC, DESC
+        private String nulls;  // FIRST, LAST, required to page on a nullable column
     }
 }
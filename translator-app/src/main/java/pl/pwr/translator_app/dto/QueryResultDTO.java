@@ -3,7 +3,8 @@ package pl.pwr.translator_app.dto;
 import java.util.List;
 
 import lombok.Data;
-import pl.pwr.translator_app.domain.User;
+import pl.pwr.translator_app.domain.Row;
+import pl.pwr.translator_app.guard.CostGuard;
 
 @Data
 public class QueryResultDTO {
@@ -12,5 +13,7 @@ public class QueryResultDTO {
     private String message;
     private String query;
     private int rowsAffected;
-    private List<User> results;
+    private List<Row> results;
+    private String nextCursor;
+    private CostGuard.Decision guard;
 } 
\ No newline at end of file
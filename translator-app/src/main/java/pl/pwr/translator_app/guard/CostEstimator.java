@@ -0,0 +1,22 @@
+package pl.pwr.translator_app.guard;
+
+import pl.pwr.query.SqlStatement;
+
+/**
+ * Estimates what executing a statement costs, without executing it.
+ */
+@FunctionalInterface
+public interface CostEstimator {
+
+    /**
+     * @param cost the planner's total cost, in its arbitrary units
+     * @param rows the rows the statement is expected to return
+     */
+    record Estimate(double cost, double rows) {
+    }
+
+    /**
+     * @throws RuntimeException if the statement can't be planned
+     */
+    Estimate estimate(SqlStatement statement);
+}
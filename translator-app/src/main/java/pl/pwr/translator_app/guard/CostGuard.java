@@ -0,0 +1,218 @@
+package pl.pwr.translator_app.guard;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.admission.AdmissionControl;
+import pl.pwr.translator_app.admission.AdmissionRejectedException;
+import pl.pwr.translator_app.admission.Bulkhead;
+
+/**
+ * Checks SELECTs against the planner's estimate before they are executed.
+ * <p>
+ * A SELECT without a limit gets the default one. Estimates are kept per translated SQL and limit, so every
+ * query shape is planned with the other bind values it was first seen with, and planned again once its estimate
+ * is older than the TTL to follow the tables growing. The limit is bound like any value, but it bounds the rows
+ * and often the cost, so a shape sent with a larger limit is planned again. A query estimated above the cost or
+ * row threshold is either rejected or queued behind a bulkhead of its own, so expensive queries can't take every
+ * connection. A query that can't be planned is let through, executing it reports the error.
+ */
+@Slf4j
+public class CostGuard {
+    public static final CostGuard DISABLED = new CostGuard(null, AdmissionControl.DISABLED, 0, 0, 0, null,
+            Duration.ZERO, 1, Duration.ZERO);
+
+    public enum Outcome { ALLOWED, LIMITED, QUEUED, REJECTED }
+
+    /**
+     * @param outcome       {@link Outcome#LIMITED} if the default limit was added and nothing else happened
+     * @param estimatedCost the planner's total cost, {@code null} if the query couldn't be planned
+     * @param estimatedRows the rows the planner expects, {@code null} if the query couldn't be planned
+     * @param defaultLimit  the limit added to the query, {@code null} if it had one
+     * @param reason        the exceeded threshold of a queued or rejected query
+     */
+    public record Decision(Outcome outcome, Double estimatedCost, Double estimatedRows, Integer defaultLimit,
+                           String reason) {
+    }
+
+    private record Shape(String sql, Integer limit) {
+    }
+
+    private record Entry(CostEstimator.Estimate estimate, long estimatedAt) {
+    }
+
+    private final CostEstimator estimator;
+    private final AdmissionControl admissionControl;
+    private final int defaultLimit;
+    private final double maxCost;
+    private final double maxRows;
+    private final Bulkhead queue;
+    private final Duration queueMaxWait;
+    private final int maximumEstimates;
+    private final long estimateTtl;
+
+    private final Map<Shape, Entry> estimates = new ConcurrentHashMap<>();
+    private final Map<Outcome, LongAdder> decisions = new EnumMap<>(Outcome.class);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * @param estimator        plans the queries, {@code null} to let every query through unchanged
+     * @param admissionControl admits the planning and the queued queries
+     * @param defaultLimit     limit of SELECTs without one, 0 for none
+     * @param maxCost          highest estimated cost executed right away, 0 for no bound
+     * @param maxRows          highest estimated row count executed right away, 0 for no bound
+     * @param queue            bulkhead queries above a threshold wait for, {@code null} to reject them
+     * @param queueMaxWait     how long a query may wait for the queue
+     * @param maximumEstimates query shapes whose estimate is kept
+     * @param estimateTtl      how long an estimate is used before the shape is planned again
+     */
+    public CostGuard(CostEstimator estimator, AdmissionControl admissionControl, int defaultLimit, double maxCost,
+                     double maxRows, Bulkhead queue, Duration queueMaxWait, int maximumEstimates, Duration estimateTtl) {
+        this.estimator = estimator;
+        this.admissionControl = admissionControl;
+        this.defaultLimit = defaultLimit;
+        this.maxCost = maxCost;
+        this.maxRows = maxRows;
+        this.queue = queue;
+        this.queueMaxWait = queueMaxWait;
+        this.maximumEstimates = maximumEstimates;
+        this.estimateTtl = estimateTtl.toNanos();
+        for (Outcome outcome : Outcome.values()) {
+            decisions.put(outcome, new LongAdder());
+        }
+    }
+
+    /**
+     * @return the query with the default limit if it is a SELECT without a limit, otherwise the query itself
+     */
+    public Query withDefaultLimit(Query query) {
+        if (estimator == null || defaultLimit <= 0 || query.limit() != null || query.queryType() == null
+                || !"SELECT".equalsIgnoreCase(query.queryType())) {
+            return query;
+        }
+        return new Query(query.queryType(), query.table(), query.columns(), query.values(), query.conditions(),
+                query.orderBy(), query.groupBy(), defaultLimit, query.after());
+    }
+
+    /**
+     * Decide how to execute a SELECT, planning it unless its shape has a fresh estimate.
+     *
+     * @param query     the SELECT
+     * @param statement its translation
+     * @param limited   whether the query got the default limit
+     * @return the decision, or {@code null} if the guard is disabled
+     * @throws AdmissionRejectedException if planning the query was shed
+     */
+    public Decision check(Query query, SqlStatement statement, boolean limited) {
+        if (estimator == null) {
+            return null;
+        }
+        CostEstimator.Estimate estimate = estimate(new Shape(statement.sql(), query.limit()), statement);
+        String exceeded = estimate != null ? exceeded(estimate) : null;
+        Outcome outcome = exceeded != null ? (queue != null ? Outcome.QUEUED : Outcome.REJECTED)
+                : limited ? Outcome.LIMITED : Outcome.ALLOWED;
+        decisions.get(outcome).increment();
+        return new Decision(outcome, estimate != null ? estimate.cost() : null, estimate != null ? estimate.rows() : null,
+                limited ? defaultLimit : null, exceeded);
+    }
+
+    /**
+     * Run the work of a checked query, after waiting for the queue if the query was queued.
+     *
+     * @throws AdmissionRejectedException if the queued query was shed
+     */
+    public <T, E extends Exception> T execute(Decision decision, AdmissionControl.Work<T, E> work) throws E {
+        if (decision == null || decision.outcome() != Outcome.QUEUED) {
+            return work.run();
+        }
+        return admissionControl.execute(queue, queueMaxWait, work);
+    }
+
+    /**
+     * Wait for the queue if the query was queued, for work that outlives the calling method.
+     *
+     * @return releases the queue permit, to be run once the work is done
+     * @throws AdmissionRejectedException if the queued query was shed
+     */
+    public Runnable admit(Decision decision) {
+        if (decision == null || decision.outcome() != Outcome.QUEUED) {
+            return () -> {
+            };
+        }
+        return admissionControl.admit(queue, queueMaxWait);
+    }
+
+    private CostEstimator.Estimate estimate(Shape shape, SqlStatement statement) {
+        long now = System.nanoTime();
+        Entry entry = estimates.get(shape);
+        if (entry != null && now - entry.estimatedAt() < estimateTtl) {
+            hits.increment();
+            return entry.estimate();
+        }
+
+        CostEstimator.Estimate estimate;
+        try {
+            // Planned outside of a read-only transaction, so on the primary
+            estimate = admissionControl.execute(false, () -> estimator.estimate(statement));
+        } catch (AdmissionRejectedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Could not estimate the cost of {}: {}", statement.sql(), e.getMessage());
+            return null;
+        }
+        misses.increment();
+        if (entry == null && estimates.size() >= maximumEstimates) {
+            // Shapes are few compared to queries, so dropping any of them when full is good enough
+            Iterator<Shape> shapes = estimates.keySet().iterator();
+            if (shapes.hasNext()) {
+                shapes.next();
+                shapes.remove();
+            }
+        }
+        estimates.put(shape, new Entry(estimate, now));
+        return estimate;
+    }
+
+    private String exceeded(CostEstimator.Estimate estimate) {
+        if (maxCost > 0 && estimate.cost() > maxCost) {
+            return String.format("Estimated cost %.0f exceeds %.0f", estimate.cost(), maxCost);
+        }
+        if (maxRows > 0 && estimate.rows() > maxRows) {
+            return String.format("Estimated %.0f rows exceed %.0f", estimate.rows(), maxRows);
+        }
+        return null;
+    }
+
+    /**
+     * @return the bulkhead of queued queries, or {@code null} if they are rejected
+     */
+    public Bulkhead queue() {
+        return queue;
+    }
+
+    public long decisions(Outcome outcome) {
+        return decisions.get(outcome).sum();
+    }
+
+    public long estimateHits() {
+        return hits.sum();
+    }
+
+    public long estimateMisses() {
+        return misses.sum();
+    }
+
+    public long estimateFailures() {
+        return failures.sum();
+    }
+}
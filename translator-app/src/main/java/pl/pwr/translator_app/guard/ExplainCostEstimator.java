@@ -0,0 +1,37 @@
+package pl.pwr.translator_app.guard;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import pl.pwr.query.SqlStatement;
+
+/**
+ * Reads the estimate of the top plan node from {@code EXPLAIN (FORMAT JSON)}, which plans the statement with
+ * its bind values but doesn't execute it.
+ */
+@RequiredArgsConstructor
+public class ExplainCostEstimator implements CostEstimator {
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Estimate estimate(SqlStatement statement) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + statement.sql(), String.class,
+                statement.parameters().toArray());
+        try {
+            JsonNode top = objectMapper.readTree(plan).path(0).path("Plan");
+            if (!top.has("Total Cost") || !top.has("Plan Rows")) {
+                throw new IllegalStateException("Plan without an estimate: " + plan);
+            }
+            return new Estimate(top.get("Total Cost").asDouble(), top.get("Plan Rows").asDouble());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
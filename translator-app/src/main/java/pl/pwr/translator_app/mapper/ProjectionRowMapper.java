@@ -0,0 +1,65 @@
+package pl.pwr.translator_app.mapper;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import pl.pwr.translator_app.domain.Row;
+import pl.pwr.translator_app.schema.ColumnReader;
+import pl.pwr.translator_app.schema.TableSchema;
+
+/**
+ * Maps JDBC rows straight to {@link Row}s holding the selected columns only, without managed entities.
+ * <p>
+ * The columns are resolved from the first row and shared by all rows, so an instance must only be used for a
+ * single result set. Columns of the queried table are read with the readers of the {@link TableSchema}, a
+ * {@code SELECT *} reuses the columns resolved when the table was loaded.
+ */
+public class ProjectionRowMapper implements RowMapper<Row> {
+    private final TableSchema table;
+    private Row.Columns columns;
+    private ColumnReader[] readers;
+
+    public ProjectionRowMapper() {
+        this(null);
+    }
+
+    /**
+     * @param table the queried table, or {@code null} to read every column with {@link ResultSet#getObject(int)}
+     */
+    public ProjectionRowMapper(TableSchema table) {
+        this.table = table;
+    }
+
+    @Override
+    public Row mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        if (columns == null) {
+            resolve(resultSet.getMetaData());
+        }
+        Object[] values = new Object[readers.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readers[i].read(resultSet, i + 1);
+        }
+        return new Row(columns, values);
+    }
+
+    private void resolve(ResultSetMetaData metaData) throws SQLException {
+        List<String> names = new ArrayList<>(metaData.getColumnCount());
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            names.add(metaData.getColumnLabel(column));
+        }
+        if (table != null && table.isAllColumns(names)) {
+            columns = table.allColumns();
+            readers = table.allReaders();
+            return;
+        }
+        columns = new Row.Columns(names);
+        readers = names.stream()
+                .map(name -> table != null ? table.reader(name) : ColumnReader.OBJECT)
+                .toArray(ColumnReader[]::new);
+    }
+}
@@ -0,0 +1,64 @@
+package pl.pwr.translator_app.mapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+import pl.pwr.query.Condition;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
+import pl.pwr.translator_app.dto.QueryRequestDTO;
+
+@Component
+public class QueryMapper {
+
+    public Query map(QueryRequestDTO request) {
+        return new Query(
+                request.getQueryType(),
+                request.getTable(),
+                request.getColumns(),
+                mapValues(request.getValues()),
+                mapConditions(request.getConditions()),
+                mapOrderBy(request.getOrderBy()),
+                request.getGroupBy(),
+                request.getLimit()
+        );
+    }
+
+    private List<Map<String, Object>> mapValues(List<Map<String, String>> values) {
+        if (values == null) return null;
+
+        return values.stream()
+                .map(row -> row != null ? new LinkedHashMap<String, Object>(row) : null)
+                .collect(Collectors.toList());
+    }
+
+    private List<Condition> mapConditions(List<QueryRequestDTO.Condition> conditions) {
+        if (conditions == null) return null;
+
+        return conditions.stream()
+                .map(condition -> condition != null
+                        ? new Condition(condition.getColumn(), condition.getOperator(), condition.getValue())
+                        : null)
+                .collect(Collectors.toList());
+    }
+
+    private List<OrderBy> mapOrderBy(List<QueryRequestDTO.OrderBy> orderBy) {
+        if (orderBy == null) return null;
+
+        return orderBy.stream()
+                .map(order -> order != null
+                        ? new OrderBy(order.getColumn(), order.getDirection(), nulls(order.getNulls()))
+                        : null)
+                .collect(Collectors.toList());
+    }
+
+    private String nulls(String nulls) {
+        if (nulls != null && !"FIRST".equalsIgnoreCase(nulls) && !"LAST".equalsIgnoreCase(nulls)) {
+            throw new IllegalArgumentException("Invalid nulls placement: " + nulls);
+        }
+        return nulls;
+    }
+}
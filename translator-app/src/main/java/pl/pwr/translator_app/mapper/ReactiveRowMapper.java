@@ -0,0 +1,39 @@
+package pl.pwr.translator_app.mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.RowMetadata;
+import pl.pwr.translator_app.domain.Row;
+
+/**
+ * Maps R2DBC rows to {@link Row}s, the reactive counterpart of {@link ProjectionRowMapper}.
+ * <p>
+ * The columns are resolved from the first row and shared by all rows, so an instance must only be used for a
+ * single result.
+ */
+public class ReactiveRowMapper implements BiFunction<io.r2dbc.spi.Row, RowMetadata, Row> {
+    private Row.Columns columns;
+
+    @Override
+    public Row apply(io.r2dbc.spi.Row row, RowMetadata metadata) {
+        if (columns == null) {
+            columns = columns(metadata);
+        }
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = row.get(i);
+        }
+        return new Row(columns, values);
+    }
+
+    private static Row.Columns columns(RowMetadata metadata) {
+        List<String> names = new ArrayList<>();
+        for (ColumnMetadata column : metadata.getColumnMetadatas()) {
+            names.add(column.getName());
+        }
+        return new Row.Columns(names);
+    }
+}
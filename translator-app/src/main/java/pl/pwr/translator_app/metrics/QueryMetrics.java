@@ -0,0 +1,175 @@
+package pl.pwr.translator_app.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import pl.pwr.parser.TranslationListener;
+import pl.pwr.query.Query;
+
+/**
+ * Meters of the query pipeline, tagged by query type and table:
+ * <ul>
+ *     <li>{@code translator.stage}: time per stage, from reading the request to executing the statements</li>
+ *     <li>{@code translator.query}: time from the typed query to the response, tagged by outcome</li>
+ *     <li>{@code translator.query.rows}: rows returned by SELECTs</li>
+ *     <li>{@code translator.query.errors}: failed queries by the stage that failed</li>
+ *     <li>{@code translator.query.rejections}: queries shed by admission control or the cost guard queue, by reason</li>
+ * </ul>
+ * Tables are client input, so only the first {@code maximumTables} distinct tables get their own tag value.
+ * <p>
+ * The {@link #DISABLED} instance measures nothing, {@link #start()} doesn't even read the clock.
+ */
+public class QueryMetrics implements TranslationListener {
+    public static final QueryMetrics DISABLED = new QueryMetrics(null, 0);
+
+    public enum Stage {
+        /** Mapping a request DTO to the query, including the cursor */
+        MAP,
+        /** Reading the query from the raw request body */
+        READ,
+        /** Binding the parameter values of a registered query */
+        BIND,
+        /** Translating the query to SQL */
+        TRANSLATE,
+        /** Executing the statements and mapping the rows */
+        EXECUTE
+    }
+
+    private static final String OTHER = "other";
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry registry;
+    private final int maximumTables;
+    private final Set<String> tables = ConcurrentHashMap.newKeySet();
+    private final Map<MeterKey, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Timer> queryTimers = new ConcurrentHashMap<>();
+    private final Map<MeterKey, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Counter> errorCounters = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Counter> rejectionCounters = new ConcurrentHashMap<>();
+
+    private record MeterKey(String name, String type, String table) {
+    }
+
+    public QueryMetrics(MeterRegistry registry, int maximumTables) {
+        this.registry = registry;
+        this.maximumTables = maximumTables;
+    }
+
+    public boolean isEnabled() {
+        return registry != null;
+    }
+
+    /**
+     * @return the start time to pass to the other methods
+     */
+    public long start() {
+        return registry != null ? System.nanoTime() : 0;
+    }
+
+    public void stage(Stage stage, Query query, long start) {
+        if (registry != null) {
+            record(name(stage), query, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void onStage(TranslationListener.Stage stage, Query query, long nanos) {
+        record(stage.name().toLowerCase(Locale.ROOT), query, nanos);
+    }
+
+    private void record(String stage, Query query, long nanos) {
+        MeterKey key = new MeterKey(stage, type(query), table(query));
+        stageTimers.computeIfAbsent(key, k -> Timer.builder("translator.stage")
+                        .description("Time spent in one stage of the query pipeline")
+                        .tags("stage", k.name(), "type", k.type(), "table", k.table())
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void query(Query query, long start, boolean failed) {
+        if (registry == null) {
+            return;
+        }
+        MeterKey key = new MeterKey(failed ? "error" : "success", type(query), table(query));
+        queryTimers.computeIfAbsent(key, k -> Timer.builder("translator.query")
+                        .description("Time from the typed query to the response")
+                        .tags("outcome", k.name(), "type", k.type(), "table", k.table())
+                        .register(registry))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    public void rows(Query query, int rows) {
+        if (registry == null) {
+            return;
+        }
+        rowSummaries.computeIfAbsent(new MeterKey("rows", type(query), table(query)), k -> DistributionSummary
+                        .builder("translator.query.rows")
+                        .description("Rows returned by a query")
+                        .tags("type", k.type(), "table", k.table())
+                        .register(registry))
+                .record(rows);
+    }
+
+    /**
+     * @param query the failed query, or {@code null} if it could not be read
+     */
+    public void error(Stage stage, Query query) {
+        if (registry == null) {
+            return;
+        }
+        errorCounters.computeIfAbsent(new MeterKey(name(stage), type(query), table(query)), k -> Counter
+                        .builder("translator.query.errors")
+                        .description("Queries that failed, by the failing stage")
+                        .tags("stage", k.name(), "type", k.type(), "table", k.table())
+                        .register(registry))
+                .increment();
+    }
+
+    /**
+     * @param query  the shed query
+     * @param reason why it was shed, like {@code queue_full} or {@code timeout}
+     */
+    public void rejected(Query query, String reason) {
+        if (registry == null) {
+            return;
+        }
+        rejectionCounters.computeIfAbsent(new MeterKey(reason, type(query), table(query)), k -> Counter
+                        .builder("translator.query.rejections")
+                        .description("Queries shed instead of executed, by reason")
+                        .tags("reason", k.name(), "type", k.type(), "table", k.table())
+                        .register(registry))
+                .increment();
+    }
+
+    private static String name(Stage stage) {
+        return stage.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String type(Query query) {
+        return query != null && query.queryType() != null ? query.queryType().toUpperCase(Locale.ROOT) : UNKNOWN;
+    }
+
+    private String table(Query query) {
+        if (query == null || query.table() == null) {
+            return UNKNOWN;
+        }
+        String table = query.table().toLowerCase(Locale.ROOT);
+        if (tables.contains(table)) {
+            return table;
+        }
+        synchronized (tables) {
+            if (tables.size() < maximumTables) {
+                tables.add(table);
+                return table;
+            }
+        }
+        return OTHER;
+    }
+}
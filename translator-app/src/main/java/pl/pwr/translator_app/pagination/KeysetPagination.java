@@ -0,0 +1,287 @@
+package pl.pwr.translator_app.pagination;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
+import pl.pwr.translator_app.domain.Row;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+import pl.pwr.translator_app.schema.TableSchema;
+
+/**
+ * Cursor based paging for SELECT queries that have both {@code orderBy} and {@code limit}. A query is only paged
+ * when the request sends a cursor or asks for one, so ordering and limiting a query alone never changes its result.
+ * <p>
+ * Every full page comes with an opaque cursor holding the exact text of the sort key values of its last row, read
+ * back as the type of each column. Sending the cursor back turns them into a seek predicate, so later pages are
+ * found through the index instead of skipping rows with OFFSET. The primary key of the table is appended to the
+ * sort keys to keep the order total, so only tables with a primary key can be paged. Sort keys missing from the
+ * selected columns are selected under an internal alias to read the cursor from, and removed from the page again.
+ * <p>
+ * The seek predicate compares the sort keys as one row value, which an index on them answers directly, as long
+ * as they are sorted in one direction and are {@code NOT NULL}. A nullable sort key must be given a nulls
+ * placement, so rows with a null key are paged through instead of being skipped. Its nulls are found with
+ * {@code IS NULL} terms, which an index can't serve as well, so nullable sort keys are better avoided.
+ */
+@Component
+@RequiredArgsConstructor
+public class KeysetPagination {
+    private static final String KEY_ALIAS = "cursor_key_";
+    private static final Pattern PLAIN_IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_$]*");
+
+    private final ObjectMapper objectMapper;
+    private final SchemaCatalog schemaCatalog;
+
+    /**
+     * A query prepared for paging.
+     *
+     * @param requested the query as requested, naming only columns of its table
+     * @param query     the query to execute
+     * @param keys      labels of the sort key values of a row, empty if the page gets no cursor
+     * @param aliases   number of trailing columns of a row selected only to read the cursor from
+     */
+    public record Page(Query requested, Query query, List<String> keys, int aliases) {
+
+        /**
+         * @return a query that is executed as requested, without a cursor
+         */
+        public static Page unpaged(Query query) {
+            return new Page(query, query, List.of(), 0);
+        }
+
+        /**
+         * @return the rows without the columns selected only to read the cursor from
+         */
+        public List<Row> rows(List<Row> rows) {
+            if (aliases == 0 || rows.isEmpty()) {
+                return rows;
+            }
+            Row.Columns columns = rows.get(0).columns();
+            Row.Columns requestedColumns = columns.first(columns.size() - aliases);
+            return rows.stream().map(row -> row.project(requestedColumns)).toList();
+        }
+    }
+
+    /**
+     * Prepare the query for paging and continue after the cursor, if any.
+     *
+     * @param query      the requested query
+     * @param cursor     the cursor of the previous page, or {@code null} for the first page
+     * @param nextCursor whether the page gets the cursor of the next one, without it only the cursor sent is used
+     * @return the query to execute
+     * @throws IllegalArgumentException if the cursor is invalid or the query cannot be paged
+     */
+    public Page apply(Query query, String cursor, boolean nextCursor) {
+        if (cursor == null && !nextCursor) {
+            return Page.unpaged(query);
+        }
+        if (!isPageable(query)) {
+            throw new IllegalArgumentException("Paging requires a SELECT query with orderBy and limit");
+        }
+        schemaCatalog.validate(query);
+        TableSchema table = schemaCatalog.table(query.table())
+                .orElseThrow(() -> new IllegalArgumentException("Cannot page unknown table: " + query.table()));
+        if (table.primaryKey().isEmpty()) {
+            throw new IllegalArgumentException("Cannot page a table without a primary key: " + query.table());
+        }
+
+        Query paged = withNullsPlacement(withTiebreaker(query, table.primaryKey()), table);
+        List<String> signature = signature(paged);
+        List<String> keys = new ArrayList<>();
+        List<String> aliased = new ArrayList<>();
+        if (nextCursor) {
+            List<String> selected = query.columns() == null ? List.of() : query.columns().stream()
+                    .filter(Objects::nonNull).map(SchemaCatalog::identifier).toList();
+            for (OrderBy order : sortKeys(paged.orderBy())) {
+                String column = SchemaCatalog.identifier(order.column());
+                if (selected.isEmpty() || selected.contains("*") || selected.contains(column)) {
+                    keys.add(column);
+                } else {
+                    String alias = KEY_ALIAS + (aliased.size() + 1);
+                    aliased.add(order.column() + " AS " + alias);
+                    keys.add(alias);
+                }
+            }
+        }
+        if (!aliased.isEmpty()) {
+            List<String> columns = new ArrayList<>(query.columns());
+            columns.addAll(aliased);
+            paged = new Query(paged.queryType(), paged.table(), columns, paged.values(), paged.conditions(),
+                    paged.orderBy(), paged.groupBy(), paged.limit(), paged.after());
+        }
+        if (cursor != null) {
+            Cursor decoded = decode(cursor);
+            if (!signature.equals(decoded.orderBy()) || decoded.after() == null
+                    || decoded.after().size() != signature.size()) {
+                throw new IllegalArgumentException("Cursor does not belong to this query");
+            }
+            paged = paged.withAfter(values(table, sortKeys(paged.orderBy()), decoded.after()));
+        }
+        return new Page(query, paged, List.copyOf(keys), aliased.size());
+    }
+
+    /**
+     * @param page the executed page, as returned by {@link #apply}
+     * @param rows the selected rows, with the columns selected to read the cursor from
+     * @return the cursor of the next page, or {@code null} if this was the last one or none was asked for
+     */
+    public String nextCursor(Page page, List<Row> rows) {
+        if (page.keys().isEmpty() || rows.size() < page.query().limit()) {
+            return null;
+        }
+
+        Row last = rows.get(rows.size() - 1);
+        List<String> after = new ArrayList<>();
+        for (String key : page.keys()) {
+            // Nulls are kept, the seek predicate of a key with a nulls placement compares them with IS NULL
+            after.add(text(last.get(key)));
+        }
+        return encode(new Cursor(signature(page.query()), after));
+    }
+
+    private static boolean isPageable(Query query) {
+        return "SELECT".equalsIgnoreCase(query.queryType())
+                && query.limit() != null && query.limit() > 0
+                && (query.groupBy() == null || query.groupBy().isEmpty())
+                && !sortKeys(query.orderBy()).isEmpty();
+    }
+
+    /**
+     * Append the primary key columns the query isn't sorted by yet, in the direction of its last sort key.
+     */
+    private static Query withTiebreaker(Query query, List<String> primaryKey) {
+        List<OrderBy> orderBy = sortKeys(query.orderBy());
+        String direction = orderBy.get(orderBy.size() - 1).direction();
+        for (String column : primaryKey) {
+            if (orderBy.stream().noneMatch(order -> SchemaCatalog.identifier(order.column()).equals(column))) {
+                orderBy.add(new OrderBy(quote(column), direction));
+            }
+        }
+        return new Query(query.queryType(), query.table(), query.columns(), query.values(), query.conditions(),
+                orderBy, query.groupBy(), query.limit(), query.after());
+    }
+
+    /**
+     * @param column a column name as stored in the catalog
+     * @return the name as written in a query, quoted only if it has to be
+     */
+    private static String quote(String column) {
+        return PLAIN_IDENTIFIER.matcher(column).matches() ? column : "\"" + column.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Drop the nulls placement of {@code NOT NULL} sort keys, which keeps the row value comparison of the seek.
+     *
+     * @throws IllegalArgumentException if a nullable sort key has no nulls placement
+     */
+    private static Query withNullsPlacement(Query query, TableSchema table) {
+        List<OrderBy> orderBy = new ArrayList<>();
+        for (OrderBy order : sortKeys(query.orderBy())) {
+            if (!nullable(table, order.column())) {
+                orderBy.add(new OrderBy(order.column(), order.direction()));
+            } else if (order.nulls() != null) {
+                orderBy.add(order);
+            } else {
+                throw new IllegalArgumentException("Paging on a nullable column requires a nulls placement: "
+                        + order.column());
+            }
+        }
+        return new Query(query.queryType(), query.table(), query.columns(), query.values(), query.conditions(),
+                orderBy, query.groupBy(), query.limit(), query.after());
+    }
+
+    private static boolean nullable(TableSchema table, String column) {
+        return table.column(column).map(TableSchema.Column::nullable).orElse(true);
+    }
+
+    private static List<OrderBy> sortKeys(List<OrderBy> orderBy) {
+        if (orderBy == null) {
+            return new ArrayList<>();
+        }
+        return orderBy.stream()
+                .filter(Objects::nonNull)
+                .filter(order -> order.column() != null && order.direction() != null)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static List<String> signature(Query query) {
+        return sortKeys(query.orderBy()).stream()
+                .map(order -> order.column() + " " + order.direction().toUpperCase()
+                        + (order.nulls() != null ? " NULLS " + order.nulls().toUpperCase() : ""))
+                .toList();
+    }
+
+    /**
+     * The exact text of a sort key value, which a {@code double} or {@code numeric} value would not keep as a
+     * JSON number.
+     */
+    private static String text(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+    }
+
+    /**
+     * Convert the text of every sort key value back to the type the column is read as. Values of other types,
+     * like dates and timestamps, stay text, which the database reads as a literal of the column's type.
+     */
+    private static List<Object> values(TableSchema table, List<OrderBy> sortKeys, List<String> after) {
+        List<Object> values = new ArrayList<>(after.size());
+        for (int i = 0; i < after.size(); i++) {
+            String text = after.get(i);
+            String dataType = table.column(sortKeys.get(i).column()).map(TableSchema.Column::dataType).orElse("");
+            try {
+                values.add(text == null ? null : switch (dataType) {
+                    case "smallint", "integer" -> Integer.valueOf(text);
+                    case "bigint" -> Long.valueOf(text);
+                    case "numeric" -> new BigDecimal(text);
+                    case "real" -> Float.valueOf(text);
+                    case "double precision" -> Double.valueOf(text);
+                    case "boolean" -> Boolean.valueOf(text);
+                    default -> text;
+                });
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+        return values;
+    }
+
+    private String encode(Cursor cursor) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(cursor));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode cursor", e);
+        }
+    }
+
+    private Cursor decode(String cursor) {
+        try {
+            return objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), Cursor.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Contents of a cursor: the sort keys it was created for and the text of the key values of the last row.
+     */
+    private record Cursor(
+            List<String> orderBy,
+            List<String> after
+    ) {
+    }
+}
@@ -0,0 +1,99 @@
+package pl.pwr.translator_app.prepared;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import pl.pwr.query.Condition;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.cache.ResultCache;
+
+/**
+ * A query registered under an id, compiled once into a statement whose bind values are either constants or
+ * named parameters.
+ *
+ * @param query       the registered query, with the parameters as {@code ":name"} values
+ * @param sql         the compiled statement
+ * @param parameters  the parameter names, in the order they first appear in the statement
+ * @param limited     whether the query got the default limit of the cost guard
+ * @param cachePolicy whether and for how long its results may be cached
+ * @param bindings    the bind values of the statement, constants or {@link Parameter}s
+ */
+public record PreparedQuery(String id, int version, Query query, String sql, List<String> parameters,
+                            boolean limited, ResultCache.Policy cachePolicy, Instant registeredAt,
+                            @JsonIgnore List<Object> bindings) {
+
+    /**
+     * A bind value given when the query is executed.
+     */
+    public record Parameter(String name) {
+    }
+
+    /**
+     * @param values the value of every parameter by name
+     * @return the statement with the values bound, as strings like the values of a translated query
+     * @throws IllegalArgumentException if a parameter is missing, unknown, null or not a scalar
+     */
+    public SqlStatement statement(Map<String, ?> values) {
+        check(values);
+        List<Object> bound = new ArrayList<>(bindings.size());
+        for (Object binding : bindings) {
+            bound.add(binding instanceof Parameter parameter ? value(values, parameter.name()) : binding);
+        }
+        return new SqlStatement(sql, bound);
+    }
+
+    /**
+     * @return the registered query with the values in place of the parameters, as if it had been sent whole
+     */
+    public Query bind(Map<String, ?> values) {
+        check(values);
+        List<Condition> conditions = query.conditions() == null ? null : query.conditions().stream()
+                .map(condition -> condition == null ? null : new Condition(condition.column(), condition.operator(),
+                        bind(condition.value(), values)))
+                .toList();
+        List<Map<String, Object>> rows = query.values() == null ? null : query.values().stream()
+                .map(row -> {
+                    if (row == null) {
+                        return null;
+                    }
+                    Map<String, Object> bound = new LinkedHashMap<>();
+                    row.forEach((column, value) -> bound.put(column, bind(value, values)));
+                    return bound;
+                })
+                .toList();
+        return new Query(query.queryType(), query.table(), query.columns(), rows, conditions, query.orderBy(),
+                query.groupBy(), query.limit(), query.after());
+    }
+
+    private static Object bind(Object value, Map<String, ?> values) {
+        String name = PreparedQueryRegistry.parameter(value);
+        return name != null ? value(values, name) : value;
+    }
+
+    private void check(Map<String, ?> values) {
+        for (String name : values.keySet()) {
+            if (!parameters.contains(name)) {
+                throw new IllegalArgumentException("Unknown parameter of " + id + ": " + name);
+            }
+        }
+        for (String name : parameters) {
+            if (!values.containsKey(name)) {
+                throw new IllegalArgumentException("Missing parameter of " + id + ": " + name);
+            }
+        }
+    }
+
+    private static String value(Map<String, ?> values, String name) {
+        Object value = values.get(name);
+        if (value == null || value instanceof Map || value instanceof Iterable) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a string, number or boolean");
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,234 @@
+package pl.pwr.translator_app.prepared;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.pwr.parser.QueryTranslator;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.cache.ResultCache;
+import pl.pwr.translator_app.dto.QueryRequestDTO;
+import pl.pwr.translator_app.guard.CostGuard;
+import pl.pwr.translator_app.mapper.QueryMapper;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+
+/**
+ * Queries registered under an id, so clients can execute them by sending only their parameter values.
+ * <p>
+ * A registered query is checked against the {@link SchemaCatalog} and compiled by the {@link QueryTranslator}
+ * once. A condition or row value written as {@code ":name"} becomes a parameter, every other value stays a
+ * constant of the statement. Registering an id again adds a version, unless the query compiles to the same
+ * statement as the latest version. Executions use the latest version unless they ask for another one. At most
+ * {@code maximumVersions} versions of an id are kept, older ones are dropped. Version numbers are never reused,
+ * not even after every version of the id was evicted, so a client pinned to a version can't run another query.
+ * The last version of at most {@code maximumEvicted} evicted ids is remembered, an id registered after its last
+ * version was forgotten continues after every forgotten version.
+ */
+@Slf4j
+public class PreparedQueryRegistry {
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9_.-]{1,64}");
+    private static final Pattern PARAMETER = Pattern.compile(":([A-Za-z_][A-Za-z0-9_]*)");
+
+    private final QueryMapper queryMapper;
+    private final QueryTranslator queryTranslator;
+    private final SchemaCatalog schemaCatalog;
+    private final CostGuard costGuard;
+    private final int maximumQueries;
+    private final int maximumVersions;
+    private final int maximumEvicted;
+
+    /**
+     * Versions of every id, oldest first.
+     */
+    private final Map<String, List<PreparedQuery>> queries = new ConcurrentHashMap<>();
+
+    /**
+     * The last version handed out per registered id, guarded by {@code this}.
+     */
+    private final Map<String, Integer> lastVersions = new HashMap<>();
+
+    /**
+     * The last version handed out per evicted id, oldest eviction first, guarded by {@code this}.
+     */
+    private final Map<String, Integer> evictedVersions = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            if (size() <= maximumEvicted) {
+                return false;
+            }
+            forgottenVersion = Math.max(forgottenVersion, eldest.getValue());
+            return true;
+        }
+    };
+
+    /**
+     * The highest last version of the evicted ids that are no longer remembered, guarded by {@code this}.
+     */
+    private int forgottenVersion;
+
+    /**
+     * @param maximumQueries  ids that can be registered
+     * @param maximumVersions versions kept per id
+     * @param maximumEvicted  evicted ids whose last version is remembered
+     */
+    public PreparedQueryRegistry(QueryMapper queryMapper, QueryTranslator queryTranslator, SchemaCatalog schemaCatalog,
+                                 CostGuard costGuard, int maximumQueries, int maximumVersions, int maximumEvicted) {
+        this.queryMapper = queryMapper;
+        this.queryTranslator = queryTranslator;
+        this.schemaCatalog = schemaCatalog;
+        this.costGuard = costGuard;
+        this.maximumQueries = maximumQueries;
+        this.maximumVersions = maximumVersions;
+        this.maximumEvicted = maximumEvicted;
+    }
+
+    /**
+     * Validate and compile the query and register it under the id.
+     *
+     * @return the registered version
+     * @throws IllegalArgumentException if the id is invalid, or the query names an unknown table or column or
+     *                                  can't be translated
+     * @throws IllegalStateException    if the id is new and {@code maximumQueries} ids are registered already
+     */
+    public PreparedQuery register(String id, QueryRequestDTO request) {
+        if (id == null || !ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid prepared query id: " + id);
+        }
+        if (request.getCursor() != null) {
+            throw new IllegalArgumentException("A prepared query can't start from a cursor");
+        }
+        Query requested = queryMapper.map(request);
+        Query query = costGuard.withDefaultLimit(requested);
+        schemaCatalog.validate(query);
+        SqlStatement statement = queryTranslator.prepare(query);
+        if (statement.sql().startsWith("Invalid")) {
+            throw new IllegalArgumentException(statement.sql());
+        }
+
+        List<Object> bindings = new ArrayList<>(statement.parameters().size());
+        List<String> parameters = new ArrayList<>();
+        for (Object value : statement.parameters()) {
+            String name = parameter(value);
+            if (name == null) {
+                bindings.add(value);
+                continue;
+            }
+            bindings.add(new PreparedQuery.Parameter(name));
+            if (!parameters.contains(name)) {
+                parameters.add(name);
+            }
+        }
+        Duration ttl = request.getCacheTtl() != null ? Duration.ofSeconds(request.getCacheTtl()) : null;
+        ResultCache.Policy cachePolicy = new ResultCache.Policy(!Boolean.FALSE.equals(request.getCache()), ttl);
+
+        PreparedQuery[] registered = new PreparedQuery[1];
+        queries.compute(id, (key, versions) -> {
+            if (versions == null && queries.size() >= maximumQueries) {
+                throw new IllegalStateException("Too many prepared queries: " + maximumQueries);
+            }
+            PreparedQuery latest = versions != null ? versions.get(versions.size() - 1) : null;
+            if (latest != null && latest.sql().equals(statement.sql()) && latest.bindings().equals(bindings)
+                    && latest.cachePolicy().equals(cachePolicy)) {
+                registered[0] = latest;
+                return versions;
+            }
+            registered[0] = new PreparedQuery(id, nextVersion(id), query, statement.sql(),
+                    List.copyOf(parameters), query != requested, cachePolicy, Instant.now(), bindings);
+            List<PreparedQuery> updated = new ArrayList<>(versions != null ? versions : List.of());
+            updated.add(registered[0]);
+            return List.copyOf(updated.subList(Math.max(updated.size() - maximumVersions, 0), updated.size()));
+        });
+        log.info("Registered prepared query {} version {}: {}", id, registered[0].version(), statement.sql());
+        return registered[0];
+    }
+
+    /**
+     * @param version the version, {@code null} for the latest
+     */
+    public Optional<PreparedQuery> get(String id, Integer version) {
+        List<PreparedQuery> versions = queries.get(id);
+        if (versions == null) {
+            return Optional.empty();
+        }
+        if (version == null) {
+            return Optional.of(versions.get(versions.size() - 1));
+        }
+        return versions.stream().filter(query -> query.version() == version).findFirst();
+    }
+
+    /**
+     * @return the kept versions of the id, oldest first, none if it isn't registered
+     */
+    public List<PreparedQuery> versions(String id) {
+        return queries.getOrDefault(id, List.of());
+    }
+
+    /**
+     * @return the latest version of every registered id, by id
+     */
+    public List<PreparedQuery> list() {
+        return queries.values().stream()
+                .map(versions -> versions.get(versions.size() - 1))
+                .sorted(Comparator.comparing(PreparedQuery::id))
+                .toList();
+    }
+
+    /**
+     * @param version the version to evict, {@code null} for every version
+     * @return whether anything was evicted
+     */
+    public boolean evict(String id, Integer version) {
+        boolean[] evicted = new boolean[1];
+        // Retired under the lock of the id, so a concurrent registration can't take a version in between
+        queries.computeIfPresent(id, (key, versions) -> {
+            List<PreparedQuery> kept = version == null ? List.of()
+                    : versions.stream().filter(query -> query.version() != version).toList();
+            evicted[0] = kept.size() < versions.size();
+            if (kept.isEmpty()) {
+                retire(id);
+                return null;
+            }
+            return kept;
+        });
+        return evicted[0];
+    }
+
+    private synchronized int nextVersion(String id) {
+        Integer last = lastVersions.get(id);
+        if (last == null) {
+            last = evictedVersions.remove(id);
+        }
+        int version = (last != null ? last : forgottenVersion) + 1;
+        lastVersions.put(id, version);
+        return version;
+    }
+
+    private synchronized void retire(String id) {
+        Integer last = lastVersions.remove(id);
+        if (last != null) {
+            evictedVersions.put(id, last);
+        }
+    }
+
+    /**
+     * @return the parameter name if the value is written as {@code ":name"}, otherwise {@code null}
+     */
+    static String parameter(Object value) {
+        if (!(value instanceof String string) || string.isEmpty() || string.charAt(0) != ':') {
+            return null;
+        }
+        Matcher matcher = PARAMETER.matcher(string);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,213 @@
+package pl.pwr.translator_app.profiler;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import pl.pwr.query.SqlStatement;
+
+/**
+ * Execution counts and latency histograms per {@link QueryShape}, and the slowest recent executions with their
+ * bind values.
+ * <p>
+ * Recording takes no lock: shapes are looked up by the SQL as translated, counters are {@link LongAdder}s and
+ * executions slower than the threshold go to a fixed ring buffer, overwriting the oldest. Only a sampled share
+ * of the executions is recorded. At most {@code maximumShapes} shapes are tracked, executions of further ones
+ * are only counted as dropped. At most {@code maximumStatements} translated statements are remembered with their
+ * shape, further ones are shaped again on every execution.
+ * <p>
+ * The {@link #DISABLED} instance records nothing.
+ */
+public class QueryProfiler {
+    public static final QueryProfiler DISABLED = new QueryProfiler(0, 0, 0, 1);
+
+    public enum Order { SLOWEST, TOTAL, FREQUENT }
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final int maximumShapes;
+    private final int maximumStatements;
+    private final int slowSampleSlots;
+    private volatile State state;
+
+    private record Sample(QueryShape shape, List<Object> parameters, long nanos, long rows, boolean failed,
+                          Instant at) {
+    }
+
+    /**
+     * Everything {@link #reset} forgets, replaced as a whole so that a racing {@link #record} only ever updates
+     * either the old or the new state.
+     */
+    private static final class State {
+        private final Map<String, Stats> statements = new ConcurrentHashMap<>();
+        private final Map<Long, Stats> shapes = new ConcurrentHashMap<>();
+        private final LongAdder dropped = new LongAdder();
+        private final AtomicReferenceArray<Sample> slowSamples;
+        private final AtomicLong slowSampleCursor = new AtomicLong();
+
+        private State(int slowSampleSlots) {
+            this.slowSamples = new AtomicReferenceArray<>(slowSampleSlots);
+        }
+    }
+
+    private static final class Stats {
+        private final QueryShape shape;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Stats(QueryShape shape) {
+            this.shape = shape;
+        }
+    }
+
+    /**
+     * @param id          the {@link QueryShape#hexId()}
+     * @param executions  recorded executions, a sample of all of them unless the sample rate is 1
+     * @param meanRows    rows returned or affected per execution
+     */
+    public record ShapeReport(String id, String sql, long executions, long failures, double totalMillis,
+                              double meanMillis, double p50Millis, double p95Millis, double p99Millis,
+                              double maxMillis, double meanRows) {
+    }
+
+    public record SlowSample(String id, String sql, List<Object> parameters, double millis, long rows,
+                             boolean failed, Instant at) {
+    }
+
+    /**
+     * @param shapes        the top shapes in the requested order
+     * @param slowest       the slowest recent executions, slowest first
+     * @param droppedShapes executions not recorded because too many shapes were tracked already
+     */
+    public record Report(double sampleRate, long trackedShapes, long droppedShapes, List<ShapeReport> shapes,
+                         List<SlowSample> slowest) {
+    }
+
+    /**
+     * Remembers up to 20 translated statements per shape.
+     */
+    public QueryProfiler(double sampleRate, long slowThreshold, int maximumShapes, int slowSampleSlots) {
+        this(sampleRate, slowThreshold, maximumShapes, maximumShapes * 20, slowSampleSlots);
+    }
+
+    /**
+     * @param sampleRate        share of the executions recorded, 0 to record nothing
+     * @param slowThreshold     executions taking at least this many nanoseconds are kept as slow samples
+     * @param maximumShapes     distinct shapes tracked
+     * @param maximumStatements distinct translated statements remembered with their shape
+     * @param slowSampleSlots   slow executions kept, rounded up to a power of two
+     */
+    public QueryProfiler(double sampleRate, long slowThreshold, int maximumShapes, int maximumStatements,
+                         int slowSampleSlots) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold;
+        this.maximumShapes = maximumShapes;
+        this.maximumStatements = maximumStatements;
+        this.slowSampleSlots = Integer.highestOneBit(Math.max(slowSampleSlots - 1, 1)) << 1;
+        this.state = new State(this.slowSampleSlots);
+    }
+
+    /**
+     * @param statement the executed statement
+     * @param nanos     how long it executed
+     * @param rows      the rows it returned or affected
+     * @param failed    whether it failed
+     */
+    public void record(SqlStatement statement, long nanos, long rows, boolean failed) {
+        if (sampleRate <= 0 || sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        State state = this.state;
+        Stats stats = stats(state, statement.sql());
+        if (stats == null) {
+            state.dropped.increment();
+            return;
+        }
+        stats.executions.increment();
+        stats.nanos.add(nanos);
+        stats.rows.add(rows);
+        if (failed) {
+            stats.failures.increment();
+        }
+        stats.histogram.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        if (nanos >= slowThresholdNanos) {
+            int slot = (int) (state.slowSampleCursor.getAndIncrement() & (slowSampleSlots - 1));
+            state.slowSamples.set(slot, new Sample(stats.shape, statement.parameters(), nanos, rows, failed, Instant.now()));
+        }
+    }
+
+    private Stats stats(State state, String sql) {
+        Stats stats = state.statements.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        // Statements of the same shape, like inserts of different row counts, share their stats
+        QueryShape shape = QueryShape.of(sql);
+        stats = state.shapes.get(shape.id());
+        if (stats == null) {
+            if (state.shapes.size() >= maximumShapes) {
+                return null;
+            }
+            stats = state.shapes.computeIfAbsent(shape.id(), id -> new Stats(shape));
+        }
+        if (state.statements.size() < maximumStatements) {
+            state.statements.putIfAbsent(sql, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * @param top   shapes to report
+     * @param order how to rank the shapes
+     */
+    public Report report(int top, Order order) {
+        State state = this.state;
+        List<ShapeReport> reports = new ArrayList<>(state.shapes.size());
+        for (Stats stats : state.shapes.values()) {
+            long executions = stats.executions.sum();
+            if (executions == 0) {
+                continue;
+            }
+            double totalMillis = stats.nanos.sum() / 1e6;
+            reports.add(new ShapeReport(stats.shape.hexId(), stats.shape.sql(), executions, stats.failures.sum(),
+                    totalMillis, totalMillis / executions, stats.histogram.quantile(0.5) / 1e3,
+                    stats.histogram.quantile(0.95) / 1e3, stats.histogram.quantile(0.99) / 1e3,
+                    stats.histogram.max() / 1e3, (double) stats.rows.sum() / executions));
+        }
+        reports.sort(switch (order) {
+            case SLOWEST -> Comparator.comparingDouble(ShapeReport::meanMillis).reversed();
+            case TOTAL -> Comparator.comparingDouble(ShapeReport::totalMillis).reversed();
+            case FREQUENT -> Comparator.comparingLong(ShapeReport::executions).reversed();
+        });
+
+        List<SlowSample> slowest = new ArrayList<>();
+        for (int slot = 0; slot < slowSampleSlots; slot++) {
+            Sample sample = state.slowSamples.get(slot);
+            if (sample != null) {
+                slowest.add(new SlowSample(sample.shape().hexId(), sample.shape().sql(), sample.parameters(),
+                        sample.nanos() / 1e6, sample.rows(), sample.failed(), sample.at()));
+            }
+        }
+        slowest.sort(Comparator.comparingDouble(SlowSample::millis).reversed());
+        return new Report(sampleRate, state.shapes.size(), state.dropped.sum(), reports.subList(0, Math.min(top, reports.size())),
+                slowest.subList(0, Math.min(top, slowest.size())));
+    }
+
+    /**
+     * Forget every shape, sample and dropped execution.
+     */
+    public void reset() {
+        state = new State(slowSampleSlots);
+    }
+}
@@ -0,0 +1,40 @@
+package pl.pwr.translator_app.profiler;
+
+import java.util.Locale;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@code /actuator/queryprofile?top=10&order=slowest} reports the query shapes of the {@link QueryProfiler},
+ * ranked by mean latency, {@code total} time or {@code frequent} executions, with the slowest recent executions.
+ * A DELETE starts over.
+ */
+@Component
+@Endpoint(id = "queryprofile")
+@RequiredArgsConstructor
+public class QueryProfilerEndpoint {
+    private final QueryProfiler queryProfiler;
+
+    @ReadOperation
+    public QueryProfiler.Report report(@Nullable Integer top, @Nullable String order) {
+        QueryProfiler.Order ranking;
+        try {
+            ranking = order != null ? QueryProfiler.Order.valueOf(order.toUpperCase(Locale.ROOT)) : QueryProfiler.Order.SLOWEST;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException("Unknown order: " + order, "Unknown order");
+        }
+        return queryProfiler.report(top != null ? Math.max(top, 0) : 10, ranking);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        queryProfiler.reset();
+    }
+}
@@ -0,0 +1,35 @@
+package pl.pwr.translator_app.profiler;
+
+import java.util.regex.Pattern;
+
+/**
+ * The shape of a translated statement: its SQL with the repeated row groups of a multi-row {@code INSERT}
+ * collapsed, so inserting 3 or 300 rows counts as the same shape. Values are already bound as placeholders.
+ *
+ * @param id  64-bit FNV-1a hash of the shape, stable across restarts
+ * @param sql the normalized SQL
+ */
+public record QueryShape(long id, String sql) {
+    private static final Pattern REPEATED_GROUPS = Pattern.compile("(\\([^()]*\\))(?:, \\1)+");
+
+    public static QueryShape of(String sql) {
+        String normalized = sql.contains("), (") ? REPEATED_GROUPS.matcher(sql).replaceAll("$1, ...") : sql;
+        return new QueryShape(fingerprint(normalized), normalized);
+    }
+
+    /**
+     * The id as 16 hex digits.
+     */
+    public String hexId() {
+        return String.format("%016x", id);
+    }
+
+    static long fingerprint(String sql) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < sql.length(); i++) {
+            hash ^= sql.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
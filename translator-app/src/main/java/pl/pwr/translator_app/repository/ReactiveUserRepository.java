@@ -0,0 +1,106 @@
+package pl.pwr.translator_app.repository;
+
+import java.util.List;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.postgresql.codec.PostgresqlObjectId;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Option;
+import io.r2dbc.spi.Parameters;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.TransactionDefinition;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.domain.Row;
+import pl.pwr.translator_app.mapper.ReactiveRowMapper;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Executes translated statements through R2DBC without blocking a thread per query. Created by
+ * {@link pl.pwr.translator_app.config.ReactiveConfiguration}, closing it disposes its connection pool.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveUserRepository implements AutoCloseable {
+    private static final TransactionDefinition READ_ONLY = new TransactionDefinition() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getAttribute(Option<T> option) {
+            return TransactionDefinition.READ_ONLY.equals(option) ? (T) Boolean.TRUE : null;
+        }
+    };
+
+    private final ConnectionPool connectionPool;
+    private final int fetchSize;
+
+    /**
+     * Execute a SELECT statement and emit its rows as they are requested.
+     * <p>
+     * Rows are fetched {@code translator.stream.fetch-size} at a time through a portal of a read-only
+     * transaction, and the next batch is only fetched once the subscriber has requested more rows, so a slow
+     * subscriber slows down the query instead of buffering its result. The connection is released when the
+     * rows are exhausted, on error and on cancellation.
+     *
+     * @param statement the SELECT statement
+     * @return the selected rows in result order
+     */
+    public Flux<Row> streamUsers(SqlStatement statement) {
+        return Flux.usingWhen(
+                connectionPool.create(),
+                connection -> Mono.from(connection.beginTransaction(READ_ONLY))
+                        .thenMany(bind(connection.createStatement(numberedPlaceholders(statement.sql())), statement)
+                                .fetchSize(fetchSize)
+                                .execute())
+                        .concatMap(result -> result.map(new ReactiveRowMapper())),
+                connection -> Mono.from(connection.commitTransaction()).then(Mono.from(connection.close())),
+                (connection, error) -> {
+                    log.error("Error executing reactive query: {} with parameters {}", statement.sql(), statement.parameters(), error);
+                    return release(connection);
+                },
+                this::release);
+    }
+
+    @Override
+    public void close() {
+        connectionPool.dispose();
+    }
+
+    private Mono<Void> release(Connection connection) {
+        return Mono.from(connection.rollbackTransaction()).onErrorComplete().then(Mono.from(connection.close()));
+    }
+
+    private static Statement bind(Statement statement, SqlStatement sqlStatement) {
+        List<Object> parameters = sqlStatement.parameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            Object value = parameters.get(i);
+            // Sent untyped like on the JDBC path, so PostgreSQL infers their type the same way it does for literals
+            statement.bind(i, value instanceof String ? Parameters.in(PostgresqlObjectId.UNSPECIFIED, value) : value);
+        }
+        return statement;
+    }
+
+    /**
+     * Rewrites the JDBC {@code ?} placeholders to the {@code $n} placeholders of PostgreSQL, leaving quoted
+     * literals and identifiers alone.
+     */
+    static String numberedPlaceholders(String sql) {
+        StringBuilder result = new StringBuilder(sql.length() + 8);
+        int parameter = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                result.append('$').append(++parameter);
+                continue;
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+}
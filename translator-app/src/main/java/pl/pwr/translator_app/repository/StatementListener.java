@@ -0,0 +1,19 @@
+package pl.pwr.translator_app.repository;
+
+import pl.pwr.query.SqlStatement;
+
+/**
+ * Told about every statement the {@link UserRepository} executed, with its own duration and row count.
+ */
+@FunctionalInterface
+public interface StatementListener {
+    StatementListener NONE = (statement, nanos, rows, failed) -> {
+    };
+
+    /**
+     * @param nanos  how long the statement executed
+     * @param rows   the rows it returned or affected
+     * @param failed whether it failed, or was rolled back because a later statement of the same query failed
+     */
+    void executed(SqlStatement statement, long nanos, long rows, boolean failed);
+}
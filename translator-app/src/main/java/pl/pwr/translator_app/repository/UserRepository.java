@@ -1,61 +1,228 @@
 package pl.pwr.translator_app.repository;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Savepoint;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.ArrayList;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.domain.Row;
 import pl.pwr.translator_app.domain.User;
+import pl.pwr.translator_app.mapper.ProjectionRowMapper;
 import pl.pwr.translator_app.mapper.UserMapper;
 import pl.pwr.translator_app.model.UserEntity;
 import pl.pwr.translator_app.result.QueryResult;
+import pl.pwr.translator_app.schema.SchemaCatalog;
 
 @Repository
 @RequiredArgsConstructor
 @Slf4j
 public class UserRepository {
     private final UserMapper userMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final SchemaCatalog schemaCatalog;
 
     @PersistenceContext
     private EntityManager entityManager;
 
-    @SuppressWarnings("unchecked")
+    @Value("${translator.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    /**
+     * Set while {@link #underSavepoint} runs, a failing query marks it instead of the surrounding transaction.
+     */
+    private final ThreadLocal<boolean[]> savepointFailure = new ThreadLocal<>();
+
     @Transactional
-    public QueryResult queryUsers(String query) {
+    public QueryResult queryUsers(String table, SqlStatement statement) {
+        return queryUsers(table, List.of(statement), StatementListener.NONE);
+    }
+
+    @Transactional(readOnly = true)
+    public QueryResult selectUsers(String table, SqlStatement statement) {
+        return selectUsers(table, statement, StatementListener.NONE);
+    }
+
+    /**
+     * Execute a SELECT in a read-only transaction. Hibernate does not flush in it, and with read replicas
+     * configured it runs on a replica.
+     *
+     * @param table     the queried table
+     * @param statement the SELECT statement
+     * @param listener  told how long the statement took
+     * @return the selected rows
+     */
+    @Transactional(readOnly = true)
+    public QueryResult selectUsers(String table, SqlStatement statement, StatementListener listener) {
+        long start = System.nanoTime();
         try {
-            // Check if this is a SELECT query
-            if (query.trim().toUpperCase().startsWith("SELECT")) {
-                Query nativeQuery = entityManager.createNativeQuery(query, UserEntity.class);
-                List<UserEntity> entities = (List<UserEntity>) nativeQuery.getResultList();
-
-                List<User> users = entities.stream()
-                        .map(userMapper::map)
-                        .collect(Collectors.toList());
-                
-                return new QueryResult(users, users.size());
-            } else {
-                // Handle non-SELECT queries (INSERT, UPDATE, DELETE)
-                Query nativeQuery = entityManager.createNativeQuery(query);
-                int rowsAffected = nativeQuery.executeUpdate();
-                log.info("Non-SELECT query executed successfully. Rows affected: {}", rowsAffected);
-                return new QueryResult(Collections.emptyList(), rowsAffected);
+            List<Row> rows = jdbcTemplate.query(statement.sql(), rowMapper(table), statement.parameters().toArray());
+            listener.executed(statement, System.nanoTime() - start, rows.size(), false);
+            return new QueryResult(rows, rows.size());
+        } catch (Exception e) {
+            listener.executed(statement, System.nanoTime() - start, 0, true);
+            log.error("Error executing dynamic query: {} with parameters {}", statement.sql(), statement.parameters(), e);
+            // Also fails a surrounding batch transaction
+            fail();
+            return new QueryResult(Collections.emptyList(), 0, true);
+        }
+    }
+
+    /**
+     * Execute the statements translated from one query in a single transaction
+     *
+     * @param table      the queried table
+     * @param statements the statements to execute, in order
+     * @param listener   told how long every executed statement took and how many rows it affected, after the
+     *                   last one ran, so the statements of a failed query are all reported as failed
+     * @return the selected rows, or the total number of rows affected by all statements
+     */
+    @Transactional
+    public QueryResult queryUsers(String table, List<SqlStatement> statements, StatementListener listener) {
+        long[] nanos = new long[statements.size()];
+        long[] rows = new long[statements.size()];
+        int executed = 0;
+        SqlStatement statement = null;
+        try {
+            int rowsAffected = 0;
+            for (SqlStatement current : statements) {
+                statement = current;
+                String query = statement.sql();
+                long start = System.nanoTime();
+                executed++;
+
+                // Check if this is a SELECT query
+                if (query.trim().toUpperCase().startsWith("SELECT")) {
+                    // Read straight from JDBC: only the projected columns, no managed entities to track
+                    List<Row> selected = jdbcTemplate.query(query, rowMapper(table), statement.parameters().toArray());
+                    nanos[executed - 1] = System.nanoTime() - start;
+                    rows[executed - 1] = selected.size();
+                    report(statements, executed, nanos, rows, false, listener);
+                    return new QueryResult(selected, selected.size());
+                }
+
+                // Handle non-SELECT queries (INSERT, UPDATE, DELETE), through JDBC as well: a statement failing
+                // in Hibernate would mark the transaction rollback-only, beyond the reach of a savepoint
+                try {
+                    rows[executed - 1] = jdbcTemplate.update(query, statement.parameters().toArray());
+                } finally {
+                    nanos[executed - 1] = System.nanoTime() - start;
+                }
+                rowsAffected += (int) rows[executed - 1];
             }
+            log.debug("Non-SELECT query executed successfully. Rows affected: {}", rowsAffected);
+            report(statements, executed, nanos, rows, false, listener);
+            return new QueryResult(Collections.emptyList(), rowsAffected);
         } catch (Exception e) {
-            log.error("Error executing dynamic query: {}", query, e);
-            return new QueryResult(Collections.emptyList(), 0);
+            log.error("Error executing dynamic query: {} with parameters {}",
+                    statement != null ? statement.sql() : null, statement != null ? statement.parameters() : null, e);
+            // Statements of the same query that already ran must not be committed
+            fail();
+            report(statements, executed, nanos, rows, true, listener);
+            return new QueryResult(Collections.emptyList(), 0, true);
         }
     }
-    
+
+    /**
+     * Run the work under a savepoint of the surrounding transaction, on its connection. A query failing in it
+     * rolls the transaction back to the savepoint instead of failing it, so what ran before can still commit.
+     *
+     * @return whether every query of the work succeeded
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean underSavepoint(Runnable work) {
+        Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+        boolean[] failed = new boolean[1];
+        savepointFailure.set(failed);
+        try {
+            work.run();
+        } finally {
+            savepointFailure.remove();
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (failed[0]) {
+                connection.rollback(savepoint);
+            } else {
+                connection.releaseSavepoint(savepoint);
+            }
+            return null;
+        });
+        return !failed[0];
+    }
+
+    /**
+     * Roll back the failed query: to the savepoint of {@link #underSavepoint}, or else the whole transaction.
+     */
+    private void fail() {
+        boolean[] failed = savepointFailure.get();
+        if (failed != null) {
+            failed[0] = true;
+        } else {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
+    }
+
+    private static void report(List<SqlStatement> statements, int executed, long[] nanos, long[] rows,
+                               boolean failed, StatementListener listener) {
+        for (int i = 0; i < executed; i++) {
+            listener.executed(statements.get(i), nanos[i], failed ? 0 : rows[i], failed);
+        }
+    }
+
+    /**
+     * Execute a SELECT statement and hand every row to the consumer as soon as it is read.
+     * <p>
+     * Rows are read through a forward-only cursor that fetches {@code translator.stream.fetch-size} rows at a
+     * time, and are never attached to the persistence context, so memory use does not depend on the number
+     * of rows. PostgreSQL only uses a cursor inside a transaction.
+     *
+     * @param table     the queried table
+     * @param statement the SELECT statement
+     * @param consumer  receives the rows in result set order
+     * @return the number of rows read
+     */
+    @Transactional(readOnly = true)
+    public int streamUsers(String table, SqlStatement statement, Consumer<Row> consumer) {
+        ProjectionRowMapper rowMapper = rowMapper(table);
+        int[] count = {0};
+        RowCallbackHandler handler = resultSet -> consumer.accept(rowMapper.mapRow(resultSet, count[0]++));
+        jdbcTemplate.query(connection -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(
+                    statement.sql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(streamFetchSize);
+            List<Object> parameters = statement.parameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                preparedStatement.setObject(i + 1, parameters.get(i));
+            }
+            return preparedStatement;
+        }, handler);
+        return count[0];
+    }
+
+    private ProjectionRowMapper rowMapper(String table) {
+        return new ProjectionRowMapper(schemaCatalog.table(table).orElse(null));
+    }
+
     // CRUD operations
     
     /**
@@ -0,0 +1,272 @@
+package pl.pwr.translator_app.result;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import pl.pwr.translator_app.domain.Row;
+
+/**
+ * Selected rows laid out by column: every column name is written once, followed by all of its values.
+ * <p>
+ * Each column is stored in the narrowest buffer its values fit: {@code long[]}, {@code double[]} or
+ * {@code boolean[]} with a null mask, strings whose distinct values number at most a quarter of the rows as a
+ * dictionary of those values and an index per row, anything else as plain values. Serialized as
+ * <pre>
+ * {"rowCount": 2, "columns": [
+ *   {"name": "id", "type": "long", "values": [1, 2]},
+ *   {"name": "lastName", "type": "string", "dictionary": ["Smith"], "indexes": [0, 0]}]}
+ * </pre>
+ * where a null value is written as {@code null} in {@code values} or {@code indexes}.
+ */
+@JsonSerialize(using = ColumnarResult.Serializer.class)
+public final class ColumnarResult {
+    private final int rowCount;
+    private final List<Column> columns;
+
+    private ColumnarResult(int rowCount, List<Column> columns) {
+        this.rowCount = rowCount;
+        this.columns = columns;
+    }
+
+    /**
+     * @param rows rows sharing the same columns, as selected by one query
+     */
+    public static ColumnarResult of(List<Row> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return new ColumnarResult(0, List.of());
+        }
+        Row.Columns names = rows.get(0).columns();
+        List<Column> columns = new ArrayList<>(names.size());
+        for (int column = 0; column < names.size(); column++) {
+            columns.add(column(names.property(column), rows, column));
+        }
+        return new ColumnarResult(rows.size(), columns);
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    private enum Type { LONG, DOUBLE, BOOLEAN, STRING, ANY }
+
+    private sealed interface Column permits LongColumn, DoubleColumn, BooleanColumn, DictionaryColumn, ValueColumn {
+        String name();
+    }
+
+    private record LongColumn(String name, long[] values, BitSet nulls) implements Column {
+    }
+
+    private record DoubleColumn(String name, double[] values, BitSet nulls) implements Column {
+    }
+
+    private record BooleanColumn(String name, boolean[] values, BitSet nulls) implements Column {
+    }
+
+    /**
+     * Index -1 stands for null.
+     */
+    private record DictionaryColumn(String name, List<String> dictionary, int[] indexes) implements Column {
+    }
+
+    private record ValueColumn(String name, String type, Object[] values) implements Column {
+    }
+
+    private static Column column(String name, List<Row> rows, int column) {
+        int count = rows.size();
+        Type type = type(rows, column);
+        BitSet nulls = new BitSet(count);
+        switch (type) {
+            case LONG -> {
+                long[] values = new long[count];
+                for (int row = 0; row < count; row++) {
+                    if (rows.get(row).value(column) instanceof Number number) values[row] = number.longValue();
+                    else nulls.set(row);
+                }
+                return new LongColumn(name, values, nulls);
+            }
+            case DOUBLE -> {
+                double[] values = new double[count];
+                for (int row = 0; row < count; row++) {
+                    if (rows.get(row).value(column) instanceof Number number) values[row] = number.doubleValue();
+                    else nulls.set(row);
+                }
+                return new DoubleColumn(name, values, nulls);
+            }
+            case BOOLEAN -> {
+                boolean[] values = new boolean[count];
+                for (int row = 0; row < count; row++) {
+                    if (rows.get(row).value(column) instanceof Boolean value) values[row] = value;
+                    else nulls.set(row);
+                }
+                return new BooleanColumn(name, values, nulls);
+            }
+            case STRING -> {
+                DictionaryColumn dictionary = dictionary(name, rows, column);
+                if (dictionary != null) {
+                    return dictionary;
+                }
+                return new ValueColumn(name, "string", values(rows, column));
+            }
+            default -> {
+                return new ValueColumn(name, "any", values(rows, column));
+            }
+        }
+    }
+
+    /**
+     * The type of the non-null values of the column, {@link Type#ANY} if they differ or are all null.
+     */
+    private static Type type(List<Row> rows, int column) {
+        Type type = null;
+        for (Row row : rows) {
+            Object value = row.value(column);
+            if (value == null) {
+                continue;
+            }
+            Type valueType = switch (value) {
+                case Long ignored -> Type.LONG;
+                case Integer ignored -> Type.LONG;
+                case Short ignored -> Type.LONG;
+                case Double ignored -> Type.DOUBLE;
+                case Float ignored -> Type.DOUBLE;
+                case Boolean ignored -> Type.BOOLEAN;
+                case String ignored -> Type.STRING;
+                default -> Type.ANY;
+            };
+            if (type != null && type != valueType) {
+                return Type.ANY;
+            }
+            type = valueType;
+        }
+        return type != null ? type : Type.ANY;
+    }
+
+    /**
+     * @return the column dictionary encoded, or {@code null} if it has more distinct values than a quarter of
+     * its rows, which also bounds the work spent on columns of unique values
+     */
+    private static DictionaryColumn dictionary(String name, List<Row> rows, int column) {
+        int count = rows.size();
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int[] indexes = new int[count];
+        for (int row = 0; row < count; row++) {
+            String value = (String) rows.get(row).value(column);
+            if (value == null) {
+                indexes[row] = -1;
+                continue;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                if (4 * (dictionary.size() + 1) > count) {
+                    return null;
+                }
+                code = dictionary.size();
+                codes.put(value, code);
+                dictionary.add(value);
+            }
+            indexes[row] = code;
+        }
+        return new DictionaryColumn(name, dictionary, indexes);
+    }
+
+    private static Object[] values(List<Row> rows, int column) {
+        Object[] values = new Object[rows.size()];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = rows.get(row).value(column);
+        }
+        return values;
+    }
+
+    public static final class Serializer extends StdSerializer<ColumnarResult> {
+        public Serializer() {
+            super(ColumnarResult.class);
+        }
+
+        @Override
+        public void serialize(ColumnarResult result, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject(result);
+            generator.writeNumberField("rowCount", result.rowCount);
+            generator.writeArrayFieldStart("columns");
+            for (Column column : result.columns) {
+                generator.writeStartObject();
+                generator.writeStringField("name", column.name());
+                switch (column) {
+                    case LongColumn longs -> {
+                        generator.writeStringField("type", "long");
+                        generator.writeFieldName("values");
+                        if (longs.nulls().isEmpty()) {
+                            generator.writeArray(longs.values(), 0, longs.values().length);
+                        } else {
+                            generator.writeStartArray();
+                            for (int row = 0; row < longs.values().length; row++) {
+                                if (longs.nulls().get(row)) generator.writeNull();
+                                else generator.writeNumber(longs.values()[row]);
+                            }
+                            generator.writeEndArray();
+                        }
+                    }
+                    case DoubleColumn doubles -> {
+                        generator.writeStringField("type", "double");
+                        generator.writeFieldName("values");
+                        if (doubles.nulls().isEmpty()) {
+                            generator.writeArray(doubles.values(), 0, doubles.values().length);
+                        } else {
+                            generator.writeStartArray();
+                            for (int row = 0; row < doubles.values().length; row++) {
+                                if (doubles.nulls().get(row)) generator.writeNull();
+                                else generator.writeNumber(doubles.values()[row]);
+                            }
+                            generator.writeEndArray();
+                        }
+                    }
+                    case BooleanColumn booleans -> {
+                        generator.writeStringField("type", "boolean");
+                        generator.writeArrayFieldStart("values");
+                        for (int row = 0; row < booleans.values().length; row++) {
+                            if (booleans.nulls().get(row)) generator.writeNull();
+                            else generator.writeBoolean(booleans.values()[row]);
+                        }
+                        generator.writeEndArray();
+                    }
+                    case DictionaryColumn strings -> {
+                        generator.writeStringField("type", "string");
+                        generator.writeArrayFieldStart("dictionary");
+                        for (String value : strings.dictionary()) {
+                            generator.writeString(value);
+                        }
+                        generator.writeEndArray();
+                        generator.writeArrayFieldStart("indexes");
+                        for (int index : strings.indexes()) {
+                            if (index < 0) generator.writeNull();
+                            else generator.writeNumber(index);
+                        }
+                        generator.writeEndArray();
+                    }
+                    case ValueColumn values -> {
+                        generator.writeStringField("type", values.type());
+                        generator.writeArrayFieldStart("values");
+                        for (Object value : values.values()) {
+                            if (value instanceof String string) generator.writeString(string);
+                            else provider.defaultSerializeValue(value, generator);
+                        }
+                        generator.writeEndArray();
+                    }
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+}
@@ -4,11 +4,16 @@ import java.util.List;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
-import pl.pwr.translator_app.domain.User;
+import pl.pwr.translator_app.domain.Row;
 
 @Data
 @AllArgsConstructor
 public class QueryResult {
-    private List<User> users;
+    private List<Row> rows;
     private int rowsAffected;
+    private boolean failed;
+
+    public QueryResult(List<Row> rows, int rowsAffected) {
+        this(rows, rowsAffected, false);
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,61 @@
+package pl.pwr.translator_app.schema;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads one column of the current row with the getter matching its type, so the driver doesn't have to look
+ * the type up again for every value. Produces the same Java types as {@link ResultSet#getObject(int)}, except
+ * for the driver objects that don't serialize to JSON: arrays become Java arrays, {@code json}, {@code jsonb}
+ * and {@code interval} values their text.
+ */
+@FunctionalInterface
+public interface ColumnReader {
+    ColumnReader OBJECT = ResultSet::getObject;
+
+    Object read(ResultSet resultSet, int index) throws SQLException;
+
+    /**
+     * @param dataType the {@code information_schema.columns.data_type} of the column
+     * @return the reader of the type, or {@link #OBJECT} for types without a dedicated getter
+     */
+    static ColumnReader of(String dataType) {
+        return switch (dataType) {
+            case "smallint", "integer" -> (resultSet, index) -> {
+                int value = resultSet.getInt(index);
+                return resultSet.wasNull() ? null : value;
+            };
+            case "bigint" -> (resultSet, index) -> {
+                long value = resultSet.getLong(index);
+                return resultSet.wasNull() ? null : value;
+            };
+            case "boolean" -> (resultSet, index) -> {
+                boolean value = resultSet.getBoolean(index);
+                return resultSet.wasNull() ? null : value;
+            };
+            case "real" -> (resultSet, index) -> {
+                float value = resultSet.getFloat(index);
+                return resultSet.wasNull() ? null : value;
+            };
+            case "double precision" -> (resultSet, index) -> {
+                double value = resultSet.getDouble(index);
+                return resultSet.wasNull() ? null : value;
+            };
+            case "numeric" -> ResultSet::getBigDecimal;
+            case "text", "character varying", "character", "json", "jsonb", "interval" -> ResultSet::getString;
+            case "ARRAY" -> (resultSet, index) -> {
+                Array array = resultSet.getArray(index);
+                if (array == null) {
+                    return null;
+                }
+                try {
+                    return array.getArray();
+                } finally {
+                    array.free();
+                }
+            };
+            default -> OBJECT;
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package pl.pwr.translator_app.schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Loads the tables and views of the schemas on the search path from {@code information_schema}, and their indexes,
+ * the primary key among them, from {@code pg_index}. Partial and invalid indexes are left out, they don't serve
+ * every query of the table.
+ */
+@RequiredArgsConstructor
+public class InformationSchemaLoader implements SchemaLoader {
+    private static final String COLUMNS = """
+            SELECT table_schema, table_name, column_name, data_type, is_nullable
+            FROM information_schema.columns
+            WHERE table_schema = ANY (current_schemas(false))
+            ORDER BY array_position(current_schemas(false), table_schema::name), table_name, ordinal_position""";
+
+    private static final String INDEXES = """
+            SELECT n.nspname, t.relname, i.relname, am.amname, pg_get_indexdef(x.indexrelid), x.indisprimary,
+                   ARRAY(SELECT a.attname::text
+                         FROM unnest(x.indkey::int2[]) WITH ORDINALITY AS k(attnum, position)
+                         LEFT JOIN pg_attribute a ON a.attrelid = x.indrelid AND a.attnum = k.attnum
+                         WHERE k.position <= x.indnkeyatts
+                         ORDER BY k.position)
+            FROM pg_index x
+            JOIN pg_class i ON i.oid = x.indexrelid
+            JOIN pg_class t ON t.oid = x.indrelid
+            JOIN pg_namespace n ON n.oid = t.relnamespace
+            JOIN pg_am am ON am.oid = i.relam
+            WHERE n.nspname = ANY (current_schemas(false)) AND x.indisvalid AND x.indpred IS NULL
+            ORDER BY i.relname""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private record Key(String schema, String table) {
+    }
+
+    @Override
+    public List<TableSchema> load() {
+        Map<Key, List<TableSchema.Column>> tables = new LinkedHashMap<>();
+        jdbcTemplate.query(COLUMNS, resultSet -> {
+            tables.computeIfAbsent(new Key(resultSet.getString(1), resultSet.getString(2)), key -> new ArrayList<>())
+                    .add(new TableSchema.Column(resultSet.getString(3), resultSet.getString(4),
+                            "YES".equals(resultSet.getString(5))));
+        });
+        Map<Key, List<TableSchema.Index>> indexes = new HashMap<>();
+        jdbcTemplate.query(INDEXES, resultSet -> {
+            // Arrays.asList keeps the nulls of expression columns
+            List<String> columns = Arrays.asList((String[]) resultSet.getArray(7).getArray());
+            indexes.computeIfAbsent(new Key(resultSet.getString(1), resultSet.getString(2)), key -> new ArrayList<>())
+                    .add(new TableSchema.Index(resultSet.getString(3), resultSet.getString(4), columns,
+                            resultSet.getString(5), resultSet.getBoolean(6)));
+        });
+        List<TableSchema> result = new ArrayList<>(tables.size());
+        tables.forEach((key, columns) -> result.add(new TableSchema(key.schema(), key.table(), columns,
+                indexes.getOrDefault(key, List.of()))));
+        return result;
+    }
+}
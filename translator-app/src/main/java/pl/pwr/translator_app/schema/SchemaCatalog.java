@@ -0,0 +1,205 @@
+package pl.pwr.translator_app.schema;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.pwr.query.Condition;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
+
+/**
+ * Tables and columns of the database, loaded once and kept until {@link #refresh()}.
+ * <p>
+ * Queries are checked against the catalog before they are translated, so a query naming an unknown table or
+ * column is rejected without a round trip to the database. A table or column created after the catalog was
+ * loaded makes the next query that names it reload the catalog, at most once per {@code minRefreshInterval},
+ * so a client can't turn invalid queries into a stream of catalog reads.
+ * <p>
+ * Tables are found by their name on the search path or qualified with their schema. Unquoted names are folded
+ * to lower case like PostgreSQL does.
+ */
+@Slf4j
+public class SchemaCatalog {
+    private final SchemaLoader loader;
+    private final long minRefreshInterval;
+    private final boolean validation;
+    private final Object lock = new Object();
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(Map<String, TableSchema> tables, long loadedAt) {
+    }
+
+    /**
+     * @param loader             reads the tables
+     * @param minRefreshInterval least time between reloads caused by unknown names
+     * @param validation         whether {@link #validate(Query)} checks queries
+     */
+    public SchemaCatalog(SchemaLoader loader, Duration minRefreshInterval, boolean validation) {
+        this.loader = loader;
+        this.minRefreshInterval = minRefreshInterval.toNanos();
+        this.validation = validation;
+    }
+
+    /**
+     * @param table a table name as written in a query, optionally qualified with its schema
+     * @return the table, loading the catalog if it wasn't loaded yet
+     */
+    public Optional<TableSchema> table(String table) {
+        return table != null ? Optional.ofNullable(snapshot().tables().get(identifier(table))) : Optional.empty();
+    }
+
+    /**
+     * @param table a table name as written in a query, optionally qualified with its schema
+     * @return the schema qualified name the table resolves to, so every spelling of a table gives the same
+     * name, or the name folded like PostgreSQL does if the table is unknown
+     */
+    public String qualifiedName(String table) {
+        return table(table).map(schema -> schema.schema() + "." + schema.name()).orElseGet(() -> identifier(table));
+    }
+
+    /**
+     * @return the loaded tables by qualified name
+     */
+    public Map<String, TableSchema> tables() {
+        Map<String, TableSchema> tables = new HashMap<>();
+        snapshot().tables().values().forEach(table -> tables.put(table.schema() + "." + table.name(), table));
+        return tables;
+    }
+
+    /**
+     * Load the tables again, picking up schema changes.
+     */
+    public void refresh() {
+        synchronized (lock) {
+            load();
+        }
+    }
+
+    /**
+     * Check that every table and column the query names exists. Queries without a type or table are left to
+     * the translator, which reports them as invalid.
+     *
+     * @throws IllegalArgumentException naming the first unknown table or column
+     */
+    public void validate(Query query) {
+        if (!validation || query.queryType() == null || query.table() == null) {
+            return;
+        }
+        Snapshot current = snapshot();
+        String unknown = unknown(current, query);
+        if (unknown != null && reloadAfter(current)) {
+            unknown = unknown(snapshot(), query);
+        }
+        if (unknown != null) {
+            throw new IllegalArgumentException(unknown);
+        }
+    }
+
+    /**
+     * @return a message naming the first unknown table or column, or {@code null} if there is none
+     */
+    private static String unknown(Snapshot snapshot, Query query) {
+        TableSchema table = snapshot.tables().get(identifier(query.table()));
+        if (table == null) {
+            return "Unknown table: " + query.table();
+        }
+        for (String column : columns(query)) {
+            if (!"*".equals(column) && !table.hasColumn(column)) {
+                return "Unknown column of " + query.table() + ": " + column;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> columns(Query query) {
+        List<String> columns = new ArrayList<>();
+        if (query.columns() != null) {
+            query.columns().stream().filter(Objects::nonNull).forEach(columns::add);
+        }
+        if (query.values() != null) {
+            query.values().stream().filter(Objects::nonNull).forEach(row -> columns.addAll(row.keySet()));
+        }
+        if (query.conditions() != null) {
+            query.conditions().stream().filter(Objects::nonNull).map(Condition::column).filter(Objects::nonNull)
+                    .forEach(columns::add);
+        }
+        if (query.orderBy() != null) {
+            query.orderBy().stream().filter(Objects::nonNull).map(OrderBy::column).filter(Objects::nonNull)
+                    .forEach(columns::add);
+        }
+        if (query.groupBy() != null) {
+            query.groupBy().stream().filter(Objects::nonNull).forEach(columns::add);
+        }
+        return columns;
+    }
+
+    private boolean reloadAfter(Snapshot stale) {
+        synchronized (lock) {
+            if (snapshot != stale) {
+                // Reloaded by another query in the meantime
+                return true;
+            }
+            if (System.nanoTime() - stale.loadedAt() < minRefreshInterval) {
+                return false;
+            }
+            load();
+            return true;
+        }
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (lock) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                }
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        List<TableSchema> loaded = loader.load();
+        Map<String, TableSchema> tables = new HashMap<>();
+        for (TableSchema table : loaded) {
+            tables.put(table.schema() + "." + table.name(), table);
+            // The first schema on the search path wins, like for an unqualified name in SQL
+            tables.putIfAbsent(table.name(), table);
+        }
+        Snapshot loadedSnapshot = new Snapshot(Map.copyOf(tables), System.nanoTime());
+        snapshot = loadedSnapshot;
+        log.info("Schema catalog loaded with {} table(s)", loaded.size());
+        return loadedSnapshot;
+    }
+
+    /**
+     * The name PostgreSQL resolves an identifier to: quoted names as they are, the others in lower case.
+     * Every part of a qualified name is resolved on its own.
+     */
+    public static String identifier(String name) {
+        StringBuilder result = new StringBuilder(name.length());
+        boolean quoted = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < name.length() && name.charAt(i + 1) == '"') {
+                    result.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else {
+                result.append(quoted ? c : Character.toLowerCase(c));
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package pl.pwr.translator_app.schema;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@code /actuator/schema} lists the tables known to the {@link SchemaCatalog} with their column types, a POST
+ * reloads them after a schema change.
+ */
+@Component
+@Endpoint(id = "schema")
+@RequiredArgsConstructor
+public class SchemaEndpoint {
+    private final SchemaCatalog schemaCatalog;
+
+    @ReadOperation
+    public Map<String, Map<String, String>> tables() {
+        Map<String, Map<String, String>> tables = new TreeMap<>();
+        schemaCatalog.tables().forEach((name, table) -> {
+            Map<String, String> columns = new LinkedHashMap<>();
+            table.columns().forEach(column -> columns.put(column.name(), column.dataType()));
+            tables.put(name, columns);
+        });
+        return tables;
+    }
+
+    @WriteOperation
+    public Map<String, Map<String, String>> refresh() {
+        schemaCatalog.refresh();
+        return tables();
+    }
+}
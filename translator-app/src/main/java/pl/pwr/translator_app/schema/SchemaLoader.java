@@ -0,0 +1,12 @@
+package pl.pwr.translator_app.schema;
+
+import java.util.List;
+
+/**
+ * Reads the tables of the database, in search path order.
+ */
+@FunctionalInterface
+public interface SchemaLoader {
+
+    List<TableSchema> load();
+}
@@ -0,0 +1,122 @@
+package pl.pwr.translator_app.schema;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import pl.pwr.translator_app.domain.Row;
+
+/**
+ * Columns and indexes of a table or view as loaded by the {@link SchemaCatalog}, with the column readers and the
+ * {@link Row.Columns} of a {@code SELECT *} resolved up front.
+ */
+public final class TableSchema {
+    private final String schema;
+    private final String name;
+    private final Map<String, Column> columns = new LinkedHashMap<>();
+    private final Row.Columns allColumns;
+    private final ColumnReader[] allReaders;
+    private final List<Index> indexes;
+
+    /**
+     * @param nullable whether the column may hold nulls, assumed when it isn't known
+     */
+    public record Column(String name, String dataType, boolean nullable, ColumnReader reader) {
+        public Column(String name, String dataType) {
+            this(name, dataType, true);
+        }
+
+        public Column(String name, String dataType, boolean nullable) {
+            this(name, dataType, nullable, ColumnReader.of(dataType));
+        }
+    }
+
+    /**
+     * A valid index over the whole table.
+     *
+     * @param method     the access method, like {@code btree} or {@code gin}
+     * @param columns    the key columns in index order, {@code null} for an expression
+     * @param definition the {@code CREATE INDEX} statement, naming the operator classes
+     * @param primary    whether the index enforces the primary key
+     */
+    public record Index(String name, String method, List<String> columns, String definition, boolean primary) {
+        public Index(String name, String method, List<String> columns, String definition) {
+            this(name, method, columns, definition, false);
+        }
+    }
+
+    public TableSchema(String schema, String name, List<Column> columns) {
+        this(schema, name, columns, List.of());
+    }
+
+    public TableSchema(String schema, String name, List<Column> columns, List<Index> indexes) {
+        this.schema = schema;
+        this.name = name;
+        columns.forEach(column -> this.columns.put(column.name(), column));
+        this.allColumns = new Row.Columns(columns.stream().map(Column::name).toList());
+        this.allReaders = columns.stream().map(Column::reader).toArray(ColumnReader[]::new);
+        this.indexes = List.copyOf(indexes);
+    }
+
+    public String schema() {
+        return schema;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public List<Column> columns() {
+        return List.copyOf(columns.values());
+    }
+
+    public List<Index> indexes() {
+        return indexes;
+    }
+
+    /**
+     * @return the columns of the primary key in key order, empty if the table has none
+     */
+    public List<String> primaryKey() {
+        return indexes.stream().filter(Index::primary).findFirst().map(Index::columns).orElse(List.of());
+    }
+
+    /**
+     * @param column a column name as written in a query
+     */
+    public boolean hasColumn(String column) {
+        return columns.containsKey(SchemaCatalog.identifier(column));
+    }
+
+    /**
+     * @param column a column name as written in a query
+     */
+    public Optional<Column> column(String column) {
+        return Optional.ofNullable(columns.get(SchemaCatalog.identifier(column)));
+    }
+
+    /**
+     * @param label a column label as returned by the database
+     * @return the reader of the column, or {@link ColumnReader#OBJECT} if the label is not a column of this table
+     */
+    public ColumnReader reader(String label) {
+        Column column = columns.get(label);
+        return column != null ? column.reader() : ColumnReader.OBJECT;
+    }
+
+    /**
+     * Whether the labels are exactly the columns of the table in table order, as selected by {@code SELECT *}.
+     */
+    public boolean isAllColumns(List<String> labels) {
+        return labels.size() == allReaders.length && labels.equals(List.copyOf(columns.keySet()));
+    }
+
+    public Row.Columns allColumns() {
+        return allColumns;
+    }
+
+    public ColumnReader[] allReaders() {
+        return allReaders;
+    }
+}
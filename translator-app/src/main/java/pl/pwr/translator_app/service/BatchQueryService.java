@@ -0,0 +1,209 @@
+package pl.pwr.translator_app.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pl.pwr.translator_app.admission.AdmissionControl;
+import pl.pwr.translator_app.admission.AdmissionRejectedException;
+import pl.pwr.translator_app.dto.QueryResultDTO;
+import pl.pwr.translator_app.repository.UserRepository;
+
+/**
+ * Executes newline-delimited JSON queries one line at a time and streams one result line back per query.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchQueryService {
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final AdmissionControl admissionControl;
+
+    /**
+     * Execute every query of the input in order. Blank lines are ignored.
+     * <p>
+     * The whole batch runs in one transaction on one connection. Without {@code atomic} every query runs under a
+     * savepoint of its own: a failing query is rolled back to it and reported as failed, the other queries commit
+     * together at the end. With {@code atomic} the first failing query rolls the batch back and the queries after
+     * it are reported as skipped.
+     * <p>
+     * The batch holds its connection throughout, so it is admitted once as a whole and rejected before anything
+     * is written. A query shed later by the queue of the cost guard fails like any other query of the batch.
+     *
+     * @param input  the NDJSON queries
+     * @param output receives one JSON result per query, each flushed as soon as it is available
+     * @param atomic whether a failing query rolls the whole batch back
+     */
+    public void queryUsers(InputStream input, OutputStream output, boolean atomic) throws IOException {
+        LineReader lines = new LineReader(input);
+        admissionControl.execute(false, () -> {
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    try {
+                        if (atomic) {
+                            queryUsersAtomically(lines, output, status);
+                        } else {
+                            queryUsersWithSavepoints(lines, output);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return null;
+        });
+    }
+
+    private void queryUsersAtomically(LineReader lines, OutputStream output, TransactionStatus status) throws IOException {
+        boolean failed = false;
+        int count = 0;
+        byte[] line;
+        while ((line = lines.next()) != null) {
+            count++;
+            if (failed) {
+                write(output, failure("Skipped: an earlier query in the batch failed"));
+                continue;
+            }
+
+            QueryResultDTO result = queryUsers(line);
+            // Database errors only surface as a rollback-only transaction
+            if (!result.isSuccessful() || status.isRollbackOnly()) {
+                failed = true;
+                status.setRollbackOnly();
+                log.warn("Query {} of the batch failed, rolling back", count);
+                if (result.isSuccessful()) {
+                    result.setSuccessful(false);
+                    result.setMessage("Error: query failed, the batch was rolled back");
+                }
+            }
+            write(output, result);
+        }
+    }
+
+    private void queryUsersWithSavepoints(LineReader lines, OutputStream output) throws IOException {
+        int count = 0;
+        byte[] line;
+        while ((line = lines.next()) != null) {
+            count++;
+            byte[] query = line;
+            QueryResultDTO[] result = new QueryResultDTO[1];
+            // Database errors only surface as a failed savepoint
+            if (!userRepository.underSavepoint(() -> result[0] = queryUsers(query))
+                    && result[0].isSuccessful()) {
+                log.warn("Query {} of the batch failed, rolled back to its savepoint", count);
+                result[0].setSuccessful(false);
+                result[0].setMessage("Error: query failed and was rolled back");
+            }
+            write(output, result[0]);
+        }
+    }
+
+    /**
+     * The response is already being written, so a shed query is reported in its result line instead of with an
+     * error status.
+     */
+    private QueryResultDTO queryUsers(byte[] line) {
+        try {
+            return userService.queryUsers(line);
+        } catch (AdmissionRejectedException e) {
+            return failure("Error: " + e.getReason());
+        }
+    }
+
+    private void write(OutputStream output, QueryResultDTO result) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(result));
+        output.write('\n');
+        output.flush();
+    }
+
+    private QueryResultDTO failure(String message) {
+        QueryResultDTO result = new QueryResultDTO();
+        result.setSuccessful(false);
+        result.setMessage(message);
+        result.setResults(Collections.emptyList());
+        return result;
+    }
+
+    /**
+     * Splits the input into lines without decoding it, keeping at most one line in memory.
+     */
+    private static final class LineReader {
+        private final InputStream input;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+        private int limit;
+
+        private LineReader(InputStream input) {
+            this.input = input;
+        }
+
+        /**
+         * @return the next non-blank line, or {@code null} at the end of the input
+         */
+        private byte[] next() throws IOException {
+            byte[] line;
+            do {
+                line = nextLine();
+            } while (line != null && isBlank(line));
+            return line;
+        }
+
+        private byte[] nextLine() throws IOException {
+            ByteArrayOutputStream overflow = null;  // Only needed for lines spanning several reads
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(input.read(buffer), 0);
+                    position = 0;
+                    if (limit == 0) {
+                        return overflow != null ? overflow.toByteArray() : null;
+                    }
+                }
+
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                if (position < limit) {
+                    position++;
+                    if (overflow == null) {
+                        return Arrays.copyOfRange(buffer, start, position - 1);
+                    }
+                    overflow.write(buffer, start, position - 1 - start);
+                    return overflow.toByteArray();
+                }
+
+                if (overflow == null) {
+                    overflow = new ByteArrayOutputStream();
+                }
+                overflow.write(buffer, start, position - start);
+            }
+        }
+
+        private static boolean isBlank(byte[] line) {
+            for (byte b : line) {
+                if (b != ' ' && b != '\t' && b != '\r') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
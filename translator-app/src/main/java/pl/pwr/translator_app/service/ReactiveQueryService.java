@@ -0,0 +1,66 @@
+package pl.pwr.translator_app.service;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pl.pwr.query.Query;
+import pl.pwr.translator_app.admission.AdmissionRejectedException;
+import pl.pwr.translator_app.domain.Row;
+import pl.pwr.translator_app.guard.CostGuard;
+import pl.pwr.translator_app.metrics.QueryMetrics;
+import pl.pwr.translator_app.repository.ReactiveUserRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Executes SELECT queries over R2DBC. Queries are checked and translated by
+ * {@link StreamingQueryService#prepare}, with the translator and the cost guard shared with the blocking endpoints.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveQueryService {
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final CostGuard costGuard;
+    private final QueryMetrics metrics;
+
+    /**
+     * A queued query waits for the queue of the cost guard when it is subscribed to, and holds its permit until
+     * the rows are exhausted, on error and on cancellation.
+     *
+     * @param prepared a query returned by {@link StreamingQueryService#prepare}
+     * @return the selected rows, fetched as the subscriber requests them
+     */
+    public Flux<Row> queryUsers(StreamingQueryService.Prepared prepared) {
+        Query query = prepared.query();
+        log.debug("Reactive query: {}", prepared.statement().sql());
+        return Flux.using(() -> admit(prepared), release -> {
+            long start = metrics.start();
+            AtomicInteger rows = new AtomicInteger();
+            return reactiveUserRepository.streamUsers(prepared.statement())
+                    .doOnNext(row -> rows.incrementAndGet())
+                    .doOnComplete(() -> {
+                        metrics.stage(QueryMetrics.Stage.EXECUTE, query, start);
+                        metrics.rows(query, rows.get());
+                        metrics.query(query, prepared.start(), false);
+                    })
+                    .doOnError(e -> {
+                        metrics.error(QueryMetrics.Stage.EXECUTE, query);
+                        metrics.query(query, prepared.start(), true);
+                    });
+        }, Runnable::run);
+    }
+
+    private Runnable admit(StreamingQueryService.Prepared prepared) {
+        try {
+            return costGuard.admit(prepared.decision());
+        } catch (AdmissionRejectedException e) {
+            log.warn("Reactive query rejected: {}", e.getReason());
+            metrics.rejected(prepared.query(), e.getRejection().name().toLowerCase(Locale.ROOT));
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package pl.pwr.translator_app.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pl.pwr.parser.QueryTranslator;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.admission.AdmissionControl;
+import pl.pwr.translator_app.admission.AdmissionRejectedException;
+import pl.pwr.translator_app.advisor.WorkloadProfile;
+import pl.pwr.translator_app.audit.AuditJournal;
+import pl.pwr.translator_app.domain.Row;
+import pl.pwr.translator_app.dto.QueryRequestDTO;
+import pl.pwr.translator_app.guard.CostGuard;
+import pl.pwr.translator_app.mapper.QueryMapper;
+import pl.pwr.translator_app.metrics.QueryMetrics;
+import pl.pwr.translator_app.pagination.KeysetPagination;
+import pl.pwr.translator_app.repository.UserRepository;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+
+/**
+ * Executes SELECT queries and writes the rows to the output while they are read from the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StreamingQueryService {
+    private final UserRepository userRepository;
+    private final QueryMapper queryMapper;
+    private final QueryTranslator queryTranslator;
+    private final KeysetPagination keysetPagination;
+    private final ObjectMapper objectMapper;
+    private final AdmissionControl admissionControl;
+    private final SchemaCatalog schemaCatalog;
+    private final WorkloadProfile workloadProfile;
+    private final AuditJournal auditJournal;
+    private final CostGuard costGuard;
+    private final QueryMetrics metrics;
+
+    /**
+     * A SELECT checked by the cost guard and translated, ready to be streamed.
+     *
+     * @param query     the query to execute, with the default limit of the cost guard if it had none
+     * @param statement its translation
+     * @param decision  the decision of the cost guard, {@code null} if the guard is disabled
+     * @param start     when the request was received, as returned by {@link QueryMetrics#start()}
+     */
+    public record Prepared(Query query, SqlStatement statement, CostGuard.Decision decision, long start) {
+    }
+
+    /**
+     * Check that the query can be streamed and translate it, before anything is written to the response.
+     * <p>
+     * Streams are bounded like the other endpoints: a query without a limit gets the default limit of the cost
+     * guard, and a query over its thresholds is rejected here or queued when it is executed.
+     *
+     * @throws IllegalArgumentException    if the query is not a valid SELECT, names an unknown table or column,
+     *                                     or was rejected by the cost guard
+     * @throws AdmissionRejectedException if planning the query was shed
+     */
+    public Prepared prepare(QueryRequestDTO request) {
+        long start = metrics.start();
+        Query requested;
+        Query query;
+        try {
+            requested = queryMapper.map(request);
+            if (requested.queryType() == null || !"SELECT".equalsIgnoreCase(requested.queryType())) {
+                throw new IllegalArgumentException("Only SELECT queries can be streamed");
+            }
+            Query bounded = costGuard.withDefaultLimit(requested);
+            schemaCatalog.validate(bounded);
+            // A stream ends with the last row, so it continues after a cursor but gets none
+            query = keysetPagination.apply(bounded, request.getCursor(), false).query();
+        } catch (IllegalArgumentException e) {
+            metrics.error(QueryMetrics.Stage.MAP, null);
+            throw e;
+        }
+        metrics.stage(QueryMetrics.Stage.MAP, query, start);
+
+        SqlStatement statement = queryTranslator.prepare(query);
+        if (!statement.sql().startsWith("SELECT")) {
+            metrics.error(QueryMetrics.Stage.TRANSLATE, query);
+            metrics.query(query, start, true);
+            throw new IllegalArgumentException(statement.sql());
+        }
+        workloadProfile.record(query, statement);
+
+        CostGuard.Decision decision;
+        try {
+            decision = costGuard.check(query, statement, query.limit() != requested.limit());
+        } catch (AdmissionRejectedException e) {
+            log.warn("Stream rejected: {}", e.getReason());
+            metrics.rejected(query, e.getRejection().name().toLowerCase(Locale.ROOT));
+            throw e;
+        }
+        if (decision != null && decision.outcome() == CostGuard.Outcome.REJECTED) {
+            log.warn("Stream rejected by the cost guard: {}", decision.reason());
+            metrics.query(query, start, true);
+            throw new IllegalArgumentException(decision.reason());
+        }
+        return new Prepared(query, statement, decision, start);
+    }
+
+    /**
+     * Execute the statement and write every selected row to the output, either as a single JSON array or as
+     * one JSON object per line.
+     * <p>
+     * At most one row is held in memory at a time. A database error after the first rows have been written
+     * leaves the output truncated. Nothing is written before the query is admitted, so a rejection can still
+     * be answered with an error status.
+     *
+     * @param prepared a query returned by {@link #prepare(QueryRequestDTO)}
+     * @param output   receives the rows
+     * @param ndjson   whether to write newline-delimited JSON instead of an array
+     * @throws AdmissionRejectedException if the query was shed
+     */
+    public void streamUsers(Prepared prepared, OutputStream output, boolean ndjson) throws IOException {
+        Query query = prepared.query();
+        SqlStatement statement = prepared.statement();
+        long executeStart = metrics.start();
+        try {
+            int rows = costGuard.execute(prepared.decision(), () -> admissionControl.execute(true, () -> {
+                long start = System.nanoTime();
+                try {
+                    int count = stream(query.table(), statement, output, ndjson);
+                    auditJournal.append(statement, System.nanoTime() - start, count, false);
+                    return count;
+                } catch (IOException | RuntimeException e) {
+                    auditJournal.append(statement, System.nanoTime() - start, 0, true);
+                    throw e;
+                }
+            }));
+            metrics.stage(QueryMetrics.Stage.EXECUTE, query, executeStart);
+            metrics.rows(query, rows);
+            metrics.query(query, prepared.start(), false);
+        } catch (AdmissionRejectedException e) {
+            log.warn("Stream rejected: {}", e.getReason());
+            metrics.rejected(query, e.getRejection().name().toLowerCase(Locale.ROOT));
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            metrics.error(QueryMetrics.Stage.EXECUTE, query);
+            metrics.query(query, prepared.start(), true);
+            throw e;
+        }
+    }
+
+    private int stream(String table, SqlStatement statement, OutputStream output, boolean ndjson) throws IOException {
+        log.debug("Streaming query: {}", statement.sql());
+        // Not closed on failure, so a broken stream is never completed into valid JSON
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        generator.setRootValueSeparator(null);
+        try {
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+            int count = userRepository.streamUsers(table, statement, row -> write(generator, row, ndjson));
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+            generator.close();
+            log.debug("Streamed {} row(s)", count);
+            return count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void write(JsonGenerator generator, Row row, boolean ndjson) {
+        try {
+            generator.writeObject(row);
+            if (ndjson) {
+                generator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,57 +1,234 @@
 package pl.pwr.translator_app.service;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import pl.pwr.parser.JsonQueryReader;
 import pl.pwr.parser.QueryTranslator;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.admission.AdmissionControl;
+import pl.pwr.translator_app.admission.AdmissionRejectedException;
+import pl.pwr.translator_app.advisor.WorkloadProfile;
+import pl.pwr.translator_app.audit.AuditJournal;
+import pl.pwr.translator_app.cache.ResultCache;
 import pl.pwr.translator_app.domain.User;
 import pl.pwr.translator_app.dto.QueryRequestDTO;
 import pl.pwr.translator_app.dto.QueryResultDTO;
+import pl.pwr.translator_app.guard.CostGuard;
+import pl.pwr.translator_app.mapper.QueryMapper;
+import pl.pwr.translator_app.metrics.QueryMetrics;
+import pl.pwr.translator_app.pagination.KeysetPagination;
+import pl.pwr.translator_app.prepared.PreparedQuery;
+import pl.pwr.translator_app.profiler.QueryProfiler;
 import pl.pwr.translator_app.repository.UserRepository;
 import pl.pwr.translator_app.result.QueryResult;
+import pl.pwr.translator_app.schema.SchemaCatalog;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserService {
+    private static final String USERS_TABLE = "user_entity";
+
     private final UserRepository userRepository;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final QueryMapper queryMapper;
+    private final QueryTranslator queryTranslator;
+    private final KeysetPagination keysetPagination;
+    private final Optional<ResultCache> resultCache;
+    private final QueryMetrics metrics;
+    private final AdmissionControl admissionControl;
+    private final SchemaCatalog schemaCatalog;
+    private final CostGuard costGuard;
+    private final WorkloadProfile workloadProfile;
+    private final QueryProfiler queryProfiler;
+    private final AuditJournal auditJournal;
+
+    @Value("${translator.insert.max-rows-per-statement:1000}")
+    private int maxInsertRows;
+
+    @Value("${translator.insert.max-parameters-per-statement:32767}")
+    private int maxInsertParameters;
+
+    public QueryResultDTO queryUsers(QueryRequestDTO request) {
+        KeysetPagination.Page page;
+        boolean limited;
+        long start = metrics.start();
+        try {
+            // The DTO is already structured, so it is compiled directly instead of going through JSON again
+            Query requested = queryMapper.map(request);
+            // Limited before paging, so the cursor of a limited page matches the query sent with it again
+            Query bounded = costGuard.withDefaultLimit(requested);
+            limited = bounded != requested;
+            page = keysetPagination.apply(bounded, request.getCursor(),
+                    request.getCursor() != null || Boolean.TRUE.equals(request.getPaginate()));
+        } catch (IllegalArgumentException e) {
+            log.error("Error reading query", e);
+            metrics.error(QueryMetrics.Stage.MAP, null);
+            return failure(e);
+        }
+        metrics.stage(QueryMetrics.Stage.MAP, page.query(), start);
+        Duration ttl = request.getCacheTtl() != null ? Duration.ofSeconds(request.getCacheTtl()) : null;
+        return queryUsers(page, null, new ResultCache.Policy(!Boolean.FALSE.equals(request.getCache()), ttl), limited);
+    }
 
-    public QueryResultDTO queryUsers(QueryRequestDTO query) {
+    /**
+     * Execute a query read straight from the raw JSON request body
+     *
+     * @param body the UTF-8 encoded JSON query
+     * @return the query result
+     */
+    public QueryResultDTO queryUsers(byte[] body) {
+        Query query;
+        boolean limited;
+        long start = metrics.start();
         try {
-            // Convert DTO back to the JSON string
-            String jsonQuery = objectMapper.writeValueAsString(query);
-            log.info("JSON Query: {}", jsonQuery);
+            Query requested = JsonQueryReader.read(body);
+            query = costGuard.withDefaultLimit(requested);
+            limited = query != requested;
+        } catch (IllegalArgumentException e) {
+            log.error("Error reading query", e);
+            metrics.error(QueryMetrics.Stage.READ, null);
+            return failure(e);
+        }
+        metrics.stage(QueryMetrics.Stage.READ, query, start);
+        return queryUsers(query, ResultCache.Policy.DEFAULT, limited);
+    }
+
+    public QueryResultDTO queryUsers(Query query) {
+        return queryUsers(query, ResultCache.Policy.DEFAULT);
+    }
 
-            // Parse JSON using ANTLR-based translator
-            QueryTranslator queryTranslator = new QueryTranslator();
+    /**
+     * @param query       the query to execute
+     * @param cachePolicy whether and for how long a SELECT result may be cached
+     * @return the query result
+     */
+    public QueryResultDTO queryUsers(Query query, ResultCache.Policy cachePolicy) {
+        return queryUsers(query, cachePolicy, false);
+    }
+
+    /**
+     * Execute a registered query with the given parameter values, without translating it again.
+     *
+     * @param prepared the registered query
+     * @param values   the value of every parameter of the query by name
+     * @return the query result, without a cursor to the next page
+     */
+    public QueryResultDTO queryUsers(PreparedQuery prepared, Map<String, ?> values) {
+        Query query;
+        SqlStatement statement;
+        long start = metrics.start();
+        try {
+            query = prepared.bind(values);
+            statement = prepared.statement(values);
+        } catch (IllegalArgumentException e) {
+            log.error("Error binding prepared query {}", prepared.id(), e);
+            metrics.error(QueryMetrics.Stage.BIND, prepared.query());
+            return failure(e);
+        }
+        metrics.stage(QueryMetrics.Stage.BIND, query, start);
+        return queryUsers(KeysetPagination.Page.unpaged(query), statement, prepared.cachePolicy(), prepared.limited());
+    }
+
+    /**
+     * @param limited whether the query got the default limit of the cost guard
+     */
+    private QueryResultDTO queryUsers(Query query, ResultCache.Policy cachePolicy, boolean limited) {
+        return queryUsers(KeysetPagination.Page.unpaged(query), null, cachePolicy, limited);
+    }
 
-            String translatedQuery = queryTranslator.translate(jsonQuery);
-            log.info("Translated Query: {}", translatedQuery);
+    /**
+     * @param page     the query to execute, with the requested one to validate
+     * @param prepared the statement of a registered query, {@code null} to validate and translate the query
+     * @param limited  whether the query got the default limit of the cost guard
+     */
+    private QueryResultDTO queryUsers(KeysetPagination.Page page, SqlStatement prepared,
+                                      ResultCache.Policy cachePolicy, boolean limited) {
+        Query query = page.query();
+        long start = metrics.start();
+        QueryMetrics.Stage stage = QueryMetrics.Stage.TRANSLATE;
+        try {
+            // Per query logging is left to DEBUG, slow shapes are found through the profiler
+            log.debug("Query request: {}", query);
+            List<SqlStatement> statements;
+            if (prepared != null) {
+                // Validated and translated once, when the query was registered
+                statements = List.of(prepared);
+            } else {
+                // Columns selected only to page are not the client's, the requested query names the table's own
+                schemaCatalog.validate(page.requested());
+                // Translation stages are timed by the translator itself
+                statements = queryTranslator.prepareBatch(query, maxInsertRows, maxInsertParameters);
+            }
+            String translatedQuery = statements.stream().map(SqlStatement::sql).distinct().collect(Collectors.joining("; "));
+            log.debug("Translated Query: {} in {} statement(s)", translatedQuery, statements.size());
+            if (translatedQuery.startsWith("Invalid")) {
+                metrics.error(QueryMetrics.Stage.TRANSLATE, query);
+            } else if (statements.size() == 1) {
+                workloadProfile.record(query, statements.get(0));
+            }
 
-            String queryType = query.getQueryType().toUpperCase();
+            String queryType = query.queryType().toUpperCase();
             
-            // Execute the translated SQL query
-            QueryResult queryResult = userRepository.queryUsers(translatedQuery);
+            // Execute the translated SQL query, reads in a read-only transaction
+            stage = QueryMetrics.Stage.EXECUTE;
+            long executeStart = metrics.start();
+            QueryResult queryResult;
+            CostGuard.Decision decision = null;
+            if (statements.size() == 1 && statements.get(0).readOnly()) {
+                decision = costGuard.check(query, statements.get(0), limited);
+                if (decision != null && decision.outcome() == CostGuard.Outcome.REJECTED) {
+                    log.warn("Query rejected by the cost guard: {}", decision.reason());
+                    metrics.query(query, start, true);
+                    QueryResultDTO rejected = failure(decision.reason());
+                    rejected.setOperation("SELECT");
+                    rejected.setQuery(translatedQuery);
+                    rejected.setGuard(decision);
+                    return rejected;
+                }
+                queryResult = select(query.table(), statements.get(0), cachePolicy, decision);
+            } else {
+                queryResult = admissionControl.execute(false,
+                        () -> profile(statements.get(0),
+                                () -> userRepository.queryUsers(query.table(), statements, auditJournal::append)));
+                invalidate(query.table());
+            }
+            metrics.stage(QueryMetrics.Stage.EXECUTE, query, executeStart);
+            if (queryResult.isFailed()) {
+                metrics.error(QueryMetrics.Stage.EXECUTE, query);
+            }
             
             // Create appropriate response based on query type
             QueryResultDTO result = new QueryResultDTO();
             result.setSuccessful(true);
             result.setQuery(translatedQuery);
             result.setRowsAffected(queryResult.getRowsAffected());
+            result.setGuard(decision);
 
             switch (queryType) {
                 case "SELECT" -> {
                     result.setOperation("SELECT");
                     result.setMessage("Query executed successfully");
-                    result.setResults(queryResult.getUsers());
+                    result.setResults(page.rows(queryResult.getRows()));
+                    // A registered query is never paged, it has no cursor to continue with
+                    result.setNextCursor(keysetPagination.nextCursor(page, queryResult.getRows()));
+                    if (!queryResult.isFailed()) {
+                        metrics.rows(query, queryResult.getRows().size());
+                    }
                 }
                 case "INSERT" -> {
                     result.setOperation("INSERT");
@@ -70,16 +247,77 @@ public class UserService {
                 }
             }
             
+            metrics.query(query, start, queryResult.isFailed());
             return result;
+        } catch (AdmissionRejectedException e) {
+            // Shed load is answered with an error status instead of a failed result
+            log.warn("Query rejected: {}", e.getReason());
+            metrics.rejected(query, e.getRejection().name().toLowerCase(Locale.ROOT));
+            throw e;
         } catch (Exception e) {
             log.error("Error executing query: {}", query, e);
-            QueryResultDTO result = new QueryResultDTO();
-            result.setSuccessful(false);
-            result.setMessage("Error: " + e.getMessage());
-            result.setResults(Collections.emptyList());
-            return result;
+            metrics.error(stage, query);
+            metrics.query(query, start, true);
+            return failure(e);
         }
     }
+
+    private QueryResult select(String table, SqlStatement statement, ResultCache.Policy cachePolicy,
+                               CostGuard.Decision decision) {
+        // Inside a transaction the SELECT may see uncommitted writes, which must not be shared
+        if (resultCache.isEmpty() || !cachePolicy.enabled() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return execute(table, statement, decision);
+        }
+        // Cache hits don't touch the database, so only misses wait for admission
+        return resultCache.get().get(table, new ResultCache.Key(statement.sql(), statement.parameters()),
+                cachePolicy.ttl(), () -> execute(table, statement, decision));
+    }
+
+    private QueryResult execute(String table, SqlStatement statement, CostGuard.Decision decision) {
+        return costGuard.execute(decision, () -> admissionControl.execute(true,
+                () -> profile(statement, () -> userRepository.selectUsers(table, statement, auditJournal::append))));
+    }
+
+    /**
+     * Run an admitted execution, timed under the shape of its first statement. The repository journals every
+     * statement it executed with its own duration and row count.
+     */
+    private QueryResult profile(SqlStatement first, Supplier<QueryResult> execution) {
+        long start = System.nanoTime();
+        QueryResult result = execution.get();
+        // Statements the translator rejected don't make a shape worth profiling, but the attempt is audited
+        if (!first.sql().startsWith("Invalid")) {
+            queryProfiler.record(first, System.nanoTime() - start, result.getRowsAffected(), result.isFailed());
+        }
+        return result;
+    }
+
+    private void invalidate(String table) {
+        resultCache.ifPresent(cache -> {
+            cache.invalidate(table);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                // Readers may still cache the old rows until the surrounding transaction commits
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        cache.invalidate(table);
+                    }
+                });
+            }
+        });
+    }
+
+    private QueryResultDTO failure(Exception e) {
+        return failure(e.getMessage());
+    }
+
+    private QueryResultDTO failure(String message) {
+        QueryResultDTO result = new QueryResultDTO();
+        result.setSuccessful(false);
+        result.setMessage("Error: " + message);
+        result.setResults(Collections.emptyList());
+        return result;
+    }
     
     // CRUD operations
     
@@ -90,7 +328,9 @@ public class UserService {
      * @return the created user
      */
     public User createUser(User user) {
-        return userRepository.saveUser(user);
+        User created = userRepository.saveUser(user);
+        invalidate(USERS_TABLE);
+        return created;
     }
     
     /**
@@ -119,7 +359,9 @@ public class UserService {
      * @return the updated user
      */
     public User updateUser(User user) {
-        return userRepository.saveUser(user);
+        User updated = userRepository.saveUser(user);
+        invalidate(USERS_TABLE);
+        return updated;
     }
     
     /**
@@ -129,7 +371,9 @@ public class UserService {
      * @return true if the user was deleted, false if not found
      */
     public boolean deleteUser(Long id) {
-        return userRepository.deleteById(id);
+        boolean deleted = userRepository.deleteById(id);
+        invalidate(USERS_TABLE);
+        return deleted;
     }
     
     /**
@@ -137,6 +381,7 @@ public class UserService {
      */
     public void deleteAllUsers() {
         userRepository.deleteAll();
+        invalidate(USERS_TABLE);
     }
     
     /**
@@ -146,6 +391,8 @@ public class UserService {
      * @return list of created users
      */
     public List<User> createTestData(int count) {
-        return userRepository.createTestData(count);
+        List<User> users = userRepository.createTestData(count);
+        invalidate(USERS_TABLE);
+        return users;
     }
 }
@@ -0,0 +1,125 @@
+package pl.pwr.translator_app;
+
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Runs against two independent databases, so the data a query sees tells which one it was routed to.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+class ReadReplicaRoutingTest {
+
+    @LocalServerPort
+    private Integer port;
+
+    @Container
+    private static final PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    private static final PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("translator.datasource.replicas[0].url", replica::getJdbcUrl);
+        registry.add("translator.datasource.replicas[0].username", replica::getUsername);
+        registry.add("translator.datasource.replicas[0].password", replica::getPassword);
+    }
+
+    @BeforeAll
+    static void seedReplica() throws SQLException {
+        execute(replica, """
+                CREATE TABLE user_entity (id SERIAL PRIMARY KEY, first_name VARCHAR(255), last_name VARCHAR(255), email VARCHAR(255));
+                INSERT INTO user_entity (first_name, last_name, email) VALUES ('Replica', 'User', 'replica@example.com');
+                """);
+    }
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.baseURI = "http://localhost:" + port;
+    }
+
+    @Test
+    void shouldReadFromReplicaAndWriteToPrimary() throws SQLException {
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+{
+  "queryType": "INSERT",
+  "table": "user_entity",
+  "columns": ["first_name", "last_name", "email"],
+  "values": [
+    { "first_name": "Primary", "last_name": "User", "email": "primary@example.com" }
+  ]
+}
+""")
+                .when()
+                .post("/users")
+                .then()
+                .statusCode(200)
+                .body("successful", equalTo(true))
+                .body("rowsAffected", equalTo(1));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["first_name"]
+}
+""")
+                .when()
+                .post("/users")
+                .then()
+                .statusCode(200)
+                .body("successful", equalTo(true))
+                .body("results.firstName", contains("Replica"));
+
+        assertThat(count(primary, "Primary")).isEqualTo(1);
+        assertThat(count(replica, "Primary")).isZero();
+    }
+
+    private static void execute(PostgreSQLContainer<?> database, String sql) throws SQLException {
+        try (Connection connection = connect(database); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static int count(PostgreSQLContainer<?> database, String firstName) throws SQLException {
+        try (Connection connection = connect(database);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT COUNT(*) FROM user_entity WHERE first_name = '" + firstName + "'")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private static Connection connect(PostgreSQLContainer<?> database) throws SQLException {
+        return DriverManager.getConnection(database.getJdbcUrl(), database.getUsername(), database.getPassword());
+    }
+}
@@ -2,6 +2,7 @@ package pl.pwr.translator_app;
 
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
 import io.restassured.response.Response;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,12 +18,23 @@ import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import pl.pwr.query.SqlStatement;
 import pl.pwr.translator_app.domain.User;
+import pl.pwr.translator_app.dto.QueryRequestDTO;
+import pl.pwr.translator_app.dto.QueryResultDTO;
+import pl.pwr.translator_app.guard.CostGuard;
 import pl.pwr.translator_app.model.UserEntity;
+import pl.pwr.translator_app.prepared.PreparedQuery;
+import pl.pwr.translator_app.prepared.PreparedQueryRegistry;
+import pl.pwr.translator_app.repository.StatementListener;
 import pl.pwr.translator_app.repository.UserRepository;
 import pl.pwr.translator_app.service.UserService;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
@@ -51,17 +63,26 @@ class UserControllerTest {
     @Autowired
     private PlatformTransactionManager transactionManager;
 
+    @Autowired
+    private PreparedQueryRegistry preparedQueryRegistry;
+
+    @Autowired
+    private CostGuard costGuard;
+
     @DynamicPropertySource
     static void configureProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
+        // Low enough for a test to run into it
+        registry.add("translator.prepared.maximum-queries", () -> 2);
     }
 
     @BeforeEach
     void setUp() {
         RestAssured.baseURI = "http://localhost:" + port;
         clearDatabase();
+        preparedQueryRegistry.list().forEach(prepared -> preparedQueryRegistry.evict(prepared.id(), null));
     }
 
     void clearDatabase() {
@@ -141,6 +162,417 @@ class UserControllerTest {
                 .body("results[0].firstName", startsWith("TestUser"));
     }
 
+    @Test
+    void shouldSelectExistingUsersFromRawBody() {
+        // Prepare test data in a committed transaction
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            userRepository.createTestData(3);
+            return null;
+        });
+
+        // Execute SELECT query through the raw body endpoint
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .body("""
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["id", "first_name", "last_name", "email"],
+  "conditions": [
+    { "column": "email", "operator": "LIKE", "value": "test%@example.com" }
+  ]
+}
+""")
+                .when()
+                .post("/users/raw");
+
+        // Print the raw response body
+        response.prettyPrint();
+
+        response.then()
+                .statusCode(200)
+                .body("successful", equalTo(true))
+                .body("operation", equalTo("SELECT"))
+                .body("query", equalTo("SELECT id, first_name, last_name, email FROM user_entity WHERE email LIKE ? LIMIT ?"))
+                .body("guard.outcome", equalTo("LIMITED"))
+                .body("guard.defaultLimit", equalTo(1000))
+                .body("results", hasSize(3));
+    }
+
+    @Test
+    void shouldStreamSelectedUsersAsNdjson() {
+        // Prepare test data in a committed transaction
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            userRepository.createTestData(3);
+            return null;
+        });
+
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .accept("application/x-ndjson")
+                .body("""
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["id", "first_name", "last_name", "email"],
+  "orderBy": [
+    { "column": "first_name", "direction": "ASC" }
+  ]
+}
+""")
+                .when()
+                .post("/users/stream");
+
+        response.then()
+                .statusCode(200)
+                .contentType("application/x-ndjson");
+        assertThat(response.asString().lines().toList())
+                .hasSize(3)
+                .allMatch(line -> line.contains("\"firstName\":\"TestUser"));
+    }
+
+    @Test
+    void shouldStreamSelectedUsersReactively() {
+        // Prepare test data in a committed transaction
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            userRepository.createTestData(3);
+            return null;
+        });
+
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .accept("application/x-ndjson")
+                .body("""
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["id", "first_name"],
+  "conditions": [
+    { "column": "id", "operator": ">", "value": "0" }
+  ],
+  "orderBy": [
+    { "column": "first_name", "direction": "DESC" }
+  ]
+}
+""")
+                .when()
+                .post("/users/reactive");
+
+        response.then()
+                .statusCode(200)
+                .contentType("application/x-ndjson");
+        assertThat(response.asString().lines().toList())
+                .hasSize(3)
+                .first().asString().contains("\"firstName\":\"TestUser2\"");
+    }
+
+    @Test
+    void shouldGuardStreamedQueries() {
+        // Prepare test data in a committed transaction
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            userRepository.createTestData(3);
+            return null;
+        });
+        long limited = costGuard.decisions(CostGuard.Outcome.LIMITED);
+        String query = """
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["id", "first_name"]
+}
+""";
+
+        for (String endpoint : List.of("/users/stream", "/users/reactive")) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .accept("application/x-ndjson")
+                    .body(query)
+                    .when()
+                    .post(endpoint)
+                    .then()
+                    .statusCode(200);
+        }
+
+        // Both streams got the default limit before they were planned
+        assertThat(costGuard.decisions(CostGuard.Outcome.LIMITED)).isEqualTo(limited + 2);
+    }
+
+    @Test
+    void shouldPageThroughUsersWithCursor() {
+        // Prepare test data in a committed transaction
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            userRepository.createTestData(5);
+            return null;
+        });
+
+        String query = """
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["id", "first_name", "last_name", "email"],
+  "orderBy": [
+    { "column": "first_name", "direction": "DESC", "nulls": "FIRST" }
+  ],
+  "limit": 2,
+  "paginate": true,
+  "cursor": %s
+}
+""";
+
+        List<String> firstNames = new java.util.ArrayList<>();
+        String cursor = null;
+        do {
+            Response response = given()
+                    .contentType(ContentType.JSON)
+                    .body(query.formatted(cursor != null ? "\"" + cursor + "\"" : "null"))
+                    .when()
+                    .post("/users");
+
+            response.then()
+                    .statusCode(200)
+                    .body("successful", equalTo(true))
+                    .body("query", containsString("ORDER BY first_name DESC NULLS FIRST, id DESC LIMIT ?"));
+            firstNames.addAll(response.jsonPath().getList("results.firstName", String.class));
+            cursor = response.jsonPath().getString("nextCursor");
+        } while (cursor != null);
+
+        assertThat(firstNames).containsExactly("TestUser4", "TestUser3", "TestUser2", "TestUser1", "TestUser0");
+    }
+
+    @Test
+    void shouldPageThroughNullSortValues() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            userRepository.plantTestData(Stream.of("Brown", null, "Adams", null, "Clark")
+                    .map(lastName -> UserEntity.builder().firstName("User").lastName(lastName)
+                            .email(lastName + "@example.com").build())
+                    .toList());
+            return null;
+        });
+
+        String query = """
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["id", "last_name"],
+  "orderBy": [
+    { "column": "last_name", "direction": "ASC", "nulls": "LAST" }
+  ],
+  "limit": 2,
+  "paginate": true,
+  "cursor": %s
+}
+""";
+
+        // The second page ends on a null, the third one holds only nulls
+        List<String> lastNames = new java.util.ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            Response response = given()
+                    .contentType(ContentType.JSON)
+                    .body(query.formatted(cursor != null ? "\"" + cursor + "\"" : "null"))
+                    .when()
+                    .post("/users");
+
+            response.then()
+                    .statusCode(200)
+                    .body("successful", equalTo(true))
+                    .body("query", containsString("ORDER BY last_name ASC NULLS LAST, id ASC LIMIT ?"));
+            lastNames.addAll(response.jsonPath().getList("results.lastName", String.class));
+            cursor = response.jsonPath().getString("nextCursor");
+            pages++;
+        } while (cursor != null);
+
+        assertThat(lastNames).containsExactly("Adams", "Brown", "Clark", null, null);
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void shouldPageOnUnselectedColumnsWithoutReturningThem() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            userRepository.createTestData(3);
+            return null;
+        });
+
+        String query = """
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["email"],
+  "orderBy": [
+    { "column": "first_name", "direction": "DESC", "nulls": "FIRST" }
+  ],
+  "limit": 2,
+  "paginate": true,
+  "cursor": %s
+}
+""";
+
+        List<String> emails = new ArrayList<>();
+        String cursor = null;
+        do {
+            Response response = given()
+                    .contentType(ContentType.JSON)
+                    .body(query.formatted(cursor != null ? "\"" + cursor + "\"" : "null"))
+                    .when()
+                    .post("/users");
+
+            response.then()
+                    .statusCode(200)
+                    .body("successful", equalTo(true))
+                    .body("query", startsWith("SELECT email, first_name AS cursor_key_1, id AS cursor_key_2 FROM"))
+                    .body("results[0].keySet()", contains("email"));
+            emails.addAll(response.jsonPath().getList("results.email", String.class));
+            cursor = response.jsonPath().getString("nextCursor");
+        } while (cursor != null);
+
+        assertThat(emails).hasSize(3).first().asString().startsWith("test2");
+    }
+
+    @Test
+    void shouldNotPageOrderedAndLimitedSelectUnlessAsked() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            userRepository.createTestData(3);
+            return null;
+        });
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["email"],
+  "orderBy": [
+    { "column": "last_name", "direction": "ASC" }
+  ],
+  "limit": 2
+}
+""")
+                .when()
+                .post("/users")
+                .then()
+                .statusCode(200)
+                .body("successful", equalTo(true))
+                .body("query", equalTo("SELECT email FROM user_entity ORDER BY last_name ASC LIMIT ?"))
+                .body("results[0].keySet()", contains("email"))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    void shouldReportEveryStatementOfASplitInsert() {
+        SqlStatement twoRows = new SqlStatement("INSERT INTO user_entity (first_name) VALUES (?), (?)", List.of("A", "B"));
+        SqlStatement oneRow = new SqlStatement("INSERT INTO user_entity (first_name) VALUES (?)", List.of("C"));
+        SqlStatement invalid = new SqlStatement("INSERT INTO user_entity (age) VALUES (?)", List.of("1"));
+        List<Object[]> executed = new ArrayList<>();
+        StatementListener listener = (statement, nanos, rows, failed) ->
+                executed.add(new Object[]{statement, nanos, rows, failed});
+
+        assertThat(userRepository.queryUsers("user_entity", List.of(twoRows, oneRow), listener).getRowsAffected())
+                .isEqualTo(3);
+        assertThat(executed).extracting(execution -> execution[0]).containsExactly(twoRows, oneRow);
+        assertThat(executed).extracting(execution -> execution[2]).containsExactly(2L, 1L);
+        assertThat(executed).allSatisfy(execution -> assertThat((long) execution[1]).isPositive());
+
+        // The statement after the failing one never runs, the one before it is rolled back
+        executed.clear();
+        assertThat(userRepository.queryUsers("user_entity", List.of(oneRow, invalid, twoRows), listener).isFailed())
+                .isTrue();
+        assertThat(executed).extracting(execution -> execution[0]).containsExactly(oneRow, invalid);
+        assertThat(executed).extracting(execution -> execution[3]).containsExactly(true, true);
+        assertThat(userRepository.findAll()).hasSize(3);
+    }
+
+    @Test
+    void shouldSelectOnlyProjectedColumns() {
+        // Prepare test data in a committed transaction
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            userRepository.createTestData(2);
+            return null;
+        });
+
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .body("""
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["first_name", "email"]
+}
+""")
+                .when()
+                .post("/users");
+
+        response.then()
+                .statusCode(200)
+                .body("successful", equalTo(true))
+                .body("results", hasSize(2))
+                .body("results[0].keySet()", containsInAnyOrder("firstName", "email"));
+    }
+
+    @Test
+    void shouldSelectUsersInColumnarLayout() {
+        // Prepare test data in a committed transaction
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            userRepository.createTestData(2);
+            return null;
+        });
+
+        given()
+                .contentType(ContentType.JSON)
+                .accept("application/vnd.translator.columnar+json")
+                .body("""
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["first_name", "email"],
+  "orderBy": [
+    { "column": "first_name", "direction": "ASC" }
+  ]
+}
+""")
+                .when()
+                .post("/users")
+                .then()
+                .statusCode(200)
+                .contentType("application/vnd.translator.columnar+json")
+                .body("successful", equalTo(true))
+                .body("query", nullValue())
+                .body("results.rowCount", equalTo(2))
+                .body("results.columns.name", contains("firstName", "email"))
+                .body("results.columns[0].values", contains("TestUser0", "TestUser1"));
+    }
+
+    @Test
+    void shouldRejectUnknownColumnBeforeExecution() {
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["first_name", "password"]
+}
+""")
+                .when()
+                .post("/users")
+                .then()
+                .statusCode(200)
+                .body("successful", equalTo(false))
+                .body("query", nullValue())
+                .body("message", equalTo("Error: Unknown column of user_entity: password"));
+    }
+
 
     @Test
     void shouldSelectSingleUserByCondition() {
@@ -397,4 +829,181 @@ class UserControllerTest {
             return null;
         });
     }
+
+    @Test
+    void shouldRegisterListExecuteAndEvictPreparedQuery() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            userRepository.createTestData(3);
+            return null;
+        });
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "columns": ["id", "email"],
+  "conditions": [
+    { "column": "email", "operator": "=", "value": ":email" }
+  ]
+}
+""")
+                .when()
+                .put("/users/prepared/userByEmail")
+                .then()
+                .statusCode(200)
+                .body("id", equalTo("userByEmail"))
+                .body("version", equalTo(1))
+                .body("parameters", contains("email"));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+{ "email": "test1@example.com" }
+""")
+                .when()
+                .post("/users/prepared/userByEmail")
+                .then()
+                .statusCode(200)
+                .body("successful", equalTo(true))
+                .body("results", hasSize(1))
+                .body("results[0].email", equalTo("test1@example.com"));
+
+        given()
+                .when()
+                .get("/users/prepared")
+                .then()
+                .statusCode(200)
+                .body("id", contains("userByEmail"));
+
+        given().when().delete("/users/prepared/userByEmail").then().statusCode(204);
+        given().when().delete("/users/prepared/userByEmail").then().statusCode(404);
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+{ "email": "test1@example.com" }
+""")
+                .when()
+                .post("/users/prepared/userByEmail")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    void shouldRejectInvalidPreparedQueryRegistrations() {
+        String byId = """
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "conditions": [
+    { "column": "id", "operator": "=", "value": ":id" }
+  ]
+}
+""";
+        given()
+                .contentType(ContentType.JSON)
+                .body(byId)
+                .when()
+                .put("/users/prepared/by$id")
+                .then()
+                .statusCode(400);
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+{
+  "queryType": "SELECT",
+  "table": "user_entity",
+  "conditions": [
+    { "column": "password", "operator": "=", "value": ":password" }
+  ]
+}
+""")
+                .when()
+                .put("/users/prepared/byPassword")
+                .then()
+                .statusCode(400);
+
+        // translator.prepared.maximum-queries is 2 in this test
+        given().contentType(ContentType.JSON).body(byId).when().put("/users/prepared/first").then().statusCode(200);
+        given().contentType(ContentType.JSON).body(byId).when().put("/users/prepared/second").then().statusCode(200);
+        given().contentType(ContentType.JSON).body(byId).when().put("/users/prepared/third").then().statusCode(409);
+        given().contentType(ContentType.JSON).body(byId).when().put("/users/prepared/second").then().statusCode(200);
+    }
+
+    @Test
+    void shouldFailToBindPreparedQueryWithWrongParameters() {
+        QueryRequestDTO request = new QueryRequestDTO();
+        request.setQueryType("SELECT");
+        request.setTable("user_entity");
+        QueryRequestDTO.Condition condition = new QueryRequestDTO.Condition();
+        condition.setColumn("email");
+        condition.setOperator("=");
+        condition.setValue(":email");
+        request.setConditions(List.of(condition));
+        PreparedQuery prepared = preparedQueryRegistry.register("byEmail", request);
+
+        QueryResultDTO missing = userService.queryUsers(prepared, Map.of());
+        assertThat(missing.isSuccessful()).isFalse();
+        assertThat(missing.getMessage()).isEqualTo("Error: Missing parameter of byEmail: email");
+
+        QueryResultDTO unknown = userService.queryUsers(prepared, Map.of("email", "a@x.com", "id", 1));
+        assertThat(unknown.isSuccessful()).isFalse();
+        assertThat(unknown.getMessage()).isEqualTo("Error: Unknown parameter of byEmail: id");
+
+        QueryResultDTO notScalar = userService.queryUsers(prepared, Map.of("email", List.of("a@x.com")));
+        assertThat(notScalar.isSuccessful()).isFalse();
+        assertThat(notScalar.getMessage()).contains("email");
+    }
+
+    private static String insertLine(String firstName) {
+        return "{\"queryType\": \"INSERT\", \"table\": \"user_entity\", \"columns\": [\"first_name\", \"email\"], "
+                + "\"values\": [{\"first_name\": \"" + firstName + "\", \"email\": \"" + firstName + "@example.com\"}]}";
+    }
+
+    private static List<JsonPath> postBatch(boolean atomic, String... lines) {
+        String body = given()
+                .contentType("application/x-ndjson")
+                .queryParam("atomic", atomic)
+                .body(String.join("\n", lines).getBytes(StandardCharsets.UTF_8))
+                .when()
+                .post("/users/batch")
+                .then()
+                .statusCode(200)
+                .contentType("application/x-ndjson")
+                .extract().asString();
+        return body.lines().map(JsonPath::from).toList();
+    }
+
+    @Test
+    void shouldRollBackEveryLineOfAnAtomicBatchWhenOneFails() {
+        // Longer than the varchar(255) column, so it only fails in the database
+        List<JsonPath> results = postBatch(true, insertLine("Alice"), insertLine("x".repeat(300)), insertLine("Bob"));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).getBoolean("successful")).isTrue();
+        assertThat(results.get(1).getBoolean("successful")).isFalse();
+        assertThat(results.get(1).getString("message")).isEqualTo("Error: query failed, the batch was rolled back");
+        assertThat(results.get(2).getBoolean("successful")).isFalse();
+        assertThat(results.get(2).getString("message")).isEqualTo("Skipped: an earlier query in the batch failed");
+        assertThat(userRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void shouldSkipOnlyTheFailingLinesOfANonAtomicBatch() {
+        String unknownColumn = "{\"queryType\": \"SELECT\", \"table\": \"user_entity\", \"columns\": [\"password\"]}";
+        String select = "{\"queryType\": \"SELECT\", \"table\": \"user_entity\", \"columns\": [\"first_name\"], "
+                + "\"orderBy\": [{\"column\": \"first_name\", \"direction\": \"ASC\"}]}";
+        List<JsonPath> results = postBatch(false, insertLine("Alice"), insertLine("x".repeat(300)), unknownColumn,
+                insertLine("Bob"), select);
+
+        // One result line per query, in order, the failing ones rolled back to their own savepoint
+        assertThat(results).extracting(result -> result.getBoolean("successful"))
+                .containsExactly(true, false, false, true, true);
+        assertThat(results.get(1).getString("message")).isEqualTo("Error: query failed and was rolled back");
+        assertThat(results.get(2).getString("message")).isEqualTo("Error: Unknown column of user_entity: password");
+        assertThat(results.get(4).getList("results.firstName")).containsExactly("Alice", "Bob");
+        assertThat(userRepository.findAll()).extracting(UserEntity::getFirstName).containsExactlyInAnyOrder("Alice", "Bob");
+    }
 }
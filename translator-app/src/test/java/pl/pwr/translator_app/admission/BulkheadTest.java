@@ -0,0 +1,91 @@
+package pl.pwr.translator_app.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadTest {
+
+    @Test
+    void shouldQueueUntilReleasedAndShedWhenQueueIsFull() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("primary", 1, 1, client -> 1);
+        bulkhead.acquire("a", 0, TimeUnit.SECONDS);
+
+        Thread waiting = Thread.ofVirtual().start(() -> acquireAndRelease(bulkhead, "b", null));
+        awaitQueued(bulkhead, 1);
+        assertThatThrownBy(() -> bulkhead.acquire("c", 1, TimeUnit.SECONDS))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class, e -> {
+                    assertThat(e.getRejection()).isEqualTo(Bulkhead.Rejection.QUEUE_FULL);
+                    assertThat(e.getStatusCode().value()).isEqualTo(503);
+                    assertThat(e.getHeaders().getFirst("Retry-After")).isEqualTo("1");
+                });
+
+        bulkhead.release();
+        waiting.join(5_000);
+        assertThat(bulkhead.admitted()).isEqualTo(2);
+        assertThat(bulkhead.active()).isZero();
+        assertThat(bulkhead.rejected(Bulkhead.Rejection.QUEUE_FULL)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectWaiterAfterDeadline() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("replica", 1, 10, client -> 1);
+        bulkhead.acquire("a", 0, TimeUnit.SECONDS);
+
+        assertThatThrownBy(() -> bulkhead.acquire("b", 50, TimeUnit.MILLISECONDS))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class,
+                        e -> assertThat(e.getRejection()).isEqualTo(Bulkhead.Rejection.TIMEOUT));
+
+        assertThat(bulkhead.queued()).isZero();
+        bulkhead.release();
+        assertThat(bulkhead.active()).isZero();
+    }
+
+    @Test
+    void shouldSharePermitsByClientWeight() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("primary", 1, 100, client -> Map.of("heavy", 2).getOrDefault(client, 1));
+        bulkhead.acquire("other", 0, TimeUnit.SECONDS);
+
+        List<String> granted = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            threads.add(Thread.ofVirtual().start(() -> acquireAndRelease(bulkhead, "heavy", granted)));
+            threads.add(Thread.ofVirtual().start(() -> acquireAndRelease(bulkhead, "light", granted)));
+        }
+        awaitQueued(bulkhead, 12);
+
+        bulkhead.release();
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+        assertThat(granted).hasSize(12);
+        assertThat(granted.subList(0, 6)).filteredOn("heavy"::equals).hasSize(4);
+    }
+
+    private static void acquireAndRelease(Bulkhead bulkhead, String client, List<String> granted) {
+        try {
+            bulkhead.acquire(client, 10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        if (granted != null) {
+            granted.add(client);
+        }
+        bulkhead.release();
+    }
+
+    private static void awaitQueued(Bulkhead bulkhead, int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.queued() < queued && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(bulkhead.queued()).isEqualTo(queued);
+    }
+}
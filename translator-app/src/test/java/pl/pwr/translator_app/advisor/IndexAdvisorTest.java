@@ -0,0 +1,116 @@
+package pl.pwr.translator_app.advisor;
+
+import org.junit.jupiter.api.Test;
+import pl.pwr.query.Condition;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.guard.CostEstimator;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+import pl.pwr.translator_app.schema.TableSchema;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IndexAdvisorTest {
+
+    private static final TableSchema USERS = new TableSchema("public", "user_entity", List.of(
+            new TableSchema.Column("id", "bigint"),
+            new TableSchema.Column("email", "character varying"),
+            new TableSchema.Column("last_name", "character varying")),
+            List.of(new TableSchema.Index("user_entity_pkey", "btree", List.of("id"),
+                    "CREATE UNIQUE INDEX user_entity_pkey ON public.user_entity USING btree (id)")));
+
+    private final SchemaCatalog catalog = new SchemaCatalog(() -> List.of(USERS), Duration.ofMinutes(1), true);
+    private final WorkloadProfile profile = new WorkloadProfile(catalog);
+
+    private void record(int times, Condition condition, OrderBy orderBy) {
+        Query query = new Query("SELECT", "user_entity", List.of("*"), null,
+                condition != null ? List.of(condition) : null, orderBy != null ? List.of(orderBy) : null, null, 100);
+        for (int i = 0; i < times; i++) {
+            profile.record(query, new SqlStatement("SELECT * FROM user_entity WHERE " + condition + " " + orderBy, List.of(i)));
+        }
+    }
+
+    private static final HypotheticalIndexPlanner NO_HYPOTHETICAL_INDEXES = new HypotheticalIndexPlanner() {
+        @Override
+        public boolean available() {
+            return false;
+        }
+
+        @Override
+        public CostEstimator.Estimate estimate(String createIndex, SqlStatement statement) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Test
+    void shouldClassifyConditions() {
+        assertThat(AccessPattern.of(new Condition("email", "=", "a@x.com"))).isEqualTo(AccessPattern.EQUALITY);
+        assertThat(AccessPattern.of(new Condition("id", ">", 10))).isEqualTo(AccessPattern.RANGE);
+        assertThat(AccessPattern.of(new Condition("email", "LIKE", "test%"))).isEqualTo(AccessPattern.PREFIX);
+        assertThat(AccessPattern.of(new Condition("email", "like", "%@example.com"))).isEqualTo(AccessPattern.SUBSTRING);
+        assertThat(AccessPattern.of(new Condition("email", "!=", "a@x.com"))).isNull();
+    }
+
+    @Test
+    void shouldRankUncoveredUsageByPlannerBenefit() {
+        record(20, new Condition("id", "=", 1), null);
+        record(30, new Condition("email", "LIKE", "%@example.com"), null);
+        record(12, new Condition("last_name", "=", "Smith"), new OrderBy("last_name", "ASC"));
+        record(5, new Condition("email", "LIKE", "user%"), null);
+        profile.record(new Query("SELECT", "orders", null, null, List.of(new Condition("id", "=", 1)), null, null, null),
+                new SqlStatement("SELECT * FROM orders WHERE id = ?", List.of(1)));
+
+        IndexAdvisor advisor = new IndexAdvisor(profile, catalog, statement -> new CostEstimator.Estimate(100, 10),
+                new HypotheticalIndexPlanner() {
+                    @Override
+                    public boolean available() {
+                        return true;
+                    }
+
+                    @Override
+                    public CostEstimator.Estimate estimate(String createIndex, SqlStatement statement) {
+                        return new CostEstimator.Estimate(createIndex.contains("last_name") ? 10 : 100, 10);
+                    }
+                }, null, 10, false);
+
+        List<IndexRecommendation> recommendations = advisor.recommendations();
+
+        // The primary key covers id, the prefix pattern has too few queries and the trigram index can't be estimated
+        assertThat(recommendations).extracting(IndexRecommendation::id)
+                .containsExactly("user_entity_email_trgm_idx", "user_entity_last_name_idx");
+        IndexRecommendation trigram = recommendations.get(0);
+        assertThat(trigram.estimatedBenefit()).isNull();
+        assertThat(trigram.workloadCost()).isEqualTo(3000);
+        assertThat(trigram.statements()).containsExactly("CREATE EXTENSION IF NOT EXISTS pg_trgm",
+                "CREATE INDEX CONCURRENTLY IF NOT EXISTS \"user_entity_email_trgm_idx\" ON \"public\".\"user_entity\" USING gin (\"email\" gin_trgm_ops)");
+        IndexRecommendation btree = recommendations.get(1);
+        assertThat(btree.patterns()).isEqualTo(Set.of(AccessPattern.EQUALITY, AccessPattern.SORT));
+        assertThat(btree.queries()).isEqualTo(24);
+        assertThat(btree.estimatedBenefit()).isEqualTo(24 * 90);
+
+        assertThatThrownBy(() -> advisor.apply("user_entity_last_name_idx")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldTreatPatternAndTrigramIndexesAsCoveringLike() {
+        TableSchema indexed = new TableSchema("public", "user_entity", USERS.columns(), List.of(
+                new TableSchema.Index("email_pattern", "btree", List.of("email"),
+                        "CREATE INDEX email_pattern ON public.user_entity USING btree (email varchar_pattern_ops)"),
+                new TableSchema.Index("last_name_trgm", "gin", List.of("last_name"),
+                        "CREATE INDEX last_name_trgm ON public.user_entity USING gin (last_name gin_trgm_ops)")));
+
+        assertThat(IndexAdvisor.covered(indexed, "email", AccessPattern.PREFIX)).isTrue();
+        assertThat(IndexAdvisor.covered(indexed, "email", AccessPattern.SORT)).isFalse();
+        assertThat(IndexAdvisor.covered(indexed, "email", AccessPattern.SUBSTRING)).isFalse();
+        assertThat(IndexAdvisor.covered(indexed, "last_name", AccessPattern.SUBSTRING)).isTrue();
+        assertThat(IndexAdvisor.covered(indexed, "last_name", AccessPattern.PREFIX)).isTrue();
+        assertThat(new IndexAdvisor(profile, catalog, statement -> null, NO_HYPOTHETICAL_INDEXES, null, 1, false)
+                .recommendations()).isEmpty();
+    }
+}
@@ -0,0 +1,91 @@
+package pl.pwr.translator_app.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.pwr.query.SqlStatement;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private List<JournalRecord> readAll() throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        JournalReader.readAll(directory, records::add);
+        return records;
+    }
+
+    @Test
+    void shouldReadBackStatementsWithTheirParameters() throws IOException {
+        SqlStatement select = new SqlStatement("SELECT * FROM user_entity WHERE last_name = ? AND id > ?",
+                Arrays.asList("Zażółć 😀", 42L));
+        SqlStatement insert = new SqlStatement("INSERT INTO user_entity (first_name, age) VALUES (?, ?), (?, ?)",
+                Arrays.asList("Ann", 31, null, new BigDecimal("1.50")));
+        try (AuditJournal journal = new AuditJournal(directory, 1 << 16, 0, 16, Duration.ofMillis(10))) {
+            assertThat(journal.append(select, 1_500_000, 3, false)).isTrue();
+            assertThat(journal.append(insert, 2_000_000, 2, true)).isTrue();
+        }
+
+        List<JournalRecord> records = readAll();
+        assertThat(records).hasSize(2);
+        JournalRecord first = records.get(0);
+        assertThat(first.sql()).isEqualTo(select.sql());
+        assertThat(first.parameters()).containsExactly("Zażółć 😀", 42L);
+        assertThat(first.durationNanos()).isEqualTo(1_500_000);
+        assertThat(first.rows()).isEqualTo(3);
+        assertThat(first.failed()).isFalse();
+        assertThat(first.statement()).isEqualTo(select);
+
+        JournalRecord second = records.get(1);
+        assertThat(second.sql()).isEqualTo("INSERT INTO user_entity (first_name, age) VALUES (?, ?), ...");
+        assertThat(second.parameters()).containsExactly("Ann", 31L, null, new BigDecimal("1.50"));
+        assertThat(second.failed()).isTrue();
+        assertThat(second.statement().sql()).isEqualTo(insert.sql());
+        assertThat(second.at()).isAfterOrEqualTo(first.at());
+    }
+
+    @Test
+    void shouldRotateSegmentsAndDeleteTheOldest() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, 1024, 3, 1024, Duration.ofMillis(10))) {
+            for (int i = 0; i < 200; i++) {
+                journal.append(new SqlStatement("SELECT * FROM user_entity WHERE email = ?",
+                        List.of("user" + i + "@example.com")), i, 1, false);
+            }
+            assertThat(journal.append(new SqlStatement("SELECT ?", List.of("x".repeat(2048))), 1, 1, false))
+                    .isTrue();
+            journal.close();
+            assertThat(journal.written()).isEqualTo(200);
+            assertThat(journal.dropped()).isEqualTo(1);
+        }
+
+        assertThat(JournalReader.segments(directory)).hasSize(3);
+        List<JournalRecord> records = readAll();
+        // Every kept segment starts with the shape, so the last statements are read back in order
+        assertThat(records).isNotEmpty().allSatisfy(record -> assertThat(record.sql()).isNotNull());
+        assertThat(records.get(records.size() - 1).parameters()).containsExactly("user199@example.com");
+        assertThat(records).extracting(JournalRecord::durationNanos).isSorted();
+    }
+
+    @Test
+    void shouldStartANewSegmentAfterRestart() throws IOException {
+        SqlStatement statement = new SqlStatement("DELETE FROM user_entity WHERE id = ?", List.of("7"));
+        for (int run = 0; run < 2; run++) {
+            try (AuditJournal journal = new AuditJournal(directory, 4096, 0, 16, Duration.ofMillis(10))) {
+                journal.append(statement, run, 1, false);
+            }
+        }
+
+        assertThat(JournalReader.segments(directory)).hasSize(2);
+        assertThat(readAll()).extracting(JournalRecord::durationNanos).containsExactly(0L, 1L);
+    }
+}
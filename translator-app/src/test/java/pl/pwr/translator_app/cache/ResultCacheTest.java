@@ -0,0 +1,108 @@
+package pl.pwr.translator_app.cache;
+
+import org.junit.jupiter.api.Test;
+import pl.pwr.translator_app.domain.Row;
+import pl.pwr.translator_app.result.QueryResult;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+import pl.pwr.translator_app.schema.TableSchema;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResultCacheTest {
+
+    private static final Row.Columns COLUMNS = new Row.Columns(List.of("id", "first_name"));
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void shouldServeRepeatedSelectsUntilTableIsWritten() {
+        ResultCache cache = new ResultCache(10, 1 << 20, Duration.ofMinutes(1));
+        ResultCache.Key key = new ResultCache.Key("SELECT id, first_name FROM user_entity WHERE id > ?", List.of(1L));
+
+        cache.get("user_entity", key, null, () -> result("Alice"));
+        QueryResult cached = cache.get("user_entity", key, null, () -> result("Bob"));
+        assertThat(cached.getRows()).singleElement().extracting(row -> row.get("first_name")).isEqualTo("Alice");
+
+        cache.invalidate("other_table");
+        cache.get("USER_ENTITY", key, null, () -> result("Bob"));
+        assertThat(executions).hasValue(1);
+
+        cache.invalidate("USER_ENTITY");
+        QueryResult fresh = cache.get("user_entity", key, null, () -> result("Bob"));
+        assertThat(fresh.getRows()).singleElement().extracting(row -> row.get("first_name")).isEqualTo("Bob");
+        assertThat(cache.stats().hitCount()).isEqualTo(2);
+        assertThat(cache.stats().missCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldInvalidateEverySpellingOfTheTable() {
+        SchemaCatalog catalog = new SchemaCatalog(() -> List.of(new TableSchema("public", "user_entity",
+                List.of(new TableSchema.Column("id", "bigint")))), Duration.ofMinutes(1), true);
+        ResultCache cache = new ResultCache(10, 1 << 20, Duration.ofMinutes(1), catalog);
+        ResultCache.Key plain = new ResultCache.Key("SELECT * FROM user_entity", List.of());
+        ResultCache.Key qualified = new ResultCache.Key("SELECT * FROM public.user_entity", List.of());
+        ResultCache.Key quoted = new ResultCache.Key("SELECT * FROM \"user_entity\"", List.of());
+
+        cache.get("user_entity", plain, null, () -> result("Alice"));
+        cache.get("public.user_entity", qualified, null, () -> result("Alice"));
+        cache.get("\"user_entity\"", quoted, null, () -> result("Alice"));
+        assertThat(cache.stats().size()).isEqualTo(3);
+
+        cache.invalidate("PUBLIC.User_Entity");
+        assertThat(cache.stats().size()).isZero();
+        cache.get("\"user_entity\"", quoted, null, () -> result("Bob"));
+        assertThat(executions).hasValue(4);
+
+        // Quoted names keep their case, so this is another, unknown table
+        cache.invalidate("\"User_Entity\"");
+        assertThat(cache.stats().size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotStoreResultReadDuringInvalidation() {
+        ResultCache cache = new ResultCache(10, 1 << 20, Duration.ofMinutes(1));
+        ResultCache.Key key = new ResultCache.Key("SELECT * FROM user_entity", List.of());
+
+        cache.get("user_entity", key, null, () -> {
+            // A write commits while the SELECT is still running
+            cache.invalidate("user_entity");
+            return result("Stale");
+        });
+        cache.get("user_entity", key, null, () -> result("Fresh"));
+        cache.get("user_entity", key, null, () -> new QueryResult(List.of(), 0, true));
+
+        assertThat(executions).hasValue(2);
+        assertThat(cache.stats().size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBoundEntriesBySizeAndTtl() {
+        ResultCache cache = new ResultCache(2, 1 << 20, Duration.ofMinutes(1));
+        for (long id = 0; id < 5; id++) {
+            cache.get("user_entity", new ResultCache.Key("SELECT * FROM user_entity WHERE id = ?", List.of(id)), null,
+                    () -> result("User"));
+        }
+        assertThat(cache.stats().size()).isEqualTo(2);
+        assertThat(cache.stats().evictionCount()).isEqualTo(3);
+
+        ResultCache tiny = new ResultCache(10, 64, Duration.ofMinutes(1));
+        tiny.get("user_entity", new ResultCache.Key("SELECT * FROM user_entity", List.of()), null, () -> result("User"));
+        assertThat(tiny.stats().size()).isZero();
+
+        // A zero TTL neither accepts nor stores a cached result
+        ResultCache.Key key = new ResultCache.Key("SELECT id FROM user_entity", List.of());
+        cache.get("user_entity", key, null, () -> result("User"));
+        cache.get("user_entity", key, Duration.ZERO, () -> result("User"));
+        assertThat(cache.stats().putCount()).isEqualTo(6);
+        assertThat(cache.stats().hitCount()).isZero();
+    }
+
+    private QueryResult result(String firstName) {
+        executions.incrementAndGet();
+        return new QueryResult(List.of(new Row(COLUMNS, new Object[]{1L, firstName})), 1);
+    }
+}
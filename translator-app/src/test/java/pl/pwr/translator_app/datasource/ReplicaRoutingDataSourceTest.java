@@ -0,0 +1,59 @@
+package pl.pwr.translator_app.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    @Test
+    void shouldConnectWithCredentialsToThePrimary() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        Connection primaryConnection = mock(Connection.class);
+        when(primary.getConnection("reader", "secret")).thenReturn(primaryConnection);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica),
+                ReplicaRoutingDataSource.Balancing.ROUND_ROBIN, Duration.ofMinutes(1));
+
+        // A replica pool only hands out connections for its own user
+        assertThat(routing.getConnection("reader", "secret")).isSameAs(primaryConnection);
+        verify(replica, never()).getConnection("reader", "secret");
+    }
+
+    @Test
+    void shouldSkipUnavailableReplicaUntilRetry() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        DataSource available = mock(DataSource.class);
+        DataSource unavailable = mock(DataSource.class);
+        Connection primaryConnection = mock(Connection.class);
+        Connection replicaConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(available.getConnection()).thenReturn(replicaConnection);
+        when(unavailable.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(unavailable, available),
+                ReplicaRoutingDataSource.Balancing.ROUND_ROBIN, Duration.ofMinutes(1));
+        for (int i = 0; i < 4; i++) {
+            assertThat(routing.getConnection()).isSameAs(replicaConnection);
+        }
+        verify(unavailable, times(1)).getConnection();
+
+        ReplicaRoutingDataSource retrying = new ReplicaRoutingDataSource(primary, List.of(unavailable),
+                ReplicaRoutingDataSource.Balancing.RANDOM, Duration.ZERO);
+        assertThat(retrying.getConnection()).isSameAs(primaryConnection);
+        assertThat(retrying.getConnection()).isSameAs(primaryConnection);
+        verify(unavailable, times(3)).getConnection();
+    }
+}
@@ -0,0 +1,104 @@
+package pl.pwr.translator_app.guard;
+
+import org.junit.jupiter.api.Test;
+import pl.pwr.query.Query;
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.admission.AdmissionControl;
+import pl.pwr.translator_app.admission.Bulkhead;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CostGuardTest {
+
+    private static final SqlStatement CHEAP = new SqlStatement("SELECT * FROM user_entity WHERE id = ?", List.of(1L));
+    private static final SqlStatement COSTLY = new SqlStatement("SELECT * FROM user_entity ORDER BY email LIMIT ?", List.of(1000));
+    private static final SqlStatement BROAD = new SqlStatement("SELECT * FROM user_entity LIMIT ?", List.of(500_000));
+
+    private final Map<String, CostEstimator.Estimate> estimates = new HashMap<>(Map.of(
+            CHEAP.sql(), new CostEstimator.Estimate(8.3, 1),
+            COSTLY.sql(), new CostEstimator.Estimate(250_000, 1000),
+            BROAD.sql(), new CostEstimator.Estimate(9_000, 500_000)));
+    private final AtomicInteger planned = new AtomicInteger();
+
+    private static final Query SELECT = new Query("SELECT", "user_entity", List.of("*"), null, null, null, null, null);
+
+    private CostGuard guard(Bulkhead queue) {
+        return new CostGuard(statement -> {
+            planned.incrementAndGet();
+            CostEstimator.Estimate estimate = estimates.get(statement.sql());
+            if (estimate == null) {
+                throw new IllegalStateException("column \"missing\" does not exist");
+            }
+            return estimate;
+        }, AdmissionControl.DISABLED, 1000, 100_000, 100_000, queue, Duration.ofSeconds(1), 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void shouldAddDefaultLimitOnlyToSelectsWithoutOne() {
+        CostGuard guard = guard(null);
+        Query unbounded = new Query("SELECT", "user_entity", List.of("*"), null, null, null, null, null);
+        Query bounded = new Query("SELECT", "user_entity", List.of("*"), null, null, null, null, 10);
+        Query delete = new Query("DELETE", "user_entity", null, null, null, null, null, null);
+
+        assertThat(guard.withDefaultLimit(unbounded).limit()).isEqualTo(1000);
+        assertThat(guard.withDefaultLimit(bounded)).isSameAs(bounded);
+        assertThat(guard.withDefaultLimit(delete)).isSameAs(delete);
+        assertThat(CostGuard.DISABLED.withDefaultLimit(unbounded)).isSameAs(unbounded);
+        assertThat(CostGuard.DISABLED.check(SELECT, CHEAP, false)).isNull();
+    }
+
+    @Test
+    void shouldPlanEachShapeAndLimitOnceAndRejectAboveThresholds() {
+        CostGuard guard = guard(null);
+
+        CostGuard.Decision cheap = guard.check(SELECT, CHEAP, true);
+        assertThat(cheap.outcome()).isEqualTo(CostGuard.Outcome.LIMITED);
+        assertThat(cheap.estimatedCost()).isEqualTo(8.3);
+        assertThat(cheap.defaultLimit()).isEqualTo(1000);
+        assertThat(guard.check(SELECT, new SqlStatement(CHEAP.sql(), List.of(2L)), false).outcome())
+                .isEqualTo(CostGuard.Outcome.ALLOWED);
+
+        CostGuard.Decision costly = guard.check(SELECT, COSTLY, false);
+        assertThat(costly.outcome()).isEqualTo(CostGuard.Outcome.REJECTED);
+        assertThat(costly.reason()).isEqualTo("Estimated cost 250000 exceeds 100000");
+        assertThat(guard.check(SELECT, BROAD, false).reason()).isEqualTo("Estimated 500000 rows exceed 100000");
+
+        Query limited = new Query("SELECT", "user_entity", List.of("*"), null, null, null, null, 10);
+        assertThat(guard.check(limited, CHEAP, false).outcome()).isEqualTo(CostGuard.Outcome.ALLOWED);
+
+        assertThat(planned).hasValue(4);
+        assertThat(guard.estimateHits()).isEqualTo(1);
+        assertThat(guard.decisions(CostGuard.Outcome.REJECTED)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldQueueExpensiveQueriesAndLetUnplannableOnesThrough() {
+        Bulkhead queue = new Bulkhead("expensive", 1, 1, client -> 1);
+        CostGuard guard = guard(queue);
+
+        CostGuard.Decision costly = guard.check(SELECT, COSTLY, false);
+        assertThat(costly.outcome()).isEqualTo(CostGuard.Outcome.QUEUED);
+        assertThat(guard.execute(costly, () -> queue.active())).isEqualTo(1);
+        assertThat(guard.execute(guard.check(SELECT, CHEAP, false), () -> queue.active())).isZero();
+        assertThat(queue.admitted()).isEqualTo(1);
+
+        // A reactive stream holds its permit until it is done
+        Runnable release = guard.admit(costly);
+        assertThat(queue.active()).isEqualTo(1);
+        release.run();
+        assertThat(queue.active()).isZero();
+        guard.admit(guard.check(SELECT, CHEAP, false)).run();
+        assertThat(queue.admitted()).isEqualTo(2);
+
+        CostGuard.Decision unknown = guard.check(SELECT, new SqlStatement("SELECT missing FROM user_entity", List.of()), false);
+        assertThat(unknown.outcome()).isEqualTo(CostGuard.Outcome.ALLOWED);
+        assertThat(unknown.estimatedCost()).isNull();
+        assertThat(guard.estimateFailures()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,75 @@
+package pl.pwr.translator_app.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histograms in microseconds and error counts per query type.
+ */
+final class LatencyRecorder {
+    private static final String ALL = "ALL";
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void record(String queryType, long latencyNanos, boolean failed) {
+        long micros = Math.max(1, latencyNanos / 1000);
+        histogram(queryType).recordValue(micros);
+        histogram(ALL).recordValue(micros);
+        if (failed) {
+            errors.computeIfAbsent(queryType, type -> new LongAdder()).increment();
+            errors.computeIfAbsent(ALL, type -> new LongAdder()).increment();
+        }
+    }
+
+    private Histogram histogram(String queryType) {
+        return histograms.computeIfAbsent(queryType, type -> new ConcurrentHistogram(3));
+    }
+
+    /**
+     * Print throughput and latency percentiles per query type.
+     *
+     * @param seconds length of the measured interval
+     */
+    void report(PrintStream out, double seconds) {
+        out.printf("%-8s %10s %8s %10s %10s %10s %10s %10s%n",
+                "type", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram histogram = entry.getValue();
+            out.printf("%-8s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                    entry.getKey(),
+                    histogram.getTotalCount(),
+                    errors.getOrDefault(entry.getKey(), new LongAdder()).sum(),
+                    histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+    }
+
+    /**
+     * Write the full percentile distribution of every query type as {@code <type>.hgrm}, in milliseconds.
+     */
+    void writeDistributions(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                entry.getValue().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
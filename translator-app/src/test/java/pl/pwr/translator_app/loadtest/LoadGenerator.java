@@ -0,0 +1,218 @@
+package pl.pwr.translator_app.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import pl.pwr.translator_app.TranslatorAppApplication;
+
+/**
+ * Open-loop load generator for {@code /users}.
+ * <p>
+ * Starts an embedded PostgreSQL server and the application in this JVM, seeds {@code user_entity} and sends the
+ * requests of a {@link RequestCorpus} at a fixed arrival rate, whether or not earlier requests have completed.
+ * Latency is measured from the time a request was scheduled to be sent, so a stalled server is not hidden by the
+ * generator slowing down with it. Prints throughput and p50/p99/p99.9 latency per query type.
+ * <p>
+ * Options, all given as {@code --name=value}:
+ * <ul>
+ *     <li>{@code rate}: requests per second, default 200</li>
+ *     <li>{@code duration} and {@code warm-up}: measured and discarded seconds, default 30 and 10</li>
+ *     <li>{@code corpus}: NDJSON file of request bodies to replay instead of a generated corpus</li>
+ *     <li>{@code mix}: weights of the generated corpus, default {@code SELECT:70,INSERT:10,UPDATE:10,DELETE:10}</li>
+ *     <li>{@code seed-rows}: rows inserted before the run, default 10000, after emptying {@code user_entity}</li>
+ *     <li>{@code seed}: seed of the generated corpus, default 42</li>
+ *     <li>{@code jdbc-url}, {@code username}, {@code password}: use an existing local database instead, which is
+ *     not seeded, the generated requests target the ids it already holds</li>
+ *     <li>{@code reset}: {@code true} to empty and seed the existing database too, default false</li>
+ *     <li>{@code output}: directory receiving the full latency distributions, default {@code target/load-test}</li>
+ * </ul>
+ */
+public final class LoadGenerator {
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final AtomicLong outstanding = new AtomicLong();
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        EmbeddedPostgres postgres = options.containsKey("jdbc-url") ? null : EmbeddedPostgres.start();
+        try {
+            String url = postgres != null ? postgres.getJdbcUrl("postgres", "postgres") : options.get("jdbc-url");
+            ConfigurableApplicationContext context = SpringApplication.run(TranslatorAppApplication.class,
+                    "--server.port=0",
+                    "--spring.datasource.url=" + url,
+                    "--spring.datasource.username=" + options.getOrDefault("username", "postgres"),
+                    "--spring.datasource.password=" + options.getOrDefault("password", ""),
+                    // Every query is logged at INFO, which would dominate the measurement
+                    "--logging.level.pl.pwr=warn");
+            try {
+                new LoadGenerator().run(context, options,
+                        postgres != null || Boolean.parseBoolean(options.getOrDefault("reset", "false")));
+            } finally {
+                context.close();
+            }
+        } finally {
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private void run(ConfigurableApplicationContext context, Map<String, String> options, boolean reset)
+            throws Exception {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        int seedRows;
+        if (reset) {
+            seedRows = Integer.parseInt(options.getOrDefault("seed-rows", "10000"));
+            seed(jdbcTemplate, seedRows);
+        } else {
+            // A database given by the user is left as it is
+            seedRows = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) FROM user_entity", Integer.class);
+        }
+
+        RequestCorpus corpus = options.containsKey("corpus")
+                ? RequestCorpus.read(Path.of(options.get("corpus")), objectMapper)
+                : RequestCorpus.generate(
+                        RequestCorpus.parseMix(options.getOrDefault("mix", "SELECT:70,INSERT:10,UPDATE:10,DELETE:10")),
+                        100_000, Math.max(seedRows, 1), Long.parseLong(options.getOrDefault("seed", "42")));
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        URI uri = URI.create("http://localhost:" + port + "/users");
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        long warmUp = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warm-up", "10")));
+        long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "30")));
+        System.out.printf("Replaying %d request(s) at %.0f req/s for %ds after a %ds warm-up%n",
+                corpus.size(), rate, TimeUnit.NANOSECONDS.toSeconds(duration), TimeUnit.NANOSECONDS.toSeconds(warmUp));
+
+        long lag = send(corpus, uri, rate, warmUp, duration);
+        awaitOutstanding(Duration.ofSeconds(30));
+
+        recorder.report(System.out, duration / 1e9);
+        if (lag > TimeUnit.MILLISECONDS.toNanos(10)) {
+            System.out.printf("The generator fell up to %.1f ms behind schedule, the rate is too high for this machine%n",
+                    lag / 1e6);
+        }
+        if (outstanding.get() > 0) {
+            System.out.printf("%d request(s) did not complete and were not recorded%n", outstanding.get());
+        }
+        Path output = Path.of(options.getOrDefault("output", "target/load-test"));
+        recorder.writeDistributions(output);
+        System.out.println("Latency distributions written to " + output.toAbsolutePath());
+    }
+
+    /**
+     * @return the largest delay between the scheduled and the actual send time
+     */
+    private long send(RequestCorpus corpus, URI uri, double rate, long warmUp, long duration) {
+        double interval = 1e9 / rate;
+        long start = System.nanoTime();
+        long measuredFrom = start + warmUp;
+        long end = measuredFrom + duration;
+        long lag = 0;
+        for (long i = 0; ; i++) {
+            long scheduled = start + (long) (i * interval);
+            if (scheduled >= end) {
+                return lag;
+            }
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            lag = Math.max(lag, System.nanoTime() - scheduled);
+
+            RequestCorpus.Request request = corpus.get(i);
+            boolean measured = scheduled >= measuredFrom;
+            outstanding.incrementAndGet();
+            client.sendAsync(HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(request.body()))
+                            .build(), HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, error) -> {
+                        long latency = System.nanoTime() - scheduled;
+                        if (measured) {
+                            recorder.record(request.queryType(), latency, error != null || !successful(response));
+                        }
+                        outstanding.decrementAndGet();
+                    });
+        }
+    }
+
+    private void awaitOutstanding(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Whether the response reports success, reading only up to the {@code successful} field.
+     */
+    private boolean successful(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(response.body())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("successful".equals(field)) {
+                    return parser.getBooleanValue();
+                }
+                parser.skipChildren();
+            }
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        jdbcTemplate.execute("TRUNCATE user_entity RESTART IDENTITY");
+        jdbcTemplate.batchUpdate("INSERT INTO user_entity (first_name, last_name, email) VALUES (?, ?, ?)",
+                IntStream.range(0, rows)
+                        .mapToObj(i -> new Object[]{"User" + i, "Seed" + i % 100, "user" + i + "@example.com"})
+                        .toList());
+        jdbcTemplate.execute("ANALYZE user_entity");
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
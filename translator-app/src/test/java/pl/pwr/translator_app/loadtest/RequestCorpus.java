@@ -0,0 +1,128 @@
+package pl.pwr.translator_app.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The {@code /users} request bodies replayed by the {@link LoadGenerator}, in replay order.
+ */
+final class RequestCorpus {
+    static final List<String> QUERY_TYPES = List.of("SELECT", "INSERT", "UPDATE", "DELETE");
+
+    record Request(String queryType, byte[] body) {
+    }
+
+    private final List<Request> requests;
+
+    private RequestCorpus(List<Request> requests) {
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("The corpus contains no requests");
+        }
+        this.requests = requests;
+    }
+
+    /**
+     * Read a newline-delimited JSON file with one request body per line, the format accepted by
+     * {@code /users/batch}. Blank lines are ignored.
+     */
+    static RequestCorpus read(Path path, ObjectMapper objectMapper) throws IOException {
+        List<Request> requests = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode queryType = objectMapper.readTree(line).path("queryType");
+            requests.add(new Request(queryType.isTextual() ? queryType.asText().toUpperCase() : "OTHER",
+                    line.getBytes(StandardCharsets.UTF_8)));
+        }
+        return new RequestCorpus(requests);
+    }
+
+    /**
+     * Generate requests against {@code user_entity} whose query types follow the given weights.
+     *
+     * @param mix    relative weight of every query type
+     * @param size   number of requests
+     * @param idRange ids of the rows the UPDATEs and DELETEs target and the SELECTs start from
+     * @param seed   seed of the random choices, so runs can be repeated
+     */
+    static RequestCorpus generate(Map<String, Integer> mix, int size, int idRange, long seed) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (total <= 0) {
+            throw new IllegalArgumentException("The query mix has no positive weight");
+        }
+
+        Random random = new Random(seed);
+        List<Request> requests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String queryType = pick(mix, random.nextInt(total));
+            long id = 1 + random.nextInt(idRange);
+            String body = switch (queryType) {
+                case "SELECT" -> """
+                        {"queryType": "SELECT", "table": "user_entity", "columns": ["id", "first_name", "email"],
+                         "conditions": [{"column": "id", "operator": ">=", "value": "%d"}],
+                         "orderBy": [{"column": "id", "direction": "ASC"}], "limit": 20}""".formatted(id);
+                case "INSERT" -> """
+                        {"queryType": "INSERT", "table": "user_entity", "columns": ["first_name", "last_name", "email"],
+                         "values": [{"first_name": "Load", "last_name": "User%d", "email": "load%d@example.com"}]}"""
+                        .formatted(i, i);
+                case "UPDATE" -> """
+                        {"queryType": "UPDATE", "table": "user_entity", "values": [{"last_name": "Updated%d"}],
+                         "conditions": [{"column": "id", "operator": "=", "value": "%d"}]}""".formatted(i, id);
+                case "DELETE" -> """
+                        {"queryType": "DELETE", "table": "user_entity",
+                         "conditions": [{"column": "id", "operator": "=", "value": "%d"}]}""".formatted(id);
+                default -> throw new IllegalArgumentException("Unknown query type: " + queryType);
+            };
+            requests.add(new Request(queryType, body.replace("\n", " ").getBytes(StandardCharsets.UTF_8)));
+        }
+        return new RequestCorpus(requests);
+    }
+
+    /**
+     * Parse a mix such as {@code SELECT:70,INSERT:10,UPDATE:10,DELETE:10}.
+     */
+    static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            String queryType = parts[0].trim().toUpperCase();
+            if (parts.length != 2 || !QUERY_TYPES.contains(queryType)) {
+                throw new IllegalArgumentException("Invalid query mix entry: " + entry);
+            }
+            weights.put(queryType, Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    private static String pick(Map<String, Integer> mix, int value) {
+        for (Map.Entry<String, Integer> weight : mix.entrySet()) {
+            value -= weight.getValue();
+            if (value < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * @return the request sent {@code index}-th, cycling through the corpus
+     */
+    Request get(long index) {
+        return requests.get((int) (index % requests.size()));
+    }
+
+    int size() {
+        return requests.size();
+    }
+}
@@ -0,0 +1,57 @@
+package pl.pwr.translator_app.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCorpusTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldGenerateRequestsFollowingTheMix() throws IOException {
+        RequestCorpus corpus = RequestCorpus.generate(RequestCorpus.parseMix("SELECT:80, INSERT:20"), 10_000, 100, 1);
+
+        Map<String, Long> counts = LongStream.range(0, corpus.size())
+                .mapToObj(corpus::get)
+                .collect(Collectors.groupingBy(RequestCorpus.Request::queryType, Collectors.counting()));
+        assertThat(counts).containsOnlyKeys("SELECT", "INSERT");
+        assertThat(counts.get("SELECT")).isBetween(7_700L, 8_300L);
+        // Every generated body is a valid request of its type
+        assertThat(objectMapper.readTree(corpus.get(0).body()).get("queryType").asText())
+                .isEqualTo(corpus.get(0).queryType());
+    }
+
+    @Test
+    void shouldReplayCorpusFileInOrder(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("corpus.jsonl");
+        Files.writeString(file, """
+                {"queryType": "select", "table": "user_entity"}
+
+                {"queryType": "DELETE", "table": "user_entity"}
+                {"table": "user_entity"}
+                """);
+
+        RequestCorpus corpus = RequestCorpus.read(file, objectMapper);
+
+        assertThat(corpus.size()).isEqualTo(3);
+        assertThat(LongStream.range(0, 4).mapToObj(i -> corpus.get(i).queryType()))
+                .containsExactly("SELECT", "DELETE", "OTHER", "SELECT");
+    }
+
+    @Test
+    void shouldRejectUnknownQueryTypeInMix() {
+        assertThatThrownBy(() -> RequestCorpus.parseMix("SELECT:1,MERGE:1"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
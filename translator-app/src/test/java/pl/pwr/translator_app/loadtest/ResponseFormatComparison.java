@@ -0,0 +1,102 @@
+package pl.pwr.translator_app.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import pl.pwr.translator_app.domain.Row;
+import pl.pwr.translator_app.dto.ColumnarQueryResultDTO;
+import pl.pwr.translator_app.dto.QueryResultDTO;
+
+/**
+ * Compares the payload size and serialization time of a SELECT result in the response formats of
+ * {@code /users}. Columnar timings include laying the rows out by column.
+ * <p>
+ * Options, all given as {@code --name=value}:
+ * <ul>
+ *     <li>{@code rows}: rows of the result, shaped like {@code user_entity}, default 10000</li>
+ *     <li>{@code iterations}: serializations per round, default 200</li>
+ *     <li>{@code rounds}: measured rounds of every format after one warm-up round, the fastest is reported, default 10</li>
+ * </ul>
+ */
+public final class ResponseFormatComparison {
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private record Format(String name, ObjectMapper mapper, boolean columnar) {
+    }
+
+    private ResponseFormatComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        int rows = Integer.parseInt(options.getOrDefault("rows", "10000"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "200"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "10"));
+        QueryResultDTO result = result(rows);
+
+        List<Format> formats = List.of(
+                new Format("rows, JSON", JSON, false),
+                new Format("rows, CBOR", new CBORMapper(), false),
+                new Format("columnar, JSON", JSON, true),
+                new Format("columnar, CBOR", new CBORMapper(), true),
+                new Format("columnar, Smile", new SmileMapper(), true));
+
+        // Rounds alternate between the formats, so JIT compilation and GC affect them alike
+        ByteArrayOutputStream output = new ByteArrayOutputStream(1 << 20);
+        double[] micros = new double[formats.size()];
+        int[] bytes = new int[formats.size()];
+        Arrays.fill(micros, Double.MAX_VALUE);
+        for (int round = 0; round <= rounds; round++) {
+            for (int f = 0; f < formats.size(); f++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    output.reset();
+                    write(formats.get(f), result, output);
+                }
+                if (round > 0) {
+                    micros[f] = Math.min(micros[f], (System.nanoTime() - start) / 1e3 / iterations);
+                }
+                bytes[f] = output.size();
+            }
+        }
+
+        System.out.printf("%d rows, fastest of %d rounds of %d serializations%n", rows, rounds, iterations);
+        System.out.printf("%-16s %12s %8s %12s %8s%n", "format", "bytes", "size", "us/response", "time");
+        for (int f = 0; f < formats.size(); f++) {
+            System.out.printf("%-16s %12d %7.0f%% %12.0f %7.0f%%%n", formats.get(f).name(), bytes[f],
+                    100.0 * bytes[f] / bytes[0], micros[f], 100.0 * micros[f] / micros[0]);
+        }
+    }
+
+    private static void write(Format format, QueryResultDTO result, ByteArrayOutputStream output) throws IOException {
+        format.mapper().writeValue(output, format.columnar() ? ColumnarQueryResultDTO.of(result) : result);
+    }
+
+    private static QueryResultDTO result(int count) {
+        Row.Columns columns = new Row.Columns(List.of("id", "email", "first_name", "last_name"));
+        List<Row> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Row(columns, new Object[]{(long) i + 1, "user" + i + "@example.com", "User" + i, "Seed" + i % 100}));
+        }
+        QueryResultDTO result = new QueryResultDTO();
+        result.setSuccessful(true);
+        result.setOperation("SELECT");
+        result.setMessage("Query executed successfully");
+        result.setQuery("SELECT * FROM user_entity");
+        result.setRowsAffected(count);
+        result.setResults(rows);
+        return result;
+    }
+}
@@ -0,0 +1,151 @@
+package pl.pwr.translator_app.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import pl.pwr.translator_app.TranslatorAppApplication;
+import pl.pwr.translator_app.domain.User;
+import pl.pwr.translator_app.mapper.ProjectionRowMapper;
+import pl.pwr.translator_app.mapper.UserMapper;
+import pl.pwr.translator_app.model.UserEntity;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+import pl.pwr.translator_app.schema.TableSchema;
+
+/**
+ * Compares the CPU time and allocations of reading a SELECT result as managed {@link UserEntity}s mapped to
+ * {@link User}s, like SELECTs were read before, with reading it through the {@link ProjectionRowMapper}.
+ * <p>
+ * Starts an embedded PostgreSQL server and the application context in this JVM and seeds {@code user_entity}.
+ * Every read runs in its own read-only transaction, like a request does. CPU time and allocated bytes are those
+ * of the reading thread only, so the time the database spends is left out.
+ * <p>
+ * Options, all given as {@code --name=value}:
+ * <ul>
+ *     <li>{@code rows}: rows of the result, default 1000</li>
+ *     <li>{@code iterations}: reads per round, default 200</li>
+ *     <li>{@code rounds}: measured rounds of every mapping after one warm-up round, the fastest is reported, default 10</li>
+ *     <li>{@code jdbc-url}, {@code username}, {@code password}: read an existing database instead, which must
+ *     hold at least {@code rows} users and is not modified</li>
+ * </ul>
+ */
+public final class RowMappingComparison {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private record Mapping(String name, Supplier<List<?>> read) {
+    }
+
+    private RowMappingComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        int rows = Integer.parseInt(options.getOrDefault("rows", "1000"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "200"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "10"));
+
+        EmbeddedPostgres postgres = options.containsKey("jdbc-url") ? null : EmbeddedPostgres.start();
+        try {
+            String url = postgres != null ? postgres.getJdbcUrl("postgres", "postgres") : options.get("jdbc-url");
+            try (ConfigurableApplicationContext context = SpringApplication.run(TranslatorAppApplication.class,
+                    "--spring.main.web-application-type=none",
+                    "--spring.datasource.url=" + url,
+                    "--spring.datasource.username=" + options.getOrDefault("username", "postgres"),
+                    "--spring.datasource.password=" + options.getOrDefault("password", ""),
+                    "--logging.level.pl.pwr=warn",
+                    "--logging.level.org.hibernate=warn")) {
+                if (postgres != null) {
+                    seed(context.getBean(JdbcTemplate.class), rows);
+                }
+                compare(context, rows, iterations, rounds);
+            }
+        } finally {
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void compare(ConfigurableApplicationContext context, int rows, int iterations, int rounds) {
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transaction.setReadOnly(true);
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        UserMapper userMapper = context.getBean(UserMapper.class);
+        TableSchema table = context.getBean(SchemaCatalog.class).table("user_entity").orElseThrow();
+        String all = "SELECT * FROM user_entity ORDER BY id LIMIT " + rows;
+        String projected = "SELECT id, email FROM user_entity ORDER BY id LIMIT " + rows;
+
+        List<Mapping> mappings = List.of(
+                new Mapping("entity, all columns", () -> transaction.execute(status ->
+                        ((List<UserEntity>) entityManager.createNativeQuery(all, UserEntity.class).getResultList())
+                                .stream().map(userMapper::map).toList())),
+                new Mapping("rows, all columns", () -> transaction.execute(status ->
+                        jdbcTemplate.query(all, new ProjectionRowMapper(table)))),
+                new Mapping("rows, 2 columns", () -> transaction.execute(status ->
+                        jdbcTemplate.query(projected, new ProjectionRowMapper(table)))));
+
+        // Rounds alternate between the mappings, so JIT compilation and GC affect them alike
+        double[] micros = new double[mappings.size()];
+        double[] cpuMicros = new double[mappings.size()];
+        double[] bytes = new double[mappings.size()];
+        Arrays.fill(micros, Double.MAX_VALUE);
+        Arrays.fill(cpuMicros, Double.MAX_VALUE);
+        Arrays.fill(bytes, Double.MAX_VALUE);
+        long thread = Thread.currentThread().threadId();
+        for (int round = 0; round <= rounds; round++) {
+            for (int m = 0; m < mappings.size(); m++) {
+                long allocated = THREADS.getThreadAllocatedBytes(thread);
+                long cpu = THREADS.getCurrentThreadCpuTime();
+                long start = System.nanoTime();
+                int read = 0;
+                for (int i = 0; i < iterations; i++) {
+                    read += mappings.get(m).read().get().size();
+                }
+                if (read != rows * iterations) {
+                    throw new IllegalStateException(mappings.get(m).name() + " read " + read / iterations
+                            + " rows instead of " + rows);
+                }
+                if (round > 0) {
+                    micros[m] = Math.min(micros[m], (System.nanoTime() - start) / 1e3 / iterations);
+                    cpuMicros[m] = Math.min(cpuMicros[m], (THREADS.getCurrentThreadCpuTime() - cpu) / 1e3 / iterations);
+                    bytes[m] = Math.min(bytes[m], (double) (THREADS.getThreadAllocatedBytes(thread) - allocated) / iterations);
+                }
+            }
+        }
+
+        System.out.printf("%d rows, fastest of %d rounds of %d reads%n", rows, rounds, iterations);
+        System.out.printf("%-20s %12s %12s %8s %14s %8s%n", "mapping", "us/read", "cpu us/read", "cpu", "bytes/read", "bytes");
+        for (int m = 0; m < mappings.size(); m++) {
+            System.out.printf("%-20s %12.0f %12.0f %7.0f%% %14.0f %7.0f%%%n", mappings.get(m).name(), micros[m],
+                    cpuMicros[m], 100.0 * cpuMicros[m] / cpuMicros[0], bytes[m], 100.0 * bytes[m] / bytes[0]);
+        }
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        jdbcTemplate.update("""
+                INSERT INTO user_entity (first_name, last_name, email)
+                SELECT 'User' || i, 'Seed' || (i % 100), 'user' || i || '@example.com'
+                FROM generate_series(1, ?) AS i""", rows);
+        jdbcTemplate.execute("ANALYZE user_entity");
+    }
+}
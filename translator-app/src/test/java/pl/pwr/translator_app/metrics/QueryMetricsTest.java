@@ -0,0 +1,79 @@
+package pl.pwr.translator_app.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import pl.pwr.parser.QueryTranslator;
+import pl.pwr.query.Query;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldTimeTranslationStagesByTypeAndTable() {
+        QueryMetrics metrics = new QueryMetrics(registry, 10);
+        QueryTranslator translator = new QueryTranslator(null, metrics);
+
+        translator.translate("""
+                {"queryType": "select", "table": "user_entity", "columns": ["id"]}""");
+        long start = metrics.start();
+        metrics.stage(QueryMetrics.Stage.EXECUTE, query("SELECT", "user_entity"), start);
+        metrics.rows(query("SELECT", "user_entity"), 3);
+
+        for (String stage : List.of("lex", "parse", "read", "generate", "execute")) {
+            assertThat(registry.get("translator.stage").tags("stage", stage, "type", "SELECT", "table", "user_entity")
+                    .timer().count()).isEqualTo(1);
+        }
+        assertThat(registry.get("translator.query.rows").summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldBoundDistinctTableTags() {
+        QueryMetrics metrics = new QueryMetrics(registry, 2);
+
+        for (String table : List.of("a", "b", "c", "d", "A")) {
+            metrics.error(QueryMetrics.Stage.EXECUTE, query("DELETE", table));
+        }
+        metrics.error(QueryMetrics.Stage.MAP, null);
+
+        assertThat(registry.get("translator.query.errors").tag("table", "a").counter().count()).isEqualTo(2);
+        assertThat(registry.get("translator.query.errors").tag("table", "other").counter().count()).isEqualTo(2);
+        assertThat(registry.get("translator.query.errors").tags("stage", "map", "type", "unknown").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldCountRejectionsByReason() {
+        QueryMetrics metrics = new QueryMetrics(registry, 10);
+
+        metrics.rejected(query("SELECT", "user_entity"), "queue_full");
+        metrics.rejected(query("SELECT", "user_entity"), "queue_full");
+        metrics.rejected(query("INSERT", "user_entity"), "timeout");
+
+        assertThat(registry.get("translator.query.rejections").tags("reason", "queue_full", "type", "SELECT")
+                .counter().count()).isEqualTo(2);
+        assertThat(registry.get("translator.query.rejections").tags("reason", "timeout", "type", "INSERT")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecordNothingWhenDisabled() {
+        QueryMetrics metrics = QueryMetrics.DISABLED;
+
+        assertThat(metrics.start()).isZero();
+        metrics.stage(QueryMetrics.Stage.EXECUTE, query("SELECT", "user_entity"), 0);
+        metrics.query(query("SELECT", "user_entity"), 0, false);
+        metrics.error(QueryMetrics.Stage.READ, null);
+        metrics.rejected(query("SELECT", "user_entity"), "timeout");
+
+        assertThat(metrics.isEnabled()).isFalse();
+    }
+
+    private static Query query(String type, String table) {
+        return new Query(type, table, null, null, null, null, null, null);
+    }
+}
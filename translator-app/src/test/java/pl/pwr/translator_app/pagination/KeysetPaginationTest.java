@@ -0,0 +1,136 @@
+package pl.pwr.translator_app.pagination;
+
+import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
+import pl.pwr.translator_app.domain.Row;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+import pl.pwr.translator_app.schema.TableSchema;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetPaginationTest {
+
+    private static final TableSchema ORDERS = new TableSchema("public", "orders", List.of(
+            new TableSchema.Column("order_no", "bigint", false),
+            new TableSchema.Column("customer", "character varying", false),
+            new TableSchema.Column("placed_on", "date", false),
+            new TableSchema.Column("total", "numeric", false),
+            new TableSchema.Column("note", "text", true)),
+            List.of(new TableSchema.Index("orders_pkey", "btree", List.of("order_no"),
+                    "CREATE UNIQUE INDEX orders_pkey ON public.orders USING btree (order_no)", true)));
+    private static final TableSchema EVENTS = new TableSchema("public", "events", List.of(
+            new TableSchema.Column("name", "text", false)));
+
+    private final KeysetPagination pagination = new KeysetPagination(new ObjectMapper(),
+            new SchemaCatalog(() -> List.of(ORDERS, EVENTS), Duration.ofMinutes(1), true));
+
+    private static Query byCustomer(List<String> columns) {
+        return new Query("SELECT", "orders", columns, null, null, List.of(new OrderBy("customer", "ASC")), null, 2);
+    }
+
+    @Test
+    void shouldNotPageWithoutCursorOrRequest() {
+        Query query = byCustomer(List.of("customer"));
+
+        KeysetPagination.Page page = pagination.apply(query, null, false);
+
+        assertThat(page.query()).isSameAs(query);
+        Row.Columns columns = new Row.Columns(List.of("customer"));
+        assertThat(pagination.nextCursor(page, List.of(new Row(columns, new Object[]{"a"}),
+                new Row(columns, new Object[]{"b"})))).isNull();
+    }
+
+    @Test
+    void shouldSortByPrimaryKeyAndReadUnselectedKeysFromAliases() {
+        KeysetPagination.Page page = pagination.apply(byCustomer(List.of("placed_on")), null, true);
+
+        assertThat(page.query().orderBy())
+                .containsExactly(new OrderBy("customer", "ASC"), new OrderBy("order_no", "ASC"));
+        assertThat(page.query().columns())
+                .containsExactly("placed_on", "customer AS cursor_key_1", "order_no AS cursor_key_2");
+        assertThat(page.requested().columns()).containsExactly("placed_on");
+
+        Row.Columns columns = new Row.Columns(List.of("placed_on", "cursor_key_1", "cursor_key_2"));
+        List<Row> rows = List.of(new Row(columns, new Object[]{"2024-01-01", "Ann", 7L}),
+                new Row(columns, new Object[]{"2024-01-02", "Bob", 3L}));
+        assertThat(page.rows(rows)).extracting(Row::toString)
+                .containsExactly("[placed_on]=[2024-01-01]", "[placed_on]=[2024-01-02]");
+
+        String cursor = pagination.nextCursor(page, rows);
+        KeysetPagination.Page next = pagination.apply(byCustomer(List.of("placed_on")), cursor, true);
+        assertThat(next.query().after()).containsExactly("Bob", 3L);
+    }
+
+    @Test
+    void shouldContinueAfterExactValuesOfTheColumnTypes() {
+        Query query = new Query("SELECT", "orders", List.of("total", "placed_on"), null, null,
+                List.of(new OrderBy("total", "DESC"), new OrderBy("placed_on", "DESC")), null, 1);
+        BigDecimal total = new BigDecimal("123456789012345678.90123456789");
+        Row.Columns columns = new Row.Columns(List.of("total", "placed_on", "cursor_key_1"));
+
+        String cursor = pagination.nextCursor(pagination.apply(query, null, true),
+                List.of(new Row(columns, new Object[]{total, Date.valueOf("2024-02-29"), Long.MAX_VALUE})));
+
+        // The date stays text, which the database reads as a date
+        assertThat(pagination.apply(query, cursor, true).query().after())
+                .containsExactly(total, "2024-02-29", Long.MAX_VALUE);
+    }
+
+    @Test
+    void shouldRequireNullsPlacementOnlyForNullableSortKeys() {
+        Query byNote = new Query("SELECT", "orders", null, null, null, List.of(new OrderBy("note", "ASC")), null, 2);
+        Query byNoteNullsLast = new Query("SELECT", "orders", null, null, null,
+                List.of(new OrderBy("note", "ASC", "LAST")), null, 2);
+        Query byCustomerNullsFirst = new Query("SELECT", "orders", null, null, null,
+                List.of(new OrderBy("customer", "ASC", "FIRST")), null, 2);
+
+        assertThatThrownBy(() -> pagination.apply(byNote, null, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Paging on a nullable column requires a nulls placement: note");
+        assertThat(pagination.apply(byNoteNullsLast, null, true).query().orderBy())
+                .containsExactly(new OrderBy("note", "ASC", "LAST"), new OrderBy("order_no", "ASC"));
+        // Without nulls the keys are compared as one row value, which the index answers
+        assertThat(pagination.apply(byCustomerNullsFirst, null, true).query().orderBy())
+                .containsExactly(new OrderBy("customer", "ASC"), new OrderBy("order_no", "ASC"));
+    }
+
+    @Test
+    void shouldNotAliasSortKeysOfAllColumns() {
+        KeysetPagination.Page page = pagination.apply(byCustomer(null), null, true);
+
+        assertThat(page.query().columns()).isNull();
+        assertThat(page.keys()).containsExactly("customer", "order_no");
+        assertThat(page.aliases()).isZero();
+    }
+
+    @Test
+    void shouldRejectPagingTableWithoutPrimaryKey() {
+        Query query = new Query("SELECT", "events", null, null, null, List.of(new OrderBy("name", "ASC")), null, 2);
+
+        assertThatThrownBy(() -> pagination.apply(query, null, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot page a table without a primary key: events");
+        assertThat(pagination.apply(query, null, false).query()).isSameAs(query);
+    }
+
+    @Test
+    void shouldRejectCursorOfAnotherQuery() {
+        KeysetPagination.Page page = pagination.apply(byCustomer(null), null, true);
+        Row.Columns columns = new Row.Columns(List.of("order_no", "customer"));
+        String cursor = pagination.nextCursor(page, List.of(new Row(columns, new Object[]{1L, "Ann"}),
+                new Row(columns, new Object[]{2L, "Bob"})));
+        Query byDate = new Query("SELECT", "orders", null, null, null, List.of(new OrderBy("placed_on", "ASC")), null, 2);
+
+        assertThatThrownBy(() -> pagination.apply(byDate, cursor, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor does not belong to this query");
+    }
+}
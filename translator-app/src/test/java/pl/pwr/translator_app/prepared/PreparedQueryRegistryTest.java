@@ -0,0 +1,136 @@
+package pl.pwr.translator_app.prepared;
+
+import org.junit.jupiter.api.Test;
+import pl.pwr.parser.QueryTranslator;
+import pl.pwr.query.Condition;
+import pl.pwr.query.SqlStatement;
+import pl.pwr.translator_app.dto.QueryRequestDTO;
+import pl.pwr.translator_app.guard.CostGuard;
+import pl.pwr.translator_app.mapper.QueryMapper;
+import pl.pwr.translator_app.schema.SchemaCatalog;
+import pl.pwr.translator_app.schema.TableSchema;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PreparedQueryRegistryTest {
+
+    private static final TableSchema USERS = new TableSchema("public", "user_entity", List.of(
+            new TableSchema.Column("id", "bigint"),
+            new TableSchema.Column("first_name", "character varying"),
+            new TableSchema.Column("last_name", "character varying"),
+            new TableSchema.Column("email", "character varying")));
+
+    private final PreparedQueryRegistry registry = new PreparedQueryRegistry(new QueryMapper(), new QueryTranslator(),
+            new SchemaCatalog(() -> List.of(USERS), Duration.ofMinutes(1), true), CostGuard.DISABLED, 2, 2, 1);
+
+    private static QueryRequestDTO select(String... conditions) {
+        QueryRequestDTO request = new QueryRequestDTO();
+        request.setQueryType("SELECT");
+        request.setTable("user_entity");
+        request.setColumns(List.of("id", "email"));
+        request.setConditions(Arrays.stream(conditions).map(condition -> {
+            String[] parts = condition.split(" ", 3);
+            QueryRequestDTO.Condition dto = new QueryRequestDTO.Condition();
+            dto.setColumn(parts[0]);
+            dto.setOperator(parts[1]);
+            dto.setValue(parts[2]);
+            return dto;
+        }).toList());
+        request.setLimit(10);
+        return request;
+    }
+
+    @Test
+    void shouldCompileOnceAndBindParameterValues() {
+        PreparedQuery prepared = registry.register("byName",
+                select("last_name LIKE :prefix", "first_name = Ann", "email != :prefix", "id > :after"));
+
+        assertThat(prepared.version()).isEqualTo(1);
+        assertThat(prepared.sql()).isEqualTo(
+                "SELECT id, email FROM user_entity WHERE last_name LIKE ? AND first_name = ? AND email != ? AND id > ? LIMIT ?");
+        assertThat(prepared.parameters()).containsExactly("prefix", "after");
+
+        Map<String, Object> values = Map.of("prefix", "Sm%", "after", 42);
+        assertThat(prepared.statement(values))
+                .isEqualTo(new SqlStatement(prepared.sql(), List.of("Sm%", "Ann", "Sm%", "42", 10)));
+        assertThat(prepared.bind(values).conditions()).extracting(Condition::value)
+                .containsExactly("Sm%", "Ann", "Sm%", "42");
+
+        assertThatThrownBy(() -> prepared.statement(Map.of("prefix", "Sm%")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Missing parameter of byName: after");
+        assertThatThrownBy(() -> prepared.statement(Map.of("prefix", "Sm%", "after", 1, "other", 2)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Unknown parameter of byName: other");
+        assertThatThrownBy(() -> prepared.statement(Map.of("prefix", List.of(), "after", 1)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("prefix");
+    }
+
+    @Test
+    void shouldVersionListAndEvictRegistrations() {
+        registry.register("byEmail", select("email = :email"));
+        assertThat(registry.register("byEmail", select("email = :email")).version()).isEqualTo(1);
+        registry.register("byEmail", select("email LIKE :email"));
+        registry.register("byEmail", select("email ILIKE :email"));
+
+        assertThat(registry.versions("byEmail")).extracting(PreparedQuery::version).containsExactly(2, 3);
+        assertThat(registry.get("byEmail", null)).get().extracting(PreparedQuery::sql).asString().contains("ILIKE");
+        assertThat(registry.get("byEmail", 1)).isEmpty();
+
+        registry.register("byId", select("id = :id"));
+        assertThat(registry.list()).extracting(PreparedQuery::id).containsExactly("byEmail", "byId");
+        assertThatThrownBy(() -> registry.register("third", select("id = :id")))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(registry.evict("byEmail", 3)).isTrue();
+        assertThat(registry.get("byEmail", null)).get().extracting(PreparedQuery::version).isEqualTo(2);
+        assertThat(registry.evict("byId", null)).isTrue();
+        assertThat(registry.evict("byId", null)).isFalse();
+        assertThat(registry.list()).extracting(PreparedQuery::id).containsExactly("byEmail");
+    }
+
+    @Test
+    void shouldNeverReuseVersionsAfterEviction() {
+        registry.register("byEmail", select("email = :email"));
+        registry.register("byEmail", select("email LIKE :email"));
+        assertThat(registry.evict("byEmail", 2)).isTrue();
+        assertThat(registry.register("byEmail", select("email ILIKE :email")).version()).isEqualTo(3);
+
+        assertThat(registry.evict("byEmail", null)).isTrue();
+        assertThat(registry.register("byEmail", select("email = :email")).version()).isEqualTo(4);
+        assertThat(registry.get("byEmail", 1)).isEmpty();
+    }
+
+    @Test
+    void shouldContinueAfterForgottenVersionsOfEvictedIds() {
+        registry.register("byEmail", select("email = :email"));
+        registry.register("byEmail", select("email LIKE :email"));
+        assertThat(registry.evict("byEmail", null)).isTrue();
+        assertThat(registry.register("byId", select("id = :id")).version()).isEqualTo(1);
+        assertThat(registry.evict("byId", 1)).isTrue();
+
+        // Only one evicted id is remembered, the versions of byEmail are forgotten but never reused
+        assertThat(registry.register("byEmail", select("email = :email")).version()).isEqualTo(3);
+        assertThat(registry.register("byId", select("id = :id")).version()).isEqualTo(2);
+        assertThat(registry.evict("byEmail", null)).isTrue();
+        assertThat(registry.register("byName", select("first_name = :name")).version()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRejectInvalidRegistrations() {
+        assertThatThrownBy(() -> registry.register("bad id", select("id = :id")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Invalid prepared query id");
+        assertThatThrownBy(() -> registry.register("unknown", select("age > :age")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Unknown column");
+
+        QueryRequestDTO invalid = select("id = :id");
+        invalid.setQueryType("MERGE");
+        assertThatThrownBy(() -> registry.register("merge", invalid))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Invalid query type: MERGE");
+        assertThat(registry.list()).isEmpty();
+    }
+}
@@ -0,0 +1,105 @@
+package pl.pwr.translator_app.profiler;
+
+import org.junit.jupiter.api.Test;
+import pl.pwr.query.SqlStatement;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryProfilerTest {
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    void shouldCollapseInsertRowsIntoOneShape() {
+        QueryShape three = QueryShape.of("INSERT INTO user_entity (first_name, email) VALUES (?, ?), (?, ?), (?, ?)");
+        QueryShape one = QueryShape.of("INSERT INTO user_entity (first_name, email) VALUES (?, ?)");
+        QueryShape two = QueryShape.of("INSERT INTO user_entity (first_name, email) VALUES (?, ?), (?, ?)");
+
+        assertThat(three.sql()).isEqualTo("INSERT INTO user_entity (first_name, email) VALUES (?, ?), ...");
+        assertThat(two).isEqualTo(three);
+        assertThat(one.id()).isNotEqualTo(three.id());
+        assertThat(three.hexId()).hasSize(16);
+    }
+
+    @Test
+    void shouldBoundQuantilesByBucketWidth() {
+        for (long micros : new long[]{0, 15, 16, 17, 1_000, 123_456, 10_000_000_000L}) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.index(micros));
+            assertThat(upper).isGreaterThanOrEqualTo(micros).isLessThanOrEqualTo(micros + micros / 16);
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros);
+        }
+        assertThat(histogram.quantile(0.5)).isBetween(500L, 500L + 500 / 16);
+        assertThat(histogram.quantile(0.99)).isBetween(990L, 1000L);
+        assertThat(histogram.max()).isEqualTo(1000);
+    }
+
+    @Test
+    void shouldRankShapesAndKeepSlowSamplesWithParameters() {
+        QueryProfiler profiler = new QueryProfiler(1.0, TimeUnit.MILLISECONDS.toNanos(100), 2, 4);
+        SqlStatement byEmail = new SqlStatement("SELECT * FROM user_entity WHERE email = ?", List.of("a@x.com"));
+        SqlStatement byName = new SqlStatement("SELECT * FROM user_entity WHERE first_name = ?", List.of("Ann"));
+        for (int i = 0; i < 5; i++) {
+            profiler.record(byEmail, millis(1), 1, false);
+        }
+        profiler.record(byName, millis(150), 40, false);
+        profiler.record(new SqlStatement("SELECT * FROM user_entity WHERE id = ?", List.of(1)), millis(500), 1, false);
+
+        QueryProfiler.Report slowest = profiler.report(10, QueryProfiler.Order.SLOWEST);
+        assertThat(slowest.shapes()).extracting(QueryProfiler.ShapeReport::sql)
+                .containsExactly(byName.sql(), byEmail.sql());
+        assertThat(slowest.shapes().get(0).p99Millis()).isGreaterThanOrEqualTo(150);
+        assertThat(slowest.shapes().get(0).meanRows()).isEqualTo(40);
+        assertThat(slowest.droppedShapes()).isEqualTo(1);
+        assertThat(slowest.slowest()).singleElement().satisfies(sample -> {
+            assertThat(sample.parameters()).containsExactly("Ann");
+            assertThat(sample.millis()).isGreaterThanOrEqualTo(150);
+        });
+
+        assertThat(profiler.report(1, QueryProfiler.Order.FREQUENT).shapes()).singleElement()
+                .satisfies(shape -> assertThat(shape.executions()).isEqualTo(5));
+        profiler.reset();
+        assertThat(profiler.report(10, QueryProfiler.Order.TOTAL).shapes()).isEmpty();
+    }
+
+    @Test
+    void shouldCapShapesRatherThanStatements() {
+        QueryProfiler profiler = new QueryProfiler(1.0, millis(100), 2, 10, 4);
+        StringBuilder insert = new StringBuilder("INSERT INTO user_entity (first_name) VALUES (?), (?)");
+        for (int rows = 2; rows <= 50; rows++) {
+            profiler.record(new SqlStatement(insert.toString(), List.of()), millis(1), rows, false);
+            insert.append(", (?)");
+        }
+        profiler.record(new SqlStatement("SELECT * FROM user_entity WHERE id = ?", List.of(1)), millis(1), 1, false);
+        profiler.record(new SqlStatement("SELECT * FROM user_entity WHERE email = ?", List.of("a@x.com")), millis(1), 0, false);
+
+        QueryProfiler.Report report = profiler.report(10, QueryProfiler.Order.FREQUENT);
+        assertThat(report.trackedShapes()).isEqualTo(2);
+        assertThat(report.droppedShapes()).isEqualTo(1);
+        assertThat(report.shapes()).extracting(QueryProfiler.ShapeReport::executions).containsExactly(49L, 1L);
+    }
+
+    @Test
+    void shouldForgetDroppedExecutionsAndSlowSamplesOnReset() {
+        QueryProfiler profiler = new QueryProfiler(1.0, millis(100), 1, 4);
+        profiler.record(new SqlStatement("SELECT * FROM user_entity WHERE id = ?", List.of(1)), millis(150), 1, false);
+        profiler.record(new SqlStatement("SELECT * FROM user_entity WHERE email = ?", List.of("a@x.com")), millis(1), 0, false);
+        assertThat(profiler.report(10, QueryProfiler.Order.TOTAL).droppedShapes()).isEqualTo(1);
+
+        profiler.reset();
+        profiler.record(new SqlStatement("SELECT * FROM user_entity WHERE email = ?", List.of("a@x.com")), millis(1), 0, false);
+
+        QueryProfiler.Report report = profiler.report(10, QueryProfiler.Order.TOTAL);
+        assertThat(report.droppedShapes()).isZero();
+        assertThat(report.slowest()).isEmpty();
+        assertThat(report.shapes()).singleElement()
+                .satisfies(shape -> assertThat(shape.sql()).isEqualTo("SELECT * FROM user_entity WHERE email = ?"));
+    }
+}
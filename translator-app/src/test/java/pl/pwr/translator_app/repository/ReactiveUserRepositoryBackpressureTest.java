@@ -0,0 +1,89 @@
+package pl.pwr.translator_app.repository;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import pl.pwr.query.SqlStatement;
+import reactor.test.StepVerifier;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every row the server produces takes a shared advisory lock of the streaming transaction, so counting them from
+ * another connection tells how many rows were fetched so far.
+ */
+@Testcontainers
+class ReactiveUserRepositoryBackpressureTest {
+    private static final int FETCH_SIZE = 10;
+    private static final int ROWS = 10_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private ReactiveUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse("r2dbc:postgresql://" + postgres.getHost()
+                        + ":" + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + postgres.getDatabaseName())
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, postgres.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, postgres.getPassword())
+                .build();
+        repository = new ReactiveUserRepository(new ConnectionPool(
+                ConnectionPoolConfiguration.builder(ConnectionFactories.get(options)).maxSize(1).build()), FETCH_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void shouldOnlyFetchWhatWasRequested() {
+        SqlStatement statement = new SqlStatement(
+                "SELECT i, pg_try_advisory_xact_lock_shared(i) AS locked FROM generate_series(1, ?) AS i", List.of(ROWS));
+
+        StepVerifier.create(repository.streamUsers(statement), 5)
+                .expectNextCount(5)
+                // Long enough for a fetch beyond the demand to show up
+                .thenAwait(Duration.ofMillis(500))
+                .then(() -> assertThat(fetchedRows()).isBetween(5L, 5L + 2 * FETCH_SIZE))
+                .thenRequest(100)
+                .expectNextCount(100)
+                .thenAwait(Duration.ofMillis(500))
+                .then(() -> assertThat(fetchedRows()).isBetween(105L, 105L + 2 * FETCH_SIZE))
+                .thenCancel()
+                .verify(Duration.ofSeconds(30));
+
+        // Cancelling rolled the transaction back, which released its locks
+        assertThat(fetchedRows()).isZero();
+    }
+
+    private static long fetchedRows() {
+        try (Connection connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(),
+                postgres.getPassword());
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM pg_locks WHERE locktype = 'advisory'")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
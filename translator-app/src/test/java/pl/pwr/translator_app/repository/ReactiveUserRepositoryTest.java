@@ -0,0 +1,20 @@
+package pl.pwr.translator_app.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveUserRepositoryTest {
+
+    @Test
+    void shouldNumberPlaceholdersInOrder() {
+        assertThat(ReactiveUserRepository.numberedPlaceholders("SELECT * FROM user_entity WHERE id > ? AND email = ? LIMIT ?"))
+                .isEqualTo("SELECT * FROM user_entity WHERE id > $1 AND email = $2 LIMIT $3");
+    }
+
+    @Test
+    void shouldLeaveQuotedQuestionMarksAlone() {
+        assertThat(ReactiveUserRepository.numberedPlaceholders("SELECT \"what?\" FROM t WHERE a = 'why?' AND b = ?"))
+                .isEqualTo("SELECT \"what?\" FROM t WHERE a = 'why?' AND b = $1");
+    }
+}
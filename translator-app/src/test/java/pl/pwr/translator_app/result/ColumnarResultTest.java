@@ -0,0 +1,59 @@
+package pl.pwr.translator_app.result;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import pl.pwr.translator_app.domain.Row;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarResultTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldWriteEveryColumnOnceWithTypedValues() throws Exception {
+        Row.Columns columns = new Row.Columns(List.of("id", "last_name", "email", "total", "active"));
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            rows.add(new Row(columns, new Object[]{
+                    i == 3 ? null : (long) i,
+                    i == 5 ? null : "Smith",
+                    "user" + i + "@example.com",
+                    new BigDecimal(i + ".50"),
+                    i % 2 == 0}));
+        }
+
+        String json = objectMapper.writeValueAsString(ColumnarResult.of(rows));
+
+        assertThat(json).isEqualTo("{\"rowCount\":8,\"columns\":["
+                + "{\"name\":\"id\",\"type\":\"long\",\"values\":[0,1,2,null,4,5,6,7]},"
+                + "{\"name\":\"lastName\",\"type\":\"string\",\"dictionary\":[\"Smith\"],\"indexes\":[0,0,0,0,0,null,0,0]},"
+                + "{\"name\":\"email\",\"type\":\"string\",\"values\":[" + emails(8) + "]},"
+                + "{\"name\":\"total\",\"type\":\"any\",\"values\":[0.50,1.50,2.50,3.50,4.50,5.50,6.50,7.50]},"
+                + "{\"name\":\"active\",\"type\":\"boolean\",\"values\":[true,false,true,false,true,false,true,false]}]}");
+    }
+
+    @Test
+    void shouldFallBackToPlainValuesForMixedTypes() throws Exception {
+        Row.Columns columns = new Row.Columns(List.of("value"));
+        List<Row> rows = List.of(new Row(columns, new Object[]{1L}), new Row(columns, new Object[]{"one"}),
+                new Row(columns, new Object[]{null}));
+
+        assertThat(objectMapper.writeValueAsString(ColumnarResult.of(rows)))
+                .isEqualTo("{\"rowCount\":3,\"columns\":[{\"name\":\"value\",\"type\":\"any\",\"values\":[1,\"one\",null]}]}");
+        assertThat(objectMapper.writeValueAsString(ColumnarResult.of(List.of())))
+                .isEqualTo("{\"rowCount\":0,\"columns\":[]}");
+    }
+
+    private static String emails(int count) {
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            emails.add("\"user" + i + "@example.com\"");
+        }
+        return String.join(",", emails);
+    }
+}
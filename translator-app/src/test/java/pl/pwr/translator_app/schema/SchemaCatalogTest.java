@@ -0,0 +1,76 @@
+package pl.pwr.translator_app.schema;
+
+import org.junit.jupiter.api.Test;
+import pl.pwr.query.Condition;
+import pl.pwr.query.OrderBy;
+import pl.pwr.query.Query;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SchemaCatalogTest {
+
+    private static final TableSchema USERS = new TableSchema("public", "user_entity", List.of(
+            new TableSchema.Column("id", "bigint"),
+            new TableSchema.Column("first_name", "character varying"),
+            new TableSchema.Column("email", "character varying")));
+
+    private final List<TableSchema> tables = new ArrayList<>(List.of(USERS));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private SchemaCatalog catalog(Duration minRefreshInterval) {
+        return new SchemaCatalog(() -> {
+            loads.incrementAndGet();
+            return List.copyOf(tables);
+        }, minRefreshInterval, true);
+    }
+
+    @Test
+    void shouldAcceptKnownTablesAndColumns() {
+        SchemaCatalog catalog = catalog(Duration.ofMinutes(1));
+
+        assertThatCode(() -> catalog.validate(new Query("SELECT", "public.USER_ENTITY", List.of("id", "First_Name"), null,
+                List.of(new Condition("email", "LIKE", "%@example.com")), List.of(new OrderBy("id", "ASC")), null, 10)))
+                .doesNotThrowAnyException();
+        assertThatCode(() -> catalog.validate(new Query("INSERT", "\"user_entity\"", List.of("first_name"),
+                List.of(Map.of("first_name", "Alice")), null, null, null, null)))
+                .doesNotThrowAnyException();
+        assertThat(catalog.table("User_Entity")).containsSame(USERS);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void shouldRejectUnknownTablesAndColumns() {
+        SchemaCatalog catalog = catalog(Duration.ofMinutes(1));
+
+        assertThatThrownBy(() -> catalog.validate(new Query("SELECT", "orders", null, null, null, null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown table: orders");
+        assertThatThrownBy(() -> catalog.validate(new Query("DELETE", "user_entity", null, null,
+                List.of(new Condition("password", "=", "x")), null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown column of user_entity: password");
+        assertThatThrownBy(() -> catalog.validate(new Query("SELECT", "\"USER_ENTITY\"", null, null, null, null, null, null)))
+                .hasMessage("Unknown table: \"USER_ENTITY\"");
+        // Unknown names don't reload the catalog within the refresh interval
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void shouldReloadOnUnknownTableOnceIntervalPassed() {
+        SchemaCatalog catalog = catalog(Duration.ZERO);
+        catalog.validate(new Query("SELECT", "user_entity", null, null, null, null, null, null));
+
+        tables.add(new TableSchema("public", "orders", List.of(new TableSchema.Column("id", "integer"))));
+        assertThatCode(() -> catalog.validate(new Query("SELECT", "orders", List.of("id"), null, null, null, null, null)))
+                .doesNotThrowAnyException();
+        assertThat(loads).hasValue(2);
+    }
+}
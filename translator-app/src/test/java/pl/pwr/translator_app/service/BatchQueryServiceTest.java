@@ -0,0 +1,87 @@
+package pl.pwr.translator_app.service;
+
+import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import pl.pwr.translator_app.admission.AdmissionControl;
+import pl.pwr.translator_app.admission.AdmissionRejectedException;
+import pl.pwr.translator_app.admission.Bulkhead;
+import pl.pwr.translator_app.dto.QueryResultDTO;
+import pl.pwr.translator_app.repository.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BatchQueryServiceTest {
+
+    private static final String SHED = "{\"queryType\": \"SELECT\", \"table\": \"shed\"}";
+
+    private final UserService userService = mock(UserService.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleTransactionStatus status = new SimpleTransactionStatus();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BatchQueryService batchQueryService = new BatchQueryService(userService, userRepository,
+            transactionManager, objectMapper, AdmissionControl.DISABLED);
+
+    private List<JsonNode> queryUsers(boolean atomic) throws IOException {
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        when(userRepository.underSavepoint(any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return true;
+        });
+        when(userService.queryUsers(any(byte[].class))).thenAnswer(invocation -> {
+            if (new String(invocation.<byte[]>getArgument(0), StandardCharsets.UTF_8).equals(SHED)) {
+                throw new AdmissionRejectedException("expensive", Bulkhead.Rejection.TIMEOUT);
+            }
+            QueryResultDTO result = new QueryResultDTO();
+            result.setSuccessful(true);
+            return result;
+        });
+
+        String input = String.join("\n", "{\"queryType\": \"SELECT\", \"table\": \"first\"}", SHED,
+                "{\"queryType\": \"SELECT\", \"table\": \"last\"}");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        batchQueryService.queryUsers(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output, atomic);
+        return output.toString(StandardCharsets.UTF_8).lines().map(line -> {
+            try {
+                return objectMapper.readTree(line);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }).toList();
+    }
+
+    @Test
+    void shouldFailShedLineAndRollBackAtomicBatch() throws IOException {
+        List<JsonNode> results = queryUsers(true);
+
+        assertThat(results).extracting(result -> result.get("successful").asBoolean())
+                .containsExactly(true, false, false);
+        assertThat(results.get(1).get("message").asText())
+                .isEqualTo("Error: Timed out waiting for the expensive bulkhead");
+        assertThat(results.get(2).get("message").asText()).isEqualTo("Skipped: an earlier query in the batch failed");
+        assertThat(status.isRollbackOnly()).isTrue();
+    }
+
+    @Test
+    void shouldFailOnlyShedLineOfNonAtomicBatch() throws IOException {
+        List<JsonNode> results = queryUsers(false);
+
+        assertThat(results).extracting(result -> result.get("successful").asBoolean())
+                .containsExactly(true, false, true);
+        assertThat(results.get(1).get("message").asText())
+                .isEqualTo("Error: Timed out waiting for the expensive bulkhead");
+        assertThat(status.isRollbackOnly()).isFalse();
+    }
+}